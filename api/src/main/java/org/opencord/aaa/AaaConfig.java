@@ -18,6 +18,7 @@ package org.opencord.aaa;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -28,6 +29,7 @@ import org.onosproject.net.config.basics.BasicElementConfig;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 /**
@@ -37,6 +39,14 @@ public class AaaConfig extends Config<ApplicationId> {
 
     private static final String RADIUS_HOST = "radiusHost";
     private static final String RADIUS_IP = "radiusIp";
+    private static final String RADIUS_HOST_CACHE_TTL = "radiusHostCacheTtl";
+    private static final String RADIUS_SERVERS = "radiusServers";
+    private static final String RADIUS_SERVER_IP = "ip";
+    private static final String RADIUS_SERVER_HOST = "host";
+    private static final String RADIUS_SERVER_UDP_PORT = "port";
+    private static final String RADIUS_SERVER_SECRET = "secret";
+    private static final String RADIUS_SERVER_WEIGHT = "weight";
+    private static final String RADIUS_LOAD_BALANCING = "radiusLoadBalancing";
     private static final String RADIUS_SERVER_PORT = "radiusServerPort";
     private static final String SESSION_CLEANUP_TIMER = "sessionCleanupTimer";
     private static final String RADIUS_MAC = "radiusMac";
@@ -47,6 +57,14 @@ public class AaaConfig extends Config<ApplicationId> {
     private static final String RADIUS_VLAN_PRIORITY_BIT = "radiusPBit";
     private static final String RADIUS_CONNECTION_TYPE = "radiusConnectionType";
     private static final String RADIUS_SERVER_CONNECTPOINTS = "radiusServerConnectPoints";
+    private static final String RADIUS_SOCKET_POOL_SIZE = "radiusSocketPoolSize";
+    private static final String RADIUS_RECEIVER_THREADS = "radiusReceiverThreads";
+    private static final String RADSEC_PORT = "radSecPort";
+    private static final String RADSEC_KEEPALIVE_INTERVAL = "radSecKeepaliveInterval";
+    private static final String RADSEC_KEY_STORE = "radSecKeyStore";
+    private static final String RADSEC_KEY_STORE_PASSWORD = "radSecKeyStorePassword";
+    private static final String RADSEC_TRUST_STORE = "radSecTrustStore";
+    private static final String RADSEC_TRUST_STORE_PASSWORD = "radSecTrustStorePassword";
     // Which packet customizer to use
     // "packetCustomizer" : "sample" -- Means use SamplePAcketCustomizer
     // "packetCustomizer" : "default" -- No customization of packets
@@ -72,6 +90,15 @@ public class AaaConfig extends Config<ApplicationId> {
     // Radius Server UDP Port Number
     protected static final String DEFAULT_RADIUS_SERVER_PORT = "1812";
 
+    // Time in seconds the resolved addresses of the RADIUS host are cached for
+    protected static final String DEFAULT_RADIUS_HOST_CACHE_TTL = "60";
+
+    // Share of the requests sent to a RADIUS server of the pool
+    protected static final int DEFAULT_RADIUS_SERVER_WEIGHT = 1;
+
+    // How requests are spread over the RADIUS servers
+    protected static final String DEFAULT_RADIUS_LOAD_BALANCING = "least_outstanding";
+
     // Time configured for triggering timeouts in AAA app
     protected static final String DEFAULT_SESSION_CLEANUP_TIMER = "10";
 
@@ -84,6 +111,18 @@ public class AaaConfig extends Config<ApplicationId> {
     // Whether to use socket or not to communicate with RADIUS Server
     protected static final String DEFAULT_RADIUS_CONNECTION_TYPE = "socket";
 
+    // Number of UDP source sockets used to reach the RADIUS server
+    protected static final String DEFAULT_RADIUS_SOCKET_POOL_SIZE = "1";
+
+    // Number of threads handling the responses of the RADIUS server
+    protected static final String DEFAULT_RADIUS_RECEIVER_THREADS = "4";
+
+    // TCP port of the RadSec servers
+    protected static final String DEFAULT_RADSEC_PORT = "2083";
+
+    // Time in seconds a RadSec connection may stay silent before it is probed
+    protected static final String DEFAULT_RADSEC_KEEPALIVE_INTERVAL = "30";
+
     // Packet Customizer Default value
     protected static final String DEFAULT_PACKET_CUSTOMIZER = "default";
 
@@ -208,6 +247,63 @@ public class AaaConfig extends Config<ApplicationId> {
         return (BasicElementConfig) setOrClear(RADIUS_SECRET, secret);
     }
 
+    /**
+     * Returns the time the resolved addresses of the RADIUS host are cached for.
+     *
+     * @return time in seconds, default if not set
+     */
+    public int radiusHostCacheTtl() {
+        return Integer.parseInt(getStringProperty(RADIUS_HOST_CACHE_TTL, DEFAULT_RADIUS_HOST_CACHE_TTL));
+    }
+
+    /**
+     * Returns the RADIUS servers requests are spread over. Servers of the
+     * radiusServers list inherit the port and secret of the top level
+     * configuration unless they set their own. Without a radiusServers list
+     * the pool is made of the single top level server.
+     *
+     * @return RADIUS servers, entries without address are skipped
+     */
+    public List<RadiusServerConfig> radiusServers() {
+        if (object == null || !object.has(RADIUS_SERVERS)) {
+            return ImmutableList.of(new RadiusServerConfig(radiusHostName(), radiusIp(), radiusServerUdpPort(),
+                                                           radiusSecret(), DEFAULT_RADIUS_SERVER_WEIGHT));
+        }
+
+        ImmutableList.Builder<RadiusServerConfig> builder = ImmutableList.builder();
+        ArrayNode arrayNode = (ArrayNode) object.path(RADIUS_SERVERS);
+        for (JsonNode jsonNode : arrayNode) {
+            String hostName = jsonNode.path(RADIUS_SERVER_HOST).asText(null);
+            InetAddress address = null;
+            String ip = jsonNode.path(RADIUS_SERVER_IP).asText(null);
+            if (ip != null) {
+                try {
+                    address = InetAddress.getByName(ip);
+                } catch (UnknownHostException e) {
+                    address = null;
+                }
+            }
+            if (hostName == null && address == null) {
+                continue;
+            }
+            short port = (short) jsonNode.path(RADIUS_SERVER_UDP_PORT).asInt(radiusServerUdpPort());
+            String secret = jsonNode.path(RADIUS_SERVER_SECRET).asText(radiusSecret());
+            int weight = Math.max(1, jsonNode.path(RADIUS_SERVER_WEIGHT).asInt(DEFAULT_RADIUS_SERVER_WEIGHT));
+            builder.add(new RadiusServerConfig(hostName, address, port, secret, weight));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns how requests are spread over the RADIUS servers, either
+     * "least_outstanding" or "weighted_round_robin".
+     *
+     * @return load balancing mode, default if not set
+     */
+    public String radiusLoadBalancing() {
+        return getStringProperty(RADIUS_LOAD_BALANCING, DEFAULT_RADIUS_LOAD_BALANCING);
+    }
+
     /**
      * Returns the RADIUS server UDP port.
      *
@@ -239,12 +335,91 @@ public class AaaConfig extends Config<ApplicationId> {
     /**
      * Returns the type of connection to use to communicate with the RADIUS Server.
      *
-     * @return "socket" or "packet_out"
+     * @return "socket", "radsec" or "packet_out"
      */
     public String radiusConnectionType() {
         return getStringProperty(RADIUS_CONNECTION_TYPE, DEFAULT_RADIUS_CONNECTION_TYPE);
     }
 
+    /**
+     * Returns the number of UDP source sockets to open towards the RADIUS
+     * server, or of RadSec connections to open to every server. Every
+     * socket or connection has its own 8 bit identifier space.
+     *
+     * @return number of sockets, default if not set
+     */
+    public int radiusSocketPoolSize() {
+        return Integer.parseInt(getStringProperty(RADIUS_SOCKET_POOL_SIZE, DEFAULT_RADIUS_SOCKET_POOL_SIZE));
+    }
+
+    /**
+     * Returns the number of threads handling the responses of the RADIUS
+     * server when the connection type is socket.
+     *
+     * @return number of threads, default if not set
+     */
+    public int radiusReceiverThreads() {
+        return Integer.parseInt(getStringProperty(RADIUS_RECEIVER_THREADS, DEFAULT_RADIUS_RECEIVER_THREADS));
+    }
+
+    /**
+     * Returns the TCP port of the RadSec servers.
+     *
+     * @return RadSec port, default if not set
+     */
+    public int radSecPort() {
+        return Integer.parseInt(getStringProperty(RADSEC_PORT, DEFAULT_RADSEC_PORT));
+    }
+
+    /**
+     * Returns the time a RadSec connection may receive nothing before a
+     * Status-Server is sent over it. A connection that does not answer
+     * within another interval is reopened.
+     *
+     * @return time in seconds, default if not set
+     */
+    public int radSecKeepaliveInterval() {
+        return Integer.parseInt(getStringProperty(RADSEC_KEEPALIVE_INTERVAL, DEFAULT_RADSEC_KEEPALIVE_INTERVAL));
+    }
+
+    /**
+     * Returns the key store holding the client certificate presented to
+     * the RadSec servers.
+     *
+     * @return path of a PKCS12 key store, null if not set
+     */
+    public String radSecKeyStore() {
+        return getStringProperty(RADSEC_KEY_STORE, null);
+    }
+
+    /**
+     * Returns the password of the RadSec key store.
+     *
+     * @return password, null if not set
+     */
+    public String radSecKeyStorePassword() {
+        return getStringProperty(RADSEC_KEY_STORE_PASSWORD, null);
+    }
+
+    /**
+     * Returns the trust store holding the certificates the RadSec servers
+     * are verified against.
+     *
+     * @return path of a PKCS12 trust store, null to use the JVM trust store
+     */
+    public String radSecTrustStore() {
+        return getStringProperty(RADSEC_TRUST_STORE, null);
+    }
+
+    /**
+     * Returns the password of the RadSec trust store.
+     *
+     * @return password, null if not set
+     */
+    public String radSecTrustStorePassword() {
+        return getStringProperty(RADSEC_TRUST_STORE_PASSWORD, null);
+    }
+
     /**
      * Returns the RADIUS server p-bit.
      *
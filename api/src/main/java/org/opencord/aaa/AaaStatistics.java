@@ -86,6 +86,38 @@ public class AaaStatistics {
     private AtomicLong validEapolFramesRx = new AtomicLong();
     //Number of request pending response from supplicant
     private AtomicLong pendingResSupp = new AtomicLong();
+    //Number of EAP responses waiting for a free RADIUS identifier
+    private AtomicLong identifierWaitQueueDepth = new AtomicLong();
+    //Number of EAP responses dropped because the identifier wait queue was full
+    private AtomicLong identifierWaitQueueDropped = new AtomicLong();
+    //Average time an EAP response waited for a free RADIUS identifier
+    private AtomicLong identifierWaitTimeMillis = new AtomicLong();
+    //Number of request identifiers released without a RADIUS request being sent for them
+    private AtomicLong leakedIdentifiers = new AtomicLong();
+    //Number of request identifiers reclaimed because no RADIUS response arrived in time
+    private AtomicLong reclaimedIdentifiers = new AtomicLong();
+    //State of the RADIUS circuit breaker, 0 closed, 1 open, 2 half-open
+    private AtomicLong radiusBreakerState = new AtomicLong();
+    //Number of times the RADIUS circuit breaker opened
+    private AtomicLong radiusBreakerTrips = new AtomicLong();
+    //Number of EAP responses shed while the RADIUS circuit breaker was open
+    private AtomicLong radiusBreakerShedResponses = new AtomicLong();
+    //Number of EAPOL-Starts dropped while the RADIUS circuit breaker was open
+    private AtomicLong radiusBreakerPacedStarts = new AtomicLong();
+    //Number of initial Access-Requests duplicated to a second RADIUS server
+    private AtomicLong radiusHedgedRequests = new AtomicLong();
+    //Number of hedged Access-Requests answered first by the second RADIUS server
+    private AtomicLong radiusHedgeWins = new AtomicLong();
+    //Number of idle or unauthorized sessions evicted after the idle timeout
+    private AtomicLong idleSessionsEvicted = new AtomicLong();
+    //Number of sessions evicted to stay under the maximum number of sessions
+    private AtomicLong sessionCapEvictions = new AtomicLong();
+    //Number of EAPOL packets dropped because the maximum number of sessions was reached
+    private AtomicLong sessionCapRejections = new AtomicLong();
+    //Number of authentication record updates replaced by a newer one before being written
+    private AtomicLong authRecordWritesCoalesced = new AtomicLong();
+    //Number of session tasks dropped because the queue of their session thread was full
+    private AtomicLong sessionTasksDropped = new AtomicLong();
 
     public Long getEapolResIdentityMsgTrans() {
         return eapolResIdentityMsgTrans.get();
@@ -181,6 +213,140 @@ public class AaaStatistics {
         packetRoundTripTimeList.add(time);
     }
 
+    public Long getIdentifierWaitQueueDepth() {
+        return identifierWaitQueueDepth.get();
+    }
+
+    public void setIdentifierWaitQueueDepth(long depth) {
+        identifierWaitQueueDepth.set(depth);
+    }
+
+    public Long getIdentifierWaitQueueDropped() {
+        return identifierWaitQueueDropped.get();
+    }
+
+    public void incrementIdentifierWaitQueueDropped() {
+        identifierWaitQueueDropped.incrementAndGet();
+    }
+
+    public Long getIdentifierWaitTimeMillis() {
+        return identifierWaitTimeMillis.get();
+    }
+
+    /**
+     * Records the time an EAP response waited for an identifier, folded
+     * into an exponentially weighted moving average.
+     *
+     * @param waitTimeMillis time waited
+     */
+    public void recordIdentifierWaitTime(long waitTimeMillis) {
+        identifierWaitTimeMillis.accumulateAndGet(waitTimeMillis, (avg, sample) -> avg + (sample - avg) / 8);
+    }
+
+    public Long getLeakedIdentifiers() {
+        return leakedIdentifiers.get();
+    }
+
+    public void incrementLeakedIdentifiers() {
+        leakedIdentifiers.incrementAndGet();
+    }
+
+    public Long getReclaimedIdentifiers() {
+        return reclaimedIdentifiers.get();
+    }
+
+    public void increaseReclaimedIdentifiers(long count) {
+        reclaimedIdentifiers.addAndGet(count);
+    }
+
+    public Long getRadiusBreakerState() {
+        return radiusBreakerState.get();
+    }
+
+    public void setRadiusBreakerState(long state) {
+        radiusBreakerState.set(state);
+    }
+
+    public Long getRadiusBreakerTrips() {
+        return radiusBreakerTrips.get();
+    }
+
+    public void incrementRadiusBreakerTrips() {
+        radiusBreakerTrips.incrementAndGet();
+    }
+
+    public Long getRadiusBreakerShedResponses() {
+        return radiusBreakerShedResponses.get();
+    }
+
+    public void incrementRadiusBreakerShedResponses() {
+        radiusBreakerShedResponses.incrementAndGet();
+    }
+
+    public Long getRadiusBreakerPacedStarts() {
+        return radiusBreakerPacedStarts.get();
+    }
+
+    public void incrementRadiusBreakerPacedStarts() {
+        radiusBreakerPacedStarts.incrementAndGet();
+    }
+
+    public Long getRadiusHedgedRequests() {
+        return radiusHedgedRequests.get();
+    }
+
+    public void incrementRadiusHedgedRequests() {
+        radiusHedgedRequests.incrementAndGet();
+    }
+
+    public Long getRadiusHedgeWins() {
+        return radiusHedgeWins.get();
+    }
+
+    public void incrementRadiusHedgeWins() {
+        radiusHedgeWins.incrementAndGet();
+    }
+
+    public Long getIdleSessionsEvicted() {
+        return idleSessionsEvicted.get();
+    }
+
+    public void incrementIdleSessionsEvicted() {
+        idleSessionsEvicted.incrementAndGet();
+    }
+
+    public Long getSessionCapEvictions() {
+        return sessionCapEvictions.get();
+    }
+
+    public void incrementSessionCapEvictions() {
+        sessionCapEvictions.incrementAndGet();
+    }
+
+    public Long getSessionCapRejections() {
+        return sessionCapRejections.get();
+    }
+
+    public void incrementSessionCapRejections() {
+        sessionCapRejections.incrementAndGet();
+    }
+
+    public Long getAuthRecordWritesCoalesced() {
+        return authRecordWritesCoalesced.get();
+    }
+
+    public void incrementAuthRecordWritesCoalesced() {
+        authRecordWritesCoalesced.incrementAndGet();
+    }
+
+    public Long getSessionTasksDropped() {
+        return sessionTasksDropped.get();
+    }
+
+    public void incrementSessionTasksDropped() {
+        sessionTasksDropped.incrementAndGet();
+    }
+
     public Long getRequestReTx() {
         return requestReTx.get();
     }
@@ -386,6 +552,20 @@ public class AaaStatistics {
         validEapolFramesRx.set(0);
         pendingResSupp.set(0);
         timedOutPackets.set(0);
+        identifierWaitQueueDropped.set(0);
+        identifierWaitTimeMillis.set(0);
+        leakedIdentifiers.set(0);
+        reclaimedIdentifiers.set(0);
+        radiusBreakerTrips.set(0);
+        radiusBreakerShedResponses.set(0);
+        radiusBreakerPacedStarts.set(0);
+        radiusHedgedRequests.set(0);
+        radiusHedgeWins.set(0);
+        idleSessionsEvicted.set(0);
+        sessionCapEvictions.set(0);
+        sessionCapRejections.set(0);
+        authRecordWritesCoalesced.set(0);
+        sessionTasksDropped.set(0);
 
     }
     public void countTransRespNotNak() {
@@ -39,24 +39,17 @@ ListenerService<AuthenticationStatisticsEvent, AuthenticationStatisticsEventList
     public AuthenticationStatisticsDelegate getStatsDelegate();
 
     /**
-     * Handle the roundTrip time of Radius Packet.
+     * Records the roundTrip time of a Radius request.
      *
-     * @param identifier identifier of incoming radius packet
+     * @param roundtripTimeInMillis time between sending the request and receiving its response
      */
-    public void handleRoundtripTime(byte identifier);
+    public void recordRoundtripTime(long roundtripTimeInMillis);
 
     /**
      * Calculate average roundTrip time of multiple Packets.
      */
     public void calculatePacketRoundtripTime();
 
-    /**
-     * Put the identifier value to map.
-     *
-     * @param identifier identifier of incoming radius packet
-     */
-    public void putOutgoingIdentifierToMap(byte identifier);
-
    /**
     * Reset all the values of aaa counters to 0.
     */
@@ -20,6 +20,8 @@ import org.onlab.packet.RADIUS;
 import org.onosproject.net.packet.InboundPacket;
 import org.onosproject.net.packet.PacketContext;
 
+import java.util.concurrent.CompletionStage;
+
 /**
  * Interface to the implementations for RADIUS server side communication.
  */
@@ -55,6 +57,28 @@ public interface RadiusCommunicator {
      * @param inPkt        Incoming EAPOL packet
      */
     void sendRadiusPacket(RADIUS radiusPacket, InboundPacket inPkt);
+    /**
+     * Send RADIUS request to the RADIUS server and wait for its response.
+     * The response is matched to the request by the communicator, which
+     * also retransmits the request as described by the context. Once all
+     * attempts are exhausted the returned stage fails with a
+     * {@link java.util.concurrent.TimeoutException}. Cancelling the stage
+     * stops waiting for the response. The request is released once the
+     * stage is completed.
+     *
+     * @param request RADIUS request to be sent to server.
+     * @param context how the request is sent
+     * @return stage completed with the RADIUS response
+     */
+    CompletionStage<RadiusResponse> send(RadiusRequest request, RequestContext context);
+    /**
+     * Returns the number of independent RADIUS identifier spaces offered by
+     * this implementation. Each space is backed by its own source port and
+     * can carry up to 256 outstanding requests.
+     *
+     * @return number of identifier spaces
+     */
+    int identifierSpaces();
     /**
      * Handle packet from RADIUS server.
      *
@@ -16,13 +16,39 @@
 
 package org.opencord.aaa;
 
+import com.google.common.collect.ImmutableMap;
 import org.onosproject.event.AbstractEvent;
 
+import java.util.Map;
+
 public class RadiusOperationalStatusEvent extends
               AbstractEvent<RadiusOperationalStatusEvent.Type, String> {
 
+    private final Map<String, RadiusServerHealth> serverHealth;
+
     public RadiusOperationalStatusEvent(Type type, String subject) {
+         this(type, subject, ImmutableMap.of());
+    }
+
+    /**
+     * Creates an event carrying the health of every RADIUS server.
+     *
+     * @param type         event type
+     * @param subject      operational status
+     * @param serverHealth health of the servers by server name
+     */
+    public RadiusOperationalStatusEvent(Type type, String subject, Map<String, RadiusServerHealth> serverHealth) {
          super(type, subject);
+         this.serverHealth = ImmutableMap.copyOf(serverHealth);
+    }
+
+    /**
+     * Gets the health of the RADIUS servers when the event was raised.
+     *
+     * @return health of the servers by server name
+     */
+    public Map<String, RadiusServerHealth> serverHealth() {
+        return serverHealth;
     }
 
     public enum Type {
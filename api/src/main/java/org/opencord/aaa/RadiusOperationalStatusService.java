@@ -16,9 +16,12 @@
 
 package org.opencord.aaa;
 
-import org.onlab.packet.RADIUS;
 import org.onosproject.event.ListenerService;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
 /**
  * Service for interacting with operational status module.
  */
@@ -39,13 +42,6 @@ public interface RadiusOperationalStatusService extends
     */
     String getRadiusServerOperationalStatus();
 
-    /**
-     * Set the value of statusServerReqSent flag.
-     *
-     * @param statusServerReqSent statusServerReqSent flag
-    */
-    void setStatusServerReqSent(boolean statusServerReqSent);
-
     /**
      * Set the value of radiusOperationalStatus Evaluation Mode.
      *
@@ -62,9 +58,16 @@ public interface RadiusOperationalStatusService extends
     void setOperationalStatusServerTimeoutInMillis(long operationalStatusServerTimeoutInMillis);
 
     /**
-     * Determine the operational status of server.
+     * Determine the operational status of the servers without blocking.
+     * Servers that answered live traffic within the status server timeout
+     * are in use without being probed, the idle ones are probed in
+     * parallel; the check reports the servers as in use if any of them is.
+     *
+     * @param servers servers to probe, with their resolved addresses
+     * @return stage completed with the operational status once every probe
+     *         is answered or timed out
     */
-    void checkServerOperationalStatus();
+    CompletionStage<OperationalStatus> checkServerOperationalStatus(Collection<RadiusServerConfig> servers);
 
     /**
      * Check if radius response is for operational status.
@@ -75,11 +78,42 @@ public interface RadiusOperationalStatusService extends
     boolean isRadiusResponseForOperationalStatus(byte identifier);
 
     /**
-     * handle incoming radius packet for operational status.
+     * handle incoming radius packet for operational status that was not
+     * awaited anymore by its probe.
      *
      * @param radiusPacket radiusPacket of incoming operational status
     */
-    void handleRadiusPacketForOperationalStatus(RADIUS radiusPacket);
+    void handleRadiusPacketForOperationalStatus(RadiusResponse radiusPacket);
+
+    /**
+     * Records the response of a server to an Access-Request.
+     *
+     * @param server        name of the server, see {@link RadiusServerConfig#name()}
+     * @param rttInMillis   time between the last transmission and the response
+     * @param valid         false if the response was malformed or had an invalid authenticator
+     */
+    void recordResponse(String server, long rttInMillis, boolean valid);
+
+    /**
+     * Records a response of a server that could not be parsed.
+     *
+     * @param server name of the server, see {@link RadiusServerConfig#name()}
+     */
+    void recordMalformedResponse(String server);
+
+    /**
+     * Records an Access-Request transmission left unanswered by a server.
+     *
+     * @param server name of the server, see {@link RadiusServerConfig#name()}
+     */
+    void recordTimeout(String server);
+
+    /**
+     * Gets the health of the servers, as seen from the live traffic.
+     *
+     * @return health of the servers by server name
+     */
+    Map<String, RadiusServerHealth> getServerHealth();
 
     /**
      * initialize radiusOperationalStatusService.
@@ -90,13 +124,6 @@ public interface RadiusOperationalStatusService extends
     */
     void initialize(byte[] address, String secret, RadiusCommunicator impl);
 
-    /**
-     * set packet outgoing time in milliseconds.
-     *
-     * @param identifier identifier of outgoing packet
-    */
-    void setOutTimeInMillis(byte identifier);
-
     enum OperationalStatus {
         UNAVAILABLE,
         UNKNOWN,
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa;
+
+import com.google.common.base.MoreObjects;
+import org.onlab.packet.DeserializationException;
+import org.onlab.packet.EAP;
+import org.onlab.packet.RADIUS;
+import org.onlab.packet.RADIUSAttribute;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * RADIUS request in its wire format.
+ * <p>
+ * A request is written by an {@link Encoder} straight into a pooled
+ * buffer: header, attributes and EAP-Message fragments are appended in
+ * place, and the Message-Authenticator is computed over the buffer once
+ * all the attributes are written. The buffer goes back to the pool when
+ * the request is released, after which the request must not be used.
+ * </p>
+ */
+public final class RadiusRequest {
+
+    private static final int IDENTIFIER_OFFSET = 1;
+    private static final int LENGTH_OFFSET = 2;
+    private static final int AUTHENTICATOR_OFFSET = 4;
+    private static final int AUTHENTICATOR_LENGTH = 16;
+    private static final int ATTRIBUTE_HEADER_LENGTH = 2;
+    private static final int MAX_ATTRIBUTE_VALUE_LENGTH = 253;
+
+    // EAP-Message fragments are cut as RADIUS.encapsulateMessage() does
+    private static final int EAP_FRAGMENT_LENGTH = Byte.MAX_VALUE - 2;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // encoding buffers not in use
+    private static final Queue<ByteBuffer> BUFFER_POOL = new ConcurrentLinkedQueue<>();
+
+    private final ByteBuffer buffer;
+
+    private final int length;
+
+    private boolean released;
+
+    private RadiusRequest(ByteBuffer buffer, int length) {
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    private static ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = BUFFER_POOL.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(RADIUS.RADIUS_MAX_LENGTH);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Starts encoding a request with a random Request Authenticator.
+     *
+     * @param code       RADIUS code
+     * @param identifier identifier of the request
+     * @return encoder
+     */
+    public static Encoder encoder(byte code, byte identifier) {
+        return new Encoder(code, identifier);
+    }
+
+    /**
+     * Creates a request from a packet already built, e.g. one that is not
+     * sent often enough to be worth encoding directly.
+     *
+     * @param radiusPacket RADIUS packet
+     * @return request
+     */
+    public static RadiusRequest of(RADIUS radiusPacket) {
+        byte[] data = radiusPacket.serialize();
+        checkArgument(data.length <= RADIUS.RADIUS_MAX_LENGTH,
+                      "RADIUS packet of %s bytes is too long", data.length);
+        ByteBuffer buffer = acquireBuffer();
+        buffer.put(data);
+        return new RadiusRequest(buffer, data.length);
+    }
+
+    /**
+     * Gets the code of the request.
+     *
+     * @return RADIUS code
+     */
+    public byte code() {
+        return buffer.get(0);
+    }
+
+    /**
+     * Gets the identifier of the request.
+     *
+     * @return identifier
+     */
+    public byte identifier() {
+        return buffer.get(IDENTIFIER_OFFSET);
+    }
+
+    /**
+     * Gets the length of the request.
+     *
+     * @return length in bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Gets the Request Authenticator of the request.
+     *
+     * @return copy of the authenticator
+     */
+    public byte[] requestAuthenticator() {
+        return Arrays.copyOfRange(buffer.array(), AUTHENTICATOR_OFFSET, AUTHENTICATOR_OFFSET + AUTHENTICATOR_LENGTH);
+    }
+
+    /**
+     * Returns a read-only view on the encoded request, to be handed to the
+     * transport. Every call returns a new view.
+     *
+     * @return buffer positioned at the start of the request
+     */
+    public synchronized ByteBuffer buffer() {
+        checkState(!released, "RADIUS request was released");
+        ByteBuffer view = buffer.asReadOnlyBuffer();
+        view.position(0).limit(length);
+        return view;
+    }
+
+    /**
+     * Returns a copy of the encoded request.
+     *
+     * @return request bytes
+     */
+    public synchronized byte[] toBytes() {
+        checkState(!released, "RADIUS request was released");
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    /**
+     * Writes the encoded request to a stream, without copying it.
+     *
+     * @param out stream to write to
+     * @throws IOException if the request cannot be written
+     */
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        checkState(!released, "RADIUS request was released");
+        out.write(buffer.array(), 0, length);
+    }
+
+    /**
+     * Decodes the request, for tests and tracing.
+     *
+     * @return RADIUS packet
+     * @throws DeserializationException if the request is malformed
+     */
+    public RADIUS toRadius() throws DeserializationException {
+        return RADIUS.deserializer().deserialize(toBytes(), 0, length);
+    }
+
+    /**
+     * Returns the buffer of the request to the pool. Releasing a request
+     * more than once has no effect.
+     */
+    public synchronized void release() {
+        if (!released) {
+            released = true;
+            BUFFER_POOL.offer(buffer);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("code", code())
+                .add("identifier", identifier() & 0xff)
+                .add("length", length)
+                .toString();
+    }
+
+    /**
+     * Writes a RADIUS request into a pooled buffer. Attributes are appended
+     * in the order they are set, as {@link RADIUS} does.
+     */
+    public static final class Encoder {
+
+        private final ByteBuffer buffer = acquireBuffer();
+
+        private Encoder(byte code, byte identifier) {
+            byte[] authenticator = new byte[AUTHENTICATOR_LENGTH];
+            RANDOM.nextBytes(authenticator);
+            buffer.put(code).put(identifier).putShort((short) 0).put(authenticator);
+        }
+
+        /**
+         * Gets the Request Authenticator of the request.
+         *
+         * @return copy of the authenticator
+         */
+        public byte[] requestAuthenticator() {
+            return Arrays.copyOfRange(buffer.array(), AUTHENTICATOR_OFFSET,
+                                      AUTHENTICATOR_OFFSET + AUTHENTICATOR_LENGTH);
+        }
+
+        private void ensureCapacity(int length) {
+            if (buffer.remaining() < length) {
+                throw new IllegalArgumentException("RADIUS request exceeds " + RADIUS.RADIUS_MAX_LENGTH + " bytes");
+            }
+        }
+
+        private void putAttribute(byte type, byte[] value, int offset, int length) {
+            ensureCapacity(ATTRIBUTE_HEADER_LENGTH + length);
+            buffer.put(type).put((byte) (ATTRIBUTE_HEADER_LENGTH + length)).put(value, offset, length);
+        }
+
+        /**
+         * Appends an attribute.
+         *
+         * @param type  attribute type
+         * @param value attribute value, up to 253 bytes
+         * @return this encoder
+         */
+        public Encoder setAttribute(byte type, byte[] value) {
+            checkArgument(value.length <= MAX_ATTRIBUTE_VALUE_LENGTH,
+                          "RADIUS attribute value of %s bytes is too long", value.length);
+            putAttribute(type, value, 0, value.length);
+            return this;
+        }
+
+        /**
+         * Replaces the value of the first attribute of a type, or appends the
+         * attribute if there is none yet. The attributes after it are moved
+         * if the length of the value changes.
+         *
+         * @param type  attribute type
+         * @param value attribute value, up to 253 bytes
+         * @return this encoder
+         */
+        public Encoder updateAttribute(byte type, byte[] value) {
+            checkArgument(value.length <= MAX_ATTRIBUTE_VALUE_LENGTH,
+                          "RADIUS attribute value of %s bytes is too long", value.length);
+            byte[] data = buffer.array();
+            int end = buffer.position();
+            int position = AUTHENTICATOR_OFFSET + AUTHENTICATOR_LENGTH;
+            while (position < end && data[position] != type) {
+                position += data[position + 1] & 0xff;
+            }
+            if (position >= end) {
+                return setAttribute(type, value);
+            }
+            int oldLength = data[position + 1] & 0xff;
+            int newLength = ATTRIBUTE_HEADER_LENGTH + value.length;
+            if (newLength != oldLength) {
+                ensureCapacity(newLength - oldLength);
+                System.arraycopy(data, position + oldLength, data, position + newLength,
+                                 end - position - oldLength);
+                buffer.position(end + newLength - oldLength);
+                data[position + 1] = (byte) newLength;
+            }
+            System.arraycopy(value, 0, data, position + ATTRIBUTE_HEADER_LENGTH, value.length);
+            return this;
+        }
+
+        /**
+         * Appends an EAP packet as EAP-Message attributes, split into
+         * fragments of up to 125 bytes.
+         *
+         * @param eapPacket EAP packet
+         * @return this encoder
+         */
+        public Encoder encapsulateMessage(EAP eapPacket) {
+            byte[] eap = eapPacket.serialize();
+            int fragments = (eap.length + EAP_FRAGMENT_LENGTH - 1) / EAP_FRAGMENT_LENGTH;
+            ensureCapacity(fragments * ATTRIBUTE_HEADER_LENGTH + eap.length);
+            for (int offset = 0; offset < eap.length; offset += EAP_FRAGMENT_LENGTH) {
+                putAttribute(RADIUSAttribute.RADIUS_ATTR_EAP_MESSAGE, eap, offset,
+                             Math.min(EAP_FRAGMENT_LENGTH, eap.length - offset));
+            }
+            return this;
+        }
+
+        /**
+         * Finishes the request without a Message-Authenticator.
+         *
+         * @return request
+         */
+        public RadiusRequest build() {
+            int length = buffer.position();
+            buffer.putShort(LENGTH_OFFSET, (short) length);
+            return new RadiusRequest(buffer, length);
+        }
+
+        /**
+         * Appends the Message-Authenticator and finishes the request. The
+         * HMAC is computed over the encoded request, with the value of the
+         * attribute zeroed, and written in its place.
+         *
+         * @param mac HMAC-MD5 keyed with the secret shared with the RADIUS server
+         * @return request
+         */
+        public RadiusRequest sign(Mac mac) {
+            ensureCapacity(ATTRIBUTE_HEADER_LENGTH + AUTHENTICATOR_LENGTH);
+            buffer.put(RADIUSAttribute.RADIUS_ATTR_MESSAGE_AUTH)
+                    .put((byte) (ATTRIBUTE_HEADER_LENGTH + AUTHENTICATOR_LENGTH));
+            int valueOffset = buffer.position();
+            for (int i = 0; i < AUTHENTICATOR_LENGTH; i++) {
+                buffer.put((byte) 0);
+            }
+            int length = buffer.position();
+            buffer.putShort(LENGTH_OFFSET, (short) length);
+            mac.reset();
+            mac.update(buffer.array(), 0, length);
+            try {
+                mac.doFinal(buffer.array(), valueOffset);
+            } catch (ShortBufferException e) {
+                throw new IllegalArgumentException("Message-Authenticator is not an HMAC-MD5", e);
+            }
+            return new RadiusRequest(buffer, length);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa;
+
+import com.google.common.base.MoreObjects;
+import org.onlab.packet.DeserializationException;
+import org.onlab.packet.EAP;
+import org.onlab.packet.RADIUS;
+import org.onlab.packet.RADIUSAttribute;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import java.util.Arrays;
+
+/**
+ * RADIUS response decoded on demand from its wire format.
+ * <p>
+ * Creating a response only checks the header and indexes where the
+ * attributes start. The EAP-Message, State and Message-Authenticator
+ * attributes are copied out the first time they are asked for, and the
+ * fragments of the EAP-Message are reassembled and parsed once.
+ * </p>
+ * <p>
+ * A response is handled by one thread at a time and is not thread-safe.
+ * </p>
+ */
+public final class RadiusResponse {
+
+    /**
+     * Length of the RADIUS header, up to and including the authenticator.
+     */
+    public static final int HEADER_LENGTH = 20;
+
+    private static final int IDENTIFIER_OFFSET = 1;
+    private static final int LENGTH_OFFSET = 2;
+    private static final int AUTHENTICATOR_OFFSET = 4;
+    private static final int AUTHENTICATOR_LENGTH = 16;
+    private static final int ATTRIBUTE_HEADER_LENGTH = 2;
+
+    // value the Message-Authenticator is computed over in its own place
+    private static final byte[] ZERO_AUTHENTICATOR = new byte[AUTHENTICATOR_LENGTH];
+
+    // output of the Message-Authenticator computation, one per thread
+    private static final ThreadLocal<byte[]> HMAC_BUFFER =
+            ThreadLocal.withInitial(() -> new byte[AUTHENTICATOR_LENGTH]);
+
+    private final byte[] data;
+
+    private final int length;
+
+    // offsets of the attributes in data, in the order they were received
+    private final int[] attributeOffsets;
+
+    private final int attributeCount;
+
+    private EAP eapMessage;
+    private boolean eapMessageDecoded;
+
+    private byte[] state;
+    private boolean stateDecoded;
+
+    private byte[] messageAuthenticator;
+    private boolean messageAuthenticatorDecoded;
+
+    private RadiusResponse(byte[] data, int length, int[] attributeOffsets, int attributeCount) {
+        this.data = data;
+        this.length = length;
+        this.attributeOffsets = attributeOffsets;
+        this.attributeCount = attributeCount;
+    }
+
+    /**
+     * Reads the identifier of a RADIUS packet without decoding it.
+     *
+     * @param data   buffer holding the packet
+     * @param offset offset of the packet in the buffer
+     * @param length length of the packet
+     * @return identifier
+     * @throws DeserializationException if the buffer is too short for a RADIUS header
+     */
+    public static byte identifier(byte[] data, int offset, int length) throws DeserializationException {
+        if (length < HEADER_LENGTH || data.length < offset + length) {
+            throw new DeserializationException("RADIUS packet of " + length + " bytes is too short");
+        }
+        return data[offset + IDENTIFIER_OFFSET];
+    }
+
+    /**
+     * Decodes the header of a RADIUS packet and indexes its attributes.
+     * The packet bytes are copied, the buffer may be reused afterwards.
+     *
+     * @param data   buffer holding the packet
+     * @param offset offset of the packet in the buffer
+     * @param length number of bytes received, trailing padding included
+     * @return response
+     * @throws DeserializationException if the header or the attributes are malformed
+     */
+    public static RadiusResponse decode(byte[] data, int offset, int length) throws DeserializationException {
+        identifier(data, offset, length);
+        int packetLength = ((data[offset + LENGTH_OFFSET] & 0xff) << 8) | (data[offset + LENGTH_OFFSET + 1] & 0xff);
+        if (packetLength < HEADER_LENGTH || packetLength > length) {
+            throw new DeserializationException("RADIUS length " + packetLength + " does not match the "
+                    + length + " bytes received");
+        }
+
+        // octets past the RADIUS length are padding and are left out
+        byte[] packet = Arrays.copyOfRange(data, offset, offset + packetLength);
+        int[] offsets = new int[(packetLength - HEADER_LENGTH) / ATTRIBUTE_HEADER_LENGTH];
+        int count = 0;
+        int position = HEADER_LENGTH;
+        while (position < packetLength) {
+            if (position + ATTRIBUTE_HEADER_LENGTH > packetLength) {
+                throw new DeserializationException("Truncated RADIUS attribute at " + position);
+            }
+            int attributeLength = packet[position + 1] & 0xff;
+            if (attributeLength < ATTRIBUTE_HEADER_LENGTH || position + attributeLength > packetLength) {
+                throw new DeserializationException("Invalid length " + attributeLength
+                        + " of RADIUS attribute at " + position);
+            }
+            offsets[count++] = position;
+            position += attributeLength;
+        }
+        return new RadiusResponse(packet, packetLength, offsets, count);
+    }
+
+    /**
+     * Creates a response from a packet already deserialized.
+     *
+     * @param radiusPacket RADIUS packet
+     * @return response
+     * @throws DeserializationException if the packet cannot be decoded again
+     */
+    public static RadiusResponse of(RADIUS radiusPacket) throws DeserializationException {
+        byte[] packet = radiusPacket.serialize();
+        return decode(packet, 0, packet.length);
+    }
+
+    /**
+     * Gets the code of the response.
+     *
+     * @return RADIUS code
+     */
+    public byte code() {
+        return data[0];
+    }
+
+    /**
+     * Gets the identifier of the response.
+     *
+     * @return identifier
+     */
+    public byte identifier() {
+        return data[IDENTIFIER_OFFSET];
+    }
+
+    /**
+     * Gets the length of the response.
+     *
+     * @return length in bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Gets the number of attributes of the response.
+     *
+     * @return number of attributes
+     */
+    public int attributeCount() {
+        return attributeCount;
+    }
+
+    private int find(byte type, int from) {
+        for (int i = from; i < attributeCount; i++) {
+            if (data[attributeOffsets[i]] == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the value of the first attribute of a type. The value is copied
+     * on every call.
+     *
+     * @param type attribute type
+     * @return attribute value, null if the response has no such attribute
+     */
+    public byte[] attribute(byte type) {
+        int index = find(type, 0);
+        if (index < 0) {
+            return null;
+        }
+        int offset = attributeOffsets[index];
+        return Arrays.copyOfRange(data, offset + ATTRIBUTE_HEADER_LENGTH, offset + (data[offset + 1] & 0xff));
+    }
+
+    /**
+     * Gets the State attribute of the response.
+     *
+     * @return state, null if the response has none
+     */
+    public byte[] state() {
+        if (!stateDecoded) {
+            state = attribute(RADIUSAttribute.RADIUS_ATTR_STATE);
+            stateDecoded = true;
+        }
+        return state;
+    }
+
+    /**
+     * Gets the Message-Authenticator attribute of the response.
+     *
+     * @return message authenticator, null if the response has none
+     */
+    public byte[] messageAuthenticator() {
+        if (!messageAuthenticatorDecoded) {
+            messageAuthenticator = attribute(RADIUSAttribute.RADIUS_ATTR_MESSAGE_AUTH);
+            messageAuthenticatorDecoded = true;
+        }
+        return messageAuthenticator;
+    }
+
+    /**
+     * Gets the EAP packet carried by the EAP-Message attributes of the
+     * response, reassembled from all of them.
+     *
+     * @return EAP packet, null if the response has no EAP-Message
+     * @throws DeserializationException if the EAP packet is malformed
+     */
+    public EAP eapMessage() throws DeserializationException {
+        if (!eapMessageDecoded) {
+            int total = 0;
+            for (int i = find(RADIUSAttribute.RADIUS_ATTR_EAP_MESSAGE, 0); i >= 0;
+                 i = find(RADIUSAttribute.RADIUS_ATTR_EAP_MESSAGE, i + 1)) {
+                total += (data[attributeOffsets[i] + 1] & 0xff) - ATTRIBUTE_HEADER_LENGTH;
+            }
+            if (total > 0) {
+                byte[] eap = new byte[total];
+                int position = 0;
+                for (int i = find(RADIUSAttribute.RADIUS_ATTR_EAP_MESSAGE, 0); i >= 0;
+                     i = find(RADIUSAttribute.RADIUS_ATTR_EAP_MESSAGE, i + 1)) {
+                    int offset = attributeOffsets[i];
+                    int valueLength = (data[offset + 1] & 0xff) - ATTRIBUTE_HEADER_LENGTH;
+                    System.arraycopy(data, offset + ATTRIBUTE_HEADER_LENGTH, eap, position, valueLength);
+                    position += valueLength;
+                }
+                eapMessage = EAP.deserializer().deserialize(eap, 0, total);
+            }
+            eapMessageDecoded = true;
+        }
+        return eapMessage;
+    }
+
+    /**
+     * Verifies the Message-Authenticator of the response, an HMAC-MD5 of
+     * the response with the authenticator of the request in place of its
+     * own and the Message-Authenticator value zeroed. The HMAC is computed
+     * over the received bytes, the two values are substituted on the fly.
+     *
+     * @param mac                  HMAC-MD5 keyed with the secret shared with the RADIUS server
+     * @param requestAuthenticator authenticator of the request
+     * @return true if the response carries a valid Message-Authenticator
+     */
+    public boolean verifyMessageAuthenticator(Mac mac, byte[] requestAuthenticator) {
+        int index = find(RADIUSAttribute.RADIUS_ATTR_MESSAGE_AUTH, 0);
+        if (index < 0 || requestAuthenticator == null || requestAuthenticator.length != AUTHENTICATOR_LENGTH
+                || (data[attributeOffsets[index] + 1] & 0xff) != ATTRIBUTE_HEADER_LENGTH + AUTHENTICATOR_LENGTH) {
+            return false;
+        }
+        int valueOffset = attributeOffsets[index] + ATTRIBUTE_HEADER_LENGTH;
+        int valueEnd = valueOffset + AUTHENTICATOR_LENGTH;
+        byte[] expected = HMAC_BUFFER.get();
+        mac.reset();
+        mac.update(data, 0, AUTHENTICATOR_OFFSET);
+        mac.update(requestAuthenticator, 0, AUTHENTICATOR_LENGTH);
+        mac.update(data, HEADER_LENGTH, valueOffset - HEADER_LENGTH);
+        mac.update(ZERO_AUTHENTICATOR, 0, AUTHENTICATOR_LENGTH);
+        mac.update(data, valueEnd, length - valueEnd);
+        try {
+            mac.doFinal(expected, 0);
+        } catch (ShortBufferException e) {
+            // not an HMAC-MD5
+            return false;
+        }
+        int difference = 0;
+        for (int i = 0; i < AUTHENTICATOR_LENGTH; i++) {
+            difference |= expected[i] ^ data[valueOffset + i];
+        }
+        return difference == 0;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("code", code())
+                .add("identifier", identifier() & 0xff)
+                .add("length", length)
+                .add("attributes", attributeCount)
+                .toString();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa;
+
+import com.google.common.base.MoreObjects;
+
+import java.net.InetAddress;
+import java.util.Objects;
+
+/**
+ * Configuration of one RADIUS server of the server pool.
+ */
+public class RadiusServerConfig {
+
+    private final String hostName;
+
+    private final InetAddress address;
+
+    private final short port;
+
+    private final String secret;
+
+    private final int weight;
+
+    /**
+     * Creates a new RADIUS server configuration.
+     *
+     * @param hostName host name of the server, null if configured by address
+     * @param address  address of the server, used when no host name is set
+     * @param port     UDP port of the server
+     * @param secret   shared secret
+     * @param weight   share of the requests sent to this server
+     */
+    public RadiusServerConfig(String hostName, InetAddress address, short port, String secret, int weight) {
+        this.hostName = hostName;
+        this.address = address;
+        this.port = port;
+        this.secret = secret;
+        this.weight = weight;
+    }
+
+    /**
+     * Gets the host name of the server.
+     *
+     * @return host name, null if the server is configured by address
+     */
+    public String hostName() {
+        return hostName;
+    }
+
+    /**
+     * Gets the address of the server.
+     *
+     * @return address, null if the server is configured by host name
+     */
+    public InetAddress address() {
+        return address;
+    }
+
+    /**
+     * Gets the UDP port of the server.
+     *
+     * @return UDP port
+     */
+    public short port() {
+        return port;
+    }
+
+    /**
+     * Gets the name the server is known by in health reports.
+     *
+     * @return host name, or address if not configured by name, and port
+     */
+    public String name() {
+        return (hostName != null ? hostName : address == null ? null : address.getHostAddress())
+                + ":" + (port & 0xffff);
+    }
+
+    /**
+     * Gets the shared secret of the server.
+     *
+     * @return shared secret
+     */
+    public String secret() {
+        return secret;
+    }
+
+    /**
+     * Gets the weight of the server.
+     *
+     * @return weight
+     */
+    public int weight() {
+        return weight;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RadiusServerConfig)) {
+            return false;
+        }
+        RadiusServerConfig that = (RadiusServerConfig) o;
+        return port == that.port && weight == that.weight
+                && Objects.equals(hostName, that.hostName)
+                && Objects.equals(address, that.address)
+                && Objects.equals(secret, that.secret);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hostName, address, port, secret, weight);
+    }
+
+    @Override
+    public String toString() {
+        // the secret is left out on purpose
+        return MoreObjects.toStringHelper(getClass())
+                .add("hostName", hostName)
+                .add("address", address)
+                .add("port", port)
+                .add("weight", weight)
+                .toString();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Health of one RADIUS server, derived from the live Access-Request
+ * traffic. All the figures are decaying averages, recent requests weigh
+ * more than older ones.
+ */
+public final class RadiusServerHealth {
+
+    private final String server;
+
+    private final double score;
+
+    private final double roundTripTimeInMillis;
+
+    private final double timeoutRatio;
+
+    private final double invalidResponseRatio;
+
+    private final long lastResponseTimeInMillis;
+
+    /**
+     * Creates a new health snapshot.
+     *
+     * @param server                   name of the server
+     * @param score                    health score, from 0 (down) to 1 (healthy)
+     * @param roundTripTimeInMillis    average round trip time of the responses
+     * @param timeoutRatio             share of the transmissions left unanswered
+     * @param invalidResponseRatio     share of the responses malformed or with an invalid authenticator
+     * @param lastResponseTimeInMillis time of the last response, 0 if none was received
+     */
+    public RadiusServerHealth(String server, double score, double roundTripTimeInMillis, double timeoutRatio,
+                              double invalidResponseRatio, long lastResponseTimeInMillis) {
+        this.server = server;
+        this.score = score;
+        this.roundTripTimeInMillis = roundTripTimeInMillis;
+        this.timeoutRatio = timeoutRatio;
+        this.invalidResponseRatio = invalidResponseRatio;
+        this.lastResponseTimeInMillis = lastResponseTimeInMillis;
+    }
+
+    /**
+     * Gets the name of the server.
+     *
+     * @return server name, see {@link RadiusServerConfig#name()}
+     */
+    public String server() {
+        return server;
+    }
+
+    /**
+     * Gets the health score of the server.
+     *
+     * @return score from 0 (down) to 1 (healthy)
+     */
+    public double score() {
+        return score;
+    }
+
+    /**
+     * Gets the average round trip time of the responses.
+     *
+     * @return round trip time in milliseconds
+     */
+    public double roundTripTimeInMillis() {
+        return roundTripTimeInMillis;
+    }
+
+    /**
+     * Gets the share of the transmissions left unanswered.
+     *
+     * @return ratio from 0 to 1
+     */
+    public double timeoutRatio() {
+        return timeoutRatio;
+    }
+
+    /**
+     * Gets the share of the responses that were malformed or had an
+     * invalid authenticator.
+     *
+     * @return ratio from 0 to 1
+     */
+    public double invalidResponseRatio() {
+        return invalidResponseRatio;
+    }
+
+    /**
+     * Gets the time the last response was received.
+     *
+     * @return time in milliseconds, 0 if no response was received
+     */
+    public long lastResponseTimeInMillis() {
+        return lastResponseTimeInMillis;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("server", server)
+                .add("score", String.format("%.3f", score))
+                .add("roundTripTimeInMillis", String.format("%.1f", roundTripTimeInMillis))
+                .add("timeoutRatio", String.format("%.3f", timeoutRatio))
+                .add("invalidResponseRatio", String.format("%.3f", invalidResponseRatio))
+                .toString();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa;
+
+import com.google.common.base.MoreObjects;
+import org.onosproject.net.packet.InboundPacket;
+
+import java.net.InetSocketAddress;
+import java.util.function.IntToLongFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Describes how a RADIUS request is sent by
+ * {@link RadiusCommunicator#send(RadiusRequest, RequestContext)}:
+ * where to, from which identifier space, and how often it is retransmitted.
+ */
+public final class RequestContext {
+
+    private static final Runnable NO_LISTENER = () -> { };
+
+    private final InboundPacket inPacket;
+    private final int identifierSpace;
+    private final InetSocketAddress server;
+    private final int attempts;
+    private final IntToLongFunction timeoutInMillis;
+    private final Runnable retransmitListener;
+
+    private RequestContext(Builder builder) {
+        this.inPacket = builder.inPacket;
+        this.identifierSpace = builder.identifierSpace;
+        this.server = builder.server;
+        this.attempts = builder.attempts;
+        this.timeoutInMillis = builder.timeoutInMillis;
+        this.retransmitListener = builder.retransmitListener;
+    }
+
+    /**
+     * Returns the EAPOL packet the request was built from.
+     *
+     * @return inbound packet, null for requests not triggered by a supplicant
+     */
+    public InboundPacket inPacket() {
+        return inPacket;
+    }
+
+    /**
+     * Returns the identifier space the request identifier belongs to.
+     *
+     * @return identifier space
+     */
+    public int identifierSpace() {
+        return identifierSpace;
+    }
+
+    /**
+     * Returns the RADIUS server the request is sent to.
+     *
+     * @return address and port of the server, null if not resolved yet
+     */
+    public InetSocketAddress server() {
+        return server;
+    }
+
+    /**
+     * Returns how many times the request is sent at most, the first
+     * transmission included.
+     *
+     * @return number of attempts
+     */
+    public int attempts() {
+        return attempts;
+    }
+
+    /**
+     * Returns the time to wait for a response after a transmission.
+     *
+     * @param retransmits number of retransmissions done so far
+     * @return timeout in milliseconds
+     */
+    public long timeoutInMillis(int retransmits) {
+        return timeoutInMillis.applyAsLong(retransmits);
+    }
+
+    /**
+     * Notifies that the request is about to be retransmitted.
+     */
+    public void retransmitted() {
+        retransmitListener.run();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("identifierSpace", identifierSpace)
+                .add("server", server)
+                .add("attempts", attempts)
+                .toString();
+    }
+
+    /**
+     * Returns a new builder.
+     *
+     * @return request context builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder of request contexts.
+     */
+    public static final class Builder {
+        private InboundPacket inPacket;
+        private int identifierSpace;
+        private InetSocketAddress server;
+        private int attempts = 1;
+        private IntToLongFunction timeoutInMillis;
+        private Runnable retransmitListener = NO_LISTENER;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the EAPOL packet the request was built from.
+         *
+         * @param inPacket inbound packet
+         * @return this builder
+         */
+        public Builder inPacket(InboundPacket inPacket) {
+            this.inPacket = inPacket;
+            return this;
+        }
+
+        /**
+         * Sets the identifier space the request identifier belongs to.
+         *
+         * @param identifierSpace identifier space
+         * @return this builder
+         */
+        public Builder identifierSpace(int identifierSpace) {
+            this.identifierSpace = identifierSpace;
+            return this;
+        }
+
+        /**
+         * Sets the RADIUS server the request is sent to.
+         *
+         * @param server address and port of the server
+         * @return this builder
+         */
+        public Builder server(InetSocketAddress server) {
+            this.server = server;
+            return this;
+        }
+
+        /**
+         * Sets how many times the request is sent at most.
+         *
+         * @param attempts number of attempts, the first transmission included
+         * @return this builder
+         */
+        public Builder attempts(int attempts) {
+            this.attempts = attempts;
+            return this;
+        }
+
+        /**
+         * Sets the time to wait for a response after each transmission.
+         *
+         * @param timeoutInMillis timeout in milliseconds by number of retransmissions done
+         * @return this builder
+         */
+        public Builder timeoutInMillis(IntToLongFunction timeoutInMillis) {
+            this.timeoutInMillis = timeoutInMillis;
+            return this;
+        }
+
+        /**
+         * Sets the listener notified before every retransmission.
+         *
+         * @param retransmitListener retransmission listener
+         * @return this builder
+         */
+        public Builder retransmitListener(Runnable retransmitListener) {
+            this.retransmitListener = checkNotNull(retransmitListener);
+            return this;
+        }
+
+        /**
+         * Builds the request context.
+         *
+         * @return request context
+         */
+        public RequestContext build() {
+            checkArgument(attempts > 0, "At least one attempt is required");
+            checkNotNull(timeoutInMillis, "Timeout is required");
+            return new RequestContext(this);
+        }
+    }
+}
@@ -65,6 +65,22 @@ public class AaaShowCountersCommand extends AbstractShellCommand {
         System.out.format("%30s %10d\n", "PendingResSupp", aaaStats.getPendingResSupp());
         System.out.format("%30s %10d\n", "EapolFramesTx", aaaStats.getEapolFramesTx());
         System.out.format("%30s %10d\n", "TimedOutPackets", aaaStats.getTimedOutPackets());
+        System.out.format("%30s %10d\n", "IdentifierWaitQueueDepth", aaaStats.getIdentifierWaitQueueDepth());
+        System.out.format("%30s %10d\n", "IdentifierWaitQueueDropped", aaaStats.getIdentifierWaitQueueDropped());
+        System.out.format("%30s %10d\n", "IdentifierWaitTimeMillis", aaaStats.getIdentifierWaitTimeMillis());
+        System.out.format("%30s %10d\n", "LeakedIdentifiers", aaaStats.getLeakedIdentifiers());
+        System.out.format("%30s %10d\n", "ReclaimedIdentifiers", aaaStats.getReclaimedIdentifiers());
+        System.out.format("%30s %10d\n", "RadiusBreakerState", aaaStats.getRadiusBreakerState());
+        System.out.format("%30s %10d\n", "RadiusBreakerTrips", aaaStats.getRadiusBreakerTrips());
+        System.out.format("%30s %10d\n", "RadiusBreakerShedResponses", aaaStats.getRadiusBreakerShedResponses());
+        System.out.format("%30s %10d\n", "RadiusBreakerPacedStarts", aaaStats.getRadiusBreakerPacedStarts());
+        System.out.format("%30s %10d\n", "RadiusHedgedRequests", aaaStats.getRadiusHedgedRequests());
+        System.out.format("%30s %10d\n", "RadiusHedgeWins", aaaStats.getRadiusHedgeWins());
+        System.out.format("%30s %10d\n", "IdleSessionsEvicted", aaaStats.getIdleSessionsEvicted());
+        System.out.format("%30s %10d\n", "SessionCapEvictions", aaaStats.getSessionCapEvictions());
+        System.out.format("%30s %10d\n", "SessionCapRejections", aaaStats.getSessionCapRejections());
+        System.out.format("%30s %10d\n", "AuthRecordWritesCoalesced", aaaStats.getAuthRecordWritesCoalesced());
+        System.out.format("%30s %10d\n", "SessionTasksDropped", aaaStats.getSessionTasksDropped());
 
   }
 }
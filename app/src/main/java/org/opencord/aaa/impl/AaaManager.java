@@ -16,20 +16,21 @@
 package org.opencord.aaa.impl;
 
 import com.google.common.base.Strings;
-import com.google.common.collect.Maps;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import static org.onosproject.net.config.basics.SubjectFactories.APP_SUBJECT_FACTORY;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
+import java.util.Collection;
 import java.util.Dictionary;
-import java.util.HashSet;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
-import java.util.Map.Entry;
+import java.util.Map;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.onlab.packet.DeserializationException;
@@ -67,11 +68,14 @@ import org.onosproject.net.packet.PacketContext;
 import org.onosproject.net.packet.PacketProcessor;
 import org.onosproject.net.packet.PacketService;
 import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.EventuallyConsistentMap;
+import org.onosproject.store.service.EventuallyConsistentMapEvent;
+import org.onosproject.store.service.EventuallyConsistentMapListener;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageService;
-import org.onosproject.store.service.Versioned;
+import org.onosproject.store.service.WallClockTimestamp;
 import org.opencord.aaa.AaaConfig;
 import org.opencord.aaa.AaaMachineStatisticsEvent;
 import org.opencord.aaa.AaaMachineStatisticsService;
@@ -86,6 +90,10 @@ import org.opencord.aaa.RadiusCommunicator;
 import org.opencord.aaa.RadiusOperationalStatusEvent;
 import org.opencord.aaa.RadiusOperationalStatusService;
 import org.opencord.aaa.RadiusOperationalStatusService.RadiusOperationalStatusEvaluationMode;
+import org.opencord.aaa.RadiusRequest;
+import org.opencord.aaa.RadiusResponse;
+import org.opencord.aaa.RadiusServerConfig;
+import org.opencord.aaa.RequestContext;
 import org.opencord.aaa.StateMachineDelegate;
 import org.opencord.sadis.BaseInformationService;
 import org.opencord.sadis.SadisService;
@@ -99,20 +107,58 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.net.URI;
+import java.security.GeneralSecurityException;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.opencord.aaa.impl.OsgiPropertyConstants.AUTH_RECORD_BATCH_SIZE;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.AUTH_RECORD_BATCH_SIZE_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.AUTH_RECORD_FLUSH_INTERVAL;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.AUTH_RECORD_FLUSH_INTERVAL_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.AUTH_RECORDS_EVENTUALLY_CONSISTENT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.AUTH_RECORDS_EVENTUALLY_CONSISTENT_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.IDENTIFIER_TIMEOUT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.IDENTIFIER_TIMEOUT_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.IDENTIFIER_WAIT_QUEUE_SIZE;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.IDENTIFIER_WAIT_QUEUE_SIZE_DEFAULT;
 import static org.opencord.aaa.impl.OsgiPropertyConstants.OPERATIONAL_STATUS_SERVER_EVENT_GENERATION;
 import static org.opencord.aaa.impl.OsgiPropertyConstants.OPERATIONAL_STATUS_SERVER_EVENT_GENERATION_DEFAULT;
 import static org.opencord.aaa.impl.OsgiPropertyConstants.OPERATIONAL_STATUS_SERVER_TIMEOUT;
 import static org.opencord.aaa.impl.OsgiPropertyConstants.OPERATIONAL_STATUS_SERVER_TIMEOUT_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_BREAKER_FAILURE_THRESHOLD;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_BREAKER_FAILURE_THRESHOLD_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_BREAKER_OPEN_TIME;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_BREAKER_OPEN_TIME_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_BREAKER_START_RATE;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_BREAKER_START_RATE_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_HEDGE_BUDGET;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_HEDGE_BUDGET_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_HEDGE_PERCENTILE;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_HEDGE_PERCENTILE_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_INITIAL_TIMEOUT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_INITIAL_TIMEOUT_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_MAX_TIMEOUT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_MAX_TIMEOUT_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_RETRANSMIT_ATTEMPTS;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.RADIUS_RETRANSMIT_ATTEMPTS_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.MAX_SESSIONS;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.MAX_SESSIONS_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.SESSION_IDLE_TIMEOUT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.SESSION_IDLE_TIMEOUT_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.SESSION_QUEUE_SIZE;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.SESSION_QUEUE_SIZE_DEFAULT;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.SESSION_THREADS;
+import static org.opencord.aaa.impl.OsgiPropertyConstants.SESSION_THREADS_DEFAULT;
 import static org.opencord.aaa.impl.OsgiPropertyConstants.STATISTICS_GENERATION_PERIOD;
 import static org.opencord.aaa.impl.OsgiPropertyConstants.STATISTICS_GENERATION_PERIOD_DEFAULT;
 import static org.opencord.aaa.impl.OsgiPropertyConstants.STATUS_SERVER_MODE;
@@ -126,6 +172,23 @@ import static org.opencord.aaa.impl.OsgiPropertyConstants.STATUS_SERVER_MODE_DEF
         OPERATIONAL_STATUS_SERVER_EVENT_GENERATION + ":Integer=" + OPERATIONAL_STATUS_SERVER_EVENT_GENERATION_DEFAULT,
         OPERATIONAL_STATUS_SERVER_TIMEOUT + ":Integer=" + OPERATIONAL_STATUS_SERVER_TIMEOUT_DEFAULT,
         STATUS_SERVER_MODE + ":String=" + STATUS_SERVER_MODE_DEFAULT,
+        IDENTIFIER_WAIT_QUEUE_SIZE + ":Integer=" + IDENTIFIER_WAIT_QUEUE_SIZE_DEFAULT,
+        IDENTIFIER_TIMEOUT + ":Integer=" + IDENTIFIER_TIMEOUT_DEFAULT,
+        RADIUS_RETRANSMIT_ATTEMPTS + ":Integer=" + RADIUS_RETRANSMIT_ATTEMPTS_DEFAULT,
+        RADIUS_INITIAL_TIMEOUT + ":Integer=" + RADIUS_INITIAL_TIMEOUT_DEFAULT,
+        RADIUS_MAX_TIMEOUT + ":Integer=" + RADIUS_MAX_TIMEOUT_DEFAULT,
+        RADIUS_BREAKER_FAILURE_THRESHOLD + ":Integer=" + RADIUS_BREAKER_FAILURE_THRESHOLD_DEFAULT,
+        RADIUS_BREAKER_OPEN_TIME + ":Integer=" + RADIUS_BREAKER_OPEN_TIME_DEFAULT,
+        RADIUS_BREAKER_START_RATE + ":Integer=" + RADIUS_BREAKER_START_RATE_DEFAULT,
+        RADIUS_HEDGE_BUDGET + ":Integer=" + RADIUS_HEDGE_BUDGET_DEFAULT,
+        RADIUS_HEDGE_PERCENTILE + ":Integer=" + RADIUS_HEDGE_PERCENTILE_DEFAULT,
+        SESSION_THREADS + ":Integer=" + SESSION_THREADS_DEFAULT,
+        SESSION_QUEUE_SIZE + ":Integer=" + SESSION_QUEUE_SIZE_DEFAULT,
+        SESSION_IDLE_TIMEOUT + ":Integer=" + SESSION_IDLE_TIMEOUT_DEFAULT,
+        MAX_SESSIONS + ":Integer=" + MAX_SESSIONS_DEFAULT,
+        AUTH_RECORD_FLUSH_INTERVAL + ":Integer=" + AUTH_RECORD_FLUSH_INTERVAL_DEFAULT,
+        AUTH_RECORD_BATCH_SIZE + ":Integer=" + AUTH_RECORD_BATCH_SIZE_DEFAULT,
+        AUTH_RECORDS_EVENTUALLY_CONSISTENT + ":Boolean=" + AUTH_RECORDS_EVENTUALLY_CONSISTENT_DEFAULT,
 })
 public class AaaManager
         extends AbstractListenerManager<AuthenticationEvent, AuthenticationEventListener>
@@ -177,12 +240,75 @@ public class AaaManager
     private int operationalStatusEventGenerationPeriodInSeconds = OPERATIONAL_STATUS_SERVER_EVENT_GENERATION_DEFAULT;
     private int operationalStatusServerTimeoutInSeconds = OPERATIONAL_STATUS_SERVER_TIMEOUT_DEFAULT;
     protected String operationalStatusEvaluationMode = STATUS_SERVER_MODE_DEFAULT;
+    private int identifierWaitQueueSize = IDENTIFIER_WAIT_QUEUE_SIZE_DEFAULT;
+    private int identifierTimeoutInSeconds = IDENTIFIER_TIMEOUT_DEFAULT;
+    private int radiusRetransmitAttempts = RADIUS_RETRANSMIT_ATTEMPTS_DEFAULT;
+    private int radiusInitialTimeoutInMillis = RADIUS_INITIAL_TIMEOUT_DEFAULT;
+    private int radiusMaxTimeoutInMillis = RADIUS_MAX_TIMEOUT_DEFAULT;
+    private int radiusBreakerFailureThreshold = RADIUS_BREAKER_FAILURE_THRESHOLD_DEFAULT;
+    private int radiusBreakerOpenTimeInSeconds = RADIUS_BREAKER_OPEN_TIME_DEFAULT;
+    private int radiusBreakerStartsPerSecond = RADIUS_BREAKER_START_RATE_DEFAULT;
+    private int radiusHedgeBudgetPercent = RADIUS_HEDGE_BUDGET_DEFAULT;
+    private int radiusHedgePercentile = RADIUS_HEDGE_PERCENTILE_DEFAULT;
+    private int sessionThreads = SESSION_THREADS_DEFAULT;
+    private int sessionQueueSize = SESSION_QUEUE_SIZE_DEFAULT;
+    private int sessionIdleTimeoutInSeconds = SESSION_IDLE_TIMEOUT_DEFAULT;
+    private int maxSessions = MAX_SESSIONS_DEFAULT;
+    private int authRecordFlushIntervalInMillis = AUTH_RECORD_FLUSH_INTERVAL_DEFAULT;
+    private int authRecordBatchSize = AUTH_RECORD_BATCH_SIZE_DEFAULT;
+
+    // evicts the idle sessions and keeps the number of sessions under the maximum
+    final SessionReaper sessionReaper = new SessionReaper(SESSION_IDLE_TIMEOUT_DEFAULT * 1000L, MAX_SESSIONS_DEFAULT);
+
+    // sessions picked to stay under the maximum number of sessions, not evicted yet
+    private final Set<StateMachine> sessionsBeingEvicted = Sets.newConcurrentHashSet();
+
+    // share of the initial Access-Requests that may be duplicated to a second server
+    final RadiusHedgeBudget radiusHedgeBudget = new RadiusHedgeBudget(RADIUS_HEDGE_BUDGET_DEFAULT);
+
+    // time to wait for a RADIUS response before retransmitting the request
+    private final RetransmissionTimeout retransmissionTimeout =
+            new RetransmissionTimeout(RADIUS_INITIAL_TIMEOUT_DEFAULT, RADIUS_MAX_TIMEOUT_DEFAULT);
+
+    // HMAC-MD5 keyed with the server secrets, to verify the responses
+    private final MessageAuthenticatorKeys messageAuthenticatorKeys = new MessageAuthenticatorKeys();
+
+    // stops sending requests to a RADIUS server that does not respond
+    final RadiusCircuitBreaker radiusCircuitBreaker = new RadiusCircuitBreaker(
+            RADIUS_BREAKER_FAILURE_THRESHOLD_DEFAULT, RADIUS_BREAKER_OPEN_TIME_DEFAULT * 1000L,
+            RADIUS_BREAKER_START_RATE_DEFAULT, this::radiusBreakerStateChanged);
+
+    // period of the check for identifiers whose RADIUS response never arrived
+    private static final int IDENTIFIER_RECLAIM_PERIOD_IN_SECONDS = 1;
+
+    // period of the check for idle sessions to evict
+    private static final int SESSION_REAP_PERIOD_IN_SECONDS = 10;
+
+    // resolution of the timers, well below the RADIUS retransmission timeout
+    private static final long TIMER_TICK_IN_MILLIS = 10;
+
+    // a turn of the timing wheel covers the longest retransmission timeout
+    private static final int TIMER_TICKS_PER_WHEEL = 4096;
 
     private IdentifierManager idManager;
 
-    private ConcurrentMap<String, StateMachine> stateMachines;
+    // EAP responses waiting for a RADIUS request identifier to be released
+    private final IdentifierWaitQueue identifierWaitQueue =
+            new IdentifierWaitQueue(IDENTIFIER_WAIT_QUEUE_SIZE_DEFAULT);
+
+    // number of drain requests not yet handled, the queue is drained by one thread at a time
+    private final AtomicInteger identifierWaitQueueDrains = new AtomicInteger();
+
+    // sessions by the connect point of their supplicant
+    private SessionTable<StateMachine> stateMachines;
 
-    private ConsistentMap<ConnectPoint, AuthenticationRecord> authentications;
+    // only read when activating, the records of the two kinds of store are not shared
+    private boolean authRecordsEventuallyConsistent = AUTH_RECORDS_EVENTUALLY_CONSISTENT_DEFAULT;
+
+    private AuthenticationRecordStore authentications;
+
+    // buffers the writes to the authentications store, off the packet processing threads
+    AuthenticationRecordWriter authRecordWriter;
 
     // NAS IP address
     protected InetAddress nasIpAddress;
@@ -218,22 +344,33 @@ public class AaaManager
     private String customizer;
 
     // Type of connection to use to communicate with Radius server, options are
-    // "socket" or "packet_out"
+    // "socket", "radsec" or "packet_out"
     private String radiusConnectionType;
 
     // Object for the specific type of communication with the RADIUS
-    // server, socket based or packet_out based
-    RadiusCommunicator impl = null;
+    // server, socket based or packet_out based; replaced as a whole on reconfiguration
+    volatile RadiusCommunicator impl = null;
+
+    // Communicators replaced by a reconfiguration, still receiving the responses to their requests
+    private final Set<RadiusCommunicator> retiredCommunicators = Sets.newConcurrentHashSet();
 
     // latest configuration
     AaaConfig newCfg;
 
     ScheduledFuture<?> scheduledFuture;
     ScheduledFuture<?> scheduledStatusServerChecker;
+    TimingWheel.Timeout scheduledIdentifierReclaimer;
+    TimingWheel.Timeout scheduledSessionReaper;
+    TimingWheel.Timeout scheduledAuthRecordFlush;
     ScheduledExecutorService executor;
-    String configuredAaaServerAddress;
-    HashSet<Byte> outPacketSet = new HashSet<Byte>();
-    HashSet<Byte> outPacketSupp = new HashSet<Byte>();
+    // writes the authentication records, away from the timers as the store may be slow
+    ExecutorService authRecordExecutor;
+    // session cleanups, RADIUS retransmissions and identifier reclamation
+    TimingWheel timer;
+    // runs all the work on a session on the same thread, sessions in parallel
+    SessionExecutor sessionExecutor;
+    // RADIUS servers requests are spread over
+    RadiusServerPool radiusServerPool;
     static final List<Byte> VALID_EAPOL_TYPE = Arrays.asList(EAPOL.EAPOL_START, EAPOL.EAPOL_LOGOFF, EAPOL.EAPOL_PACKET);
     static final int HEADER_LENGTH = 4;
     // Configuration properties factory
@@ -252,6 +389,8 @@ public class AaaManager
 
     private final InternalMapEventListener mapListener = new InternalMapEventListener();
 
+    private final InternalEcMapEventListener ecMapListener = new InternalEcMapEventListener();
+
     private StateMachineDelegate delegate = new InternalStateMachineDelegate();
 
     /**
@@ -290,8 +429,12 @@ public class AaaManager
 
     @Activate
     public void activate(ComponentContext context) {
+        // also runs the RADIUS retransmissions, so it is needed by the communicators
+        executor = Executors.newScheduledThreadPool(3);
+        timer = new TimingWheel(TIMER_TICK_IN_MILLIS, TIMER_TICKS_PER_WHEEL, executor, "AAA-timer");
         idManager = new IdentifierManager();
-        stateMachines = Maps.newConcurrentMap();
+        radiusServerPool = new RadiusServerPool();
+        stateMachines = new SessionTable<>();
         appId = coreService.registerApplication(APP_NAME);
 
         KryoNamespace authSerializer = KryoNamespace.newBuilder()
@@ -308,12 +451,19 @@ public class AaaManager
                 .register(AuthenticationRecord.class)
                 .build();
 
-        authentications = storageService.<ConnectPoint, AuthenticationRecord>consistentMapBuilder()
-                .withApplicationId(appId)
-                .withName("authentications")
-                .withSerializer(Serializer.using(authSerializer))
-                .build();
-        authentications.addListener(mapListener);
+        String s = Tools.get(context.getProperties(), AUTH_RECORDS_EVENTUALLY_CONSISTENT);
+        authRecordsEventuallyConsistent = Strings.isNullOrEmpty(s) ? AUTH_RECORDS_EVENTUALLY_CONSISTENT_DEFAULT
+                : Boolean.parseBoolean(s.trim());
+        if (authRecordsEventuallyConsistent) {
+            log.info("Storing the authentication records in an eventually consistent map");
+            authentications = new EventuallyConsistentAuthenticationRecordStore(authSerializer);
+        } else {
+            authentications = new ConsistentAuthenticationRecordStore(authSerializer);
+        }
+        authRecordExecutor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("AAA-auth-record-writer-%d").build());
+        authRecordWriter = new AuthenticationRecordWriter(authentications, authRecordExecutor,
+                AUTH_RECORD_BATCH_SIZE_DEFAULT);
 
         eventDispatcher.addSink(AuthenticationEvent.class, listenerRegistry);
         netCfgService.addListener(cfgListener);
@@ -322,27 +472,25 @@ public class AaaManager
         modified(context);
         subsService = sadisService.getSubscriberInfoService();
         customInfo = new CustomizationInfo(subsService, deviceService);
+        // also sets up the RADIUS communicator
         cfgListener.reconfigureNetwork(netCfgService.getConfig(appId, AaaConfig.class));
         log.info("Starting with config {} {}", this, newCfg);
-        configureRadiusCommunication();
         // register our event handler
         packetService.addProcessor(processor, PacketProcessor.director(2));
         StateMachine.setDelegate(delegate);
         cleanupTimerTimeOutInMins = newCfg.sessionCleanupTimer();
         StateMachine.setcleanupTimerTimeOutInMins(cleanupTimerTimeOutInMins);
-        impl.initializeLocalState(newCfg);
-        impl.requestIntercepts();
         deviceService.addListener(deviceListener);
-        getConfiguredAaaServerAddress();
-        radiusOperationalStatusService.initialize(nasIpAddress.getAddress(), radiusSecret, impl);
         authenticationStatisticsPublisher =
                 new AuthenticationStatisticsEventPublisher();
-        executor = Executors.newScheduledThreadPool(3);
 
         scheduledFuture = executor.scheduleAtFixedRate(authenticationStatisticsPublisher,
             0, statisticsGenerationPeriodInSeconds, TimeUnit.SECONDS);
         scheduledStatusServerChecker = executor.scheduleAtFixedRate(new ServerStatusChecker(), 0,
             operationalStatusEventGenerationPeriodInSeconds, TimeUnit.SECONDS);
+        scheduleIdentifierReclaimer();
+        scheduleSessionReaper();
+        scheduleAuthRecordFlush();
 
         log.info("Started");
     }
@@ -355,13 +503,25 @@ public class AaaManager
         cfgService.unregisterProperties(getClass(), false);
         StateMachine.unsetDelegate(delegate);
         impl.deactivate();
+        retiredCommunicators().forEach(this::closeRetiredCommunicator);
         deviceService.removeListener(deviceListener);
         eventDispatcher.removeSink(AuthenticationEvent.class);
         scheduledFuture.cancel(true);
         scheduledStatusServerChecker.cancel(true);
-        executor.shutdown();
-
-        authentications.removeListener(mapListener);
+        scheduledIdentifierReclaimer.cancel();
+        scheduledSessionReaper.cancel();
+        scheduledAuthRecordFlush.cancel();
+        authRecordExecutor.shutdown();
+        // waits for a flush in progress, then writes what is left
+        authRecordWriter.flush();
+        // also drops the pending RADIUS retransmissions and session cleanups
+        timer.stop();
+        executor.shutdownNow();
+        sessionExecutor.shutdownNow();
+        radiusServerPool.shutdown();
+        identifierWaitQueue.clear();
+
+        authentications.close();
 
         log.info("Stopped");
     }
@@ -395,17 +555,199 @@ public class AaaManager
         } else {
             properties.put("operationalStatusEvaluationMode", operationalStatusEvaluationMode);
         }
+
+        s = Tools.get(properties, IDENTIFIER_WAIT_QUEUE_SIZE);
+        identifierWaitQueueSize = Strings.isNullOrEmpty(s) ? IDENTIFIER_WAIT_QUEUE_SIZE_DEFAULT
+                : Integer.parseInt(s.trim());
+        identifierWaitQueue.setCapacity(identifierWaitQueueSize);
+
+        s = Tools.get(properties, IDENTIFIER_TIMEOUT);
+        identifierTimeoutInSeconds = Strings.isNullOrEmpty(s) ? IDENTIFIER_TIMEOUT_DEFAULT
+                : Integer.parseInt(s.trim());
+        idManager.setTimeoutInMillis(identifierTimeoutInSeconds * 1000L);
+
+        s = Tools.get(properties, RADIUS_RETRANSMIT_ATTEMPTS);
+        radiusRetransmitAttempts = Strings.isNullOrEmpty(s) ? RADIUS_RETRANSMIT_ATTEMPTS_DEFAULT
+                : Integer.parseInt(s.trim());
+
+        s = Tools.get(properties, RADIUS_INITIAL_TIMEOUT);
+        int initialTimeout = Strings.isNullOrEmpty(s) ? RADIUS_INITIAL_TIMEOUT_DEFAULT
+                : Integer.parseInt(s.trim());
+
+        s = Tools.get(properties, RADIUS_MAX_TIMEOUT);
+        int maxTimeout = Strings.isNullOrEmpty(s) ? RADIUS_MAX_TIMEOUT_DEFAULT
+                : Integer.parseInt(s.trim());
+
+        if (initialTimeout > 0 && maxTimeout >= initialTimeout) {
+            radiusInitialTimeoutInMillis = initialTimeout;
+            radiusMaxTimeoutInMillis = maxTimeout;
+            retransmissionTimeout.configure(radiusInitialTimeoutInMillis, radiusMaxTimeoutInMillis);
+        } else {
+            log.warn("Invalid RADIUS retransmission timeouts {}/{}, keeping {}/{}", initialTimeout, maxTimeout,
+                    radiusInitialTimeoutInMillis, radiusMaxTimeoutInMillis);
+        }
+
+        s = Tools.get(properties, RADIUS_BREAKER_FAILURE_THRESHOLD);
+        radiusBreakerFailureThreshold = Strings.isNullOrEmpty(s) ? RADIUS_BREAKER_FAILURE_THRESHOLD_DEFAULT
+                : Integer.parseInt(s.trim());
+
+        s = Tools.get(properties, RADIUS_BREAKER_OPEN_TIME);
+        radiusBreakerOpenTimeInSeconds = Strings.isNullOrEmpty(s) ? RADIUS_BREAKER_OPEN_TIME_DEFAULT
+                : Integer.parseInt(s.trim());
+
+        s = Tools.get(properties, RADIUS_BREAKER_START_RATE);
+        radiusBreakerStartsPerSecond = Strings.isNullOrEmpty(s) ? RADIUS_BREAKER_START_RATE_DEFAULT
+                : Integer.parseInt(s.trim());
+        radiusCircuitBreaker.configure(radiusBreakerFailureThreshold, radiusBreakerOpenTimeInSeconds * 1000L,
+                radiusBreakerStartsPerSecond);
+
+        s = Tools.get(properties, RADIUS_HEDGE_BUDGET);
+        radiusHedgeBudgetPercent = Strings.isNullOrEmpty(s) ? RADIUS_HEDGE_BUDGET_DEFAULT
+                : Integer.parseInt(s.trim());
+        radiusHedgeBudget.configure(radiusHedgeBudgetPercent);
+
+        s = Tools.get(properties, RADIUS_HEDGE_PERCENTILE);
+        int hedgePercentile = Strings.isNullOrEmpty(s) ? RADIUS_HEDGE_PERCENTILE_DEFAULT
+                : Integer.parseInt(s.trim());
+        if (hedgePercentile > 0 && hedgePercentile <= 100) {
+            radiusHedgePercentile = hedgePercentile;
+        } else {
+            log.warn("Invalid RADIUS hedge percentile {}, keeping {}", hedgePercentile, radiusHedgePercentile);
+        }
+
+        s = Tools.get(properties, SESSION_THREADS);
+        int threads = Strings.isNullOrEmpty(s) ? SESSION_THREADS_DEFAULT : Integer.parseInt(s.trim());
+        s = Tools.get(properties, SESSION_QUEUE_SIZE);
+        int queueSize = Strings.isNullOrEmpty(s) ? SESSION_QUEUE_SIZE_DEFAULT : Integer.parseInt(s.trim());
+        // only set when activating, work on a session queued on the old threads
+        // would otherwise run along with the work queued on the new ones
+        if (sessionExecutor == null) {
+            sessionThreads = threads;
+            sessionQueueSize = queueSize;
+            sessionExecutor = new SessionExecutor(sessionThreads, sessionQueueSize,
+                    () -> aaaStatisticsManager.getAaaStats().incrementSessionTasksDropped());
+            log.info("Processing sessions on {} threads", sessionExecutor.threads());
+        } else if (threads != sessionThreads || queueSize != sessionQueueSize) {
+            log.warn("{} and {} changed to {} and {}, effective once the application is restarted",
+                     SESSION_THREADS, SESSION_QUEUE_SIZE, threads, queueSize);
+        }
+
+        s = Tools.get(properties, SESSION_IDLE_TIMEOUT);
+        sessionIdleTimeoutInSeconds = Strings.isNullOrEmpty(s) ? SESSION_IDLE_TIMEOUT_DEFAULT
+                : Integer.parseInt(s.trim());
+
+        s = Tools.get(properties, MAX_SESSIONS);
+        maxSessions = Strings.isNullOrEmpty(s) ? MAX_SESSIONS_DEFAULT : Integer.parseInt(s.trim());
+        sessionReaper.configure(sessionIdleTimeoutInSeconds * 1000L, maxSessions);
+
+        s = Tools.get(properties, AUTH_RECORD_FLUSH_INTERVAL);
+        authRecordFlushIntervalInMillis = Strings.isNullOrEmpty(s) ? AUTH_RECORD_FLUSH_INTERVAL_DEFAULT
+                : Integer.parseInt(s.trim());
+
+        s = Tools.get(properties, AUTH_RECORD_BATCH_SIZE);
+        authRecordBatchSize = Strings.isNullOrEmpty(s) ? AUTH_RECORD_BATCH_SIZE_DEFAULT : Integer.parseInt(s.trim());
+        authRecordWriter.configure(authRecordBatchSize);
+
+        s = Tools.get(properties, AUTH_RECORDS_EVENTUALLY_CONSISTENT);
+        boolean eventuallyConsistent = Strings.isNullOrEmpty(s) ? AUTH_RECORDS_EVENTUALLY_CONSISTENT_DEFAULT
+                : Boolean.parseBoolean(s.trim());
+        if (eventuallyConsistent != authRecordsEventuallyConsistent) {
+            log.warn("{} changed to {}, effective once the application is restarted",
+                     AUTH_RECORDS_EVENTUALLY_CONSISTENT, eventuallyConsistent);
+        }
     }
 
-    protected void configureRadiusCommunication() {
+    /**
+     * Publishes the state of the RADIUS circuit breaker in the statistics.
+     *
+     * @param state new state of the breaker
+     */
+    private void radiusBreakerStateChanged(RadiusCircuitBreaker.State state) {
+        aaaStatisticsManager.getAaaStats().setRadiusBreakerState(state.ordinal());
+        if (state == RadiusCircuitBreaker.State.OPEN) {
+            aaaStatisticsManager.getAaaStats().incrementRadiusBreakerTrips();
+        }
+    }
+
+    protected RadiusCommunicator createRadiusCommunicator() {
         if (radiusConnectionType.toLowerCase().equals("socket")) {
-            impl = new SocketBasedRadiusCommunicator(appId, packetService, this);
+            return new SocketBasedRadiusCommunicator(appId, packetService, this);
+        } else if (radiusConnectionType.toLowerCase().equals("radsec")) {
+            return new RadSecRadiusCommunicator(appId, packetService, this);
         } else {
-            impl = new PortBasedRadiusCommunicator(appId, packetService, mastershipService,
+            return new PortBasedRadiusCommunicator(appId, packetService, mastershipService,
                     deviceService, subsService, pktCustomizer, this);
         }
     }
 
+    /**
+     * Replaces the RADIUS communicator by a new one set up with the given
+     * configuration. New requests are switched over once the new
+     * communicator is initialized. The previous one keeps its sockets open
+     * so that the requests it has in flight are retransmitted and answered
+     * as usual, and is closed once they all expired.
+     *
+     * @param cfg               configuration to apply
+     * @param interceptsChanged whether the new communicator needs other packet intercepts
+     */
+    void switchRadiusCommunicator(AaaConfig cfg, boolean interceptsChanged) {
+        RadiusCommunicator previous = impl;
+        RadiusCommunicator next = createRadiusCommunicator();
+        next.initializeLocalState(cfg);
+        if (previous == null || interceptsChanged) {
+            if (previous != null) {
+                previous.withdrawIntercepts();
+            }
+            next.requestIntercepts();
+        }
+        if (previous != null) {
+            // identifiers allocated meanwhile must be valid with both communicators
+            idManager.setIdentifierSpaces(Math.min(previous.identifierSpaces(), next.identifierSpaces()));
+        }
+        impl = next;
+        idManager.setIdentifierSpaces(next.identifierSpaces());
+        if (nasIpAddress != null) {
+            radiusOperationalStatusService.initialize(nasIpAddress.getAddress(), radiusSecret, next);
+        }
+        if (previous != null) {
+            retireRadiusCommunicator(previous);
+        }
+    }
+
+    /**
+     * Closes a replaced communicator once the requests it has in flight
+     * are either answered or given up.
+     *
+     * @param previous replaced communicator
+     */
+    private void retireRadiusCommunicator(RadiusCommunicator previous) {
+        retiredCommunicators.add(previous);
+        // every attempt pushes the deadline of the identifier
+        long graceInMillis = (radiusRetransmitAttempts + 1) * idManager.timeoutInMillis();
+        log.info("Closing the previous RADIUS communicator in {} ms", graceInMillis);
+        try {
+            executor.schedule(() -> closeRetiredCommunicator(previous), graceInMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            closeRetiredCommunicator(previous);
+        }
+    }
+
+    private void closeRetiredCommunicator(RadiusCommunicator previous) {
+        if (retiredCommunicators.remove(previous)) {
+            previous.deactivate();
+        }
+    }
+
+    /**
+     * Gets the communicators replaced by a reconfiguration and not closed yet.
+     *
+     * @return retired communicators
+     */
+    Set<RadiusCommunicator> retiredCommunicators() {
+        return ImmutableSet.copyOf(retiredCommunicators);
+    }
+
     private void configurePacketCustomizer() {
         switch (customizer.toLowerCase()) {
             case "sample":
@@ -423,132 +765,624 @@ public class AaaManager
         }
     }
 
-    private void getConfiguredAaaServerAddress() {
+    /**
+     * Finishes a RADIUS request with the Message-Authenticator for a
+     * server secret.
+     *
+     * @param radiusPayload request being encoded
+     * @param secret        secret shared with the RADIUS server
+     * @return request to send, unsigned if no Message-Authenticator could be computed
+     */
+    private RadiusRequest signRequest(RadiusRequest.Encoder radiusPayload, String secret) {
         try {
-            InetAddress address;
-            if (newCfg.radiusHostName() != null) {
-                address = InetAddress.getByName(newCfg.radiusHostName());
-            } else {
-                 address = newCfg.radiusIp();
+            return radiusPayload.sign(messageAuthenticatorKeys.mac(secret));
+        } catch (GeneralSecurityException e) {
+            log.error("Failed to generate message authenticator: {}", e.getMessage());
+            return radiusPayload.build();
+        }
+    }
+
+    private boolean checkReceivedPacketForValidValidator(RadiusResponse radiusPacket, InFlightRequest request) {
+        String secret = request.server() != null ? request.server().secret() : radiusSecret;
+        boolean valid;
+        try {
+            valid = radiusPacket.verifyMessageAuthenticator(messageAuthenticatorKeys.mac(secret),
+                                                            request.requestAuthenticator());
+        } catch (GeneralSecurityException e) {
+            log.error("Failed to generate message authenticator: {}", e.getMessage());
+            valid = false;
+        }
+        if (!valid) {
+            aaaStatisticsManager.getAaaStats().increaseInvalidValidatorsRx();
+        }
+        return valid;
+    }
+    public void checkForPacketFromUnknownServer(String hostAddress) {
+        if (!radiusServerPool.isServerAddress(hostAddress)) {
+            aaaStatisticsManager.getAaaStats().incrementUnknownServerRx();
+        }
+    }
+
+    /**
+     * Accounts for a RADIUS packet that could not be parsed.
+     *
+     * @param hostAddress textual source address of the packet
+     */
+    public void malformedPacketFromServer(String hostAddress) {
+        aaaStatisticsManager.getAaaStats().increaseMalformedResponsesRx();
+        RadiusServer server = radiusServerPool.server(hostAddress);
+        if (server != null) {
+            radiusOperationalStatusService.recordMalformedResponse(server.config().name());
+        }
+    }
+
+    /**
+     * Send RADIUS packet to the RADIUS server selected for the request and
+     * handle its response once it arrives.
+     *
+     * @param radiusPacket RADIUS request to be sent to server, released once answered or given up
+     * @param inPkt        Incoming EAPOL packet
+     * @param identifier   request identifier allocated for the packet
+     */
+    protected void sendRadiusPacket(RadiusRequest radiusPacket, InboundPacket inPkt, RequestIdentifier identifier) {
+        InFlightRequest request = idManager.getRequest(identifier);
+        if (request == null) {
+            // reclaimed meanwhile, a response could not be matched anymore
+            log.debug("Not sending RADIUS request {}, its identifier was reclaimed", identifier);
+            radiusPacket.release();
+            return;
+        }
+        if (request.server() == null) {
+            request.setServer(radiusServerPool.defaultServer());
+        }
+        RadiusServer server = request.server();
+        if (!request.isSent()) {
+            aaaStatisticsManager.getAaaStats().increaseOrDecreasePendingRequests(true);
+            server.requestSent();
+        }
+        long now = System.currentTimeMillis();
+        request.sent(now);
+        request.setDeadline(now + idManager.timeoutInMillis());
+
+        // retransmissions stay on the same server, the authenticators are only valid there
+        RequestContext context = RequestContext.builder()
+                .inPacket(inPkt)
+                .identifierSpace(identifier.space())
+                .server(server.socketAddress())
+                .attempts(radiusRetransmitAttempts)
+                .timeoutInMillis(retransmissionTimeout::timeoutInMillis)
+                .retransmitListener(() -> requestRetransmitted(identifier, request))
+                .build();
+        aaaStatisticsManager.getAaaStats().increaseAccessRequestsTx();
+        CompletableFuture<RadiusResponse> response = impl.send(radiusPacket, context).toCompletableFuture();
+        request.setResponse(response);
+        response.whenComplete((radiusResponse, error) -> {
+            if (radiusResponse != null) {
+                sessionExecutor.execute(request.sessionId(),
+                                        () -> handleRadiusResponse(radiusResponse, identifier.space()));
+            } else if (error instanceof TimeoutException) {
+                sessionExecutor.execute(request.sessionId(), () -> requestTimedOut(identifier, request));
             }
+            // cancelled when the identifier was released, nothing left to do
+        });
+    }
 
-            configuredAaaServerAddress = address.getHostAddress();
-        } catch (UnknownHostException uhe) {
-            log.warn("Unable to resolve host {}", newCfg.radiusHostName());
+    /**
+     * Accounts for the retransmission of a RADIUS request.
+     *
+     * @param identifier request identifier
+     * @param request    request in flight
+     */
+    private void requestRetransmitted(RequestIdentifier identifier, InFlightRequest request) {
+        long now = System.currentTimeMillis();
+        request.server().responseTimedOut(now);
+        radiusOperationalStatusService.recordTimeout(request.server().config().name());
+        request.incrementRetransmits();
+        request.sent(now);
+        request.setDeadline(now + idManager.timeoutInMillis());
+        aaaStatisticsManager.getAaaStats().increaseRequestReTx();
+        aaaStatisticsManager.getAaaStats().increaseAccessRequestsTx();
+        log.debug("Retransmitting RADIUS request {}", identifier);
+    }
+
+    /**
+     * Gives up on a RADIUS request that was not answered after all the
+     * configured attempts.
+     *
+     * @param identifier request identifier
+     * @param request    request in flight
+     */
+    private void requestTimedOut(RequestIdentifier identifier, InFlightRequest request) {
+        if (idManager.getRequest(identifier) != request) {
+            // reclaimed meanwhile
+            return;
         }
+        log.debug("No RADIUS response for request {} after {} attempts, giving up",
+                identifier, request.retransmits() + 1);
+        radiusOperationalStatusService.recordTimeout(request.server().config().name());
+        releaseIdentifier(identifier);
+        radiusCircuitBreaker.onFailure(System.currentTimeMillis());
     }
 
-    private void checkReceivedPacketForValidValidator(RADIUS radiusPacket, byte[] requestAuthenticator) {
-        if (!checkResponseMessageAuthenticator(radiusSecret, radiusPacket, requestAuthenticator)) {
-            aaaStatisticsManager.getAaaStats().increaseInvalidValidatorsRx();
+    /**
+     * Handles the RADIUS response the communicator matched to a request.
+     *
+     * @param radiusPacket    RADIUS response
+     * @param identifierSpace identifier space of the request
+     */
+    private void handleRadiusResponse(RadiusResponse radiusPacket, int identifierSpace) {
+        try {
+            handleRadiusPacket(radiusPacket, identifierSpace);
+        } catch (DeserializationException e) {
+            aaaStatisticsManager.getAaaStats().increaseMalformedResponsesRx();
+            log.error("Cannot deserialize packet", e);
         }
     }
 
-    private boolean checkResponseMessageAuthenticator(String key, RADIUS radiusPacket, byte[] requestAuthenticator) {
-        byte[] newHash = new byte[16];
-        Arrays.fill(newHash, (byte) 0);
-        byte[] messageAuthenticator = radiusPacket.getAttribute(RADIUSAttribute.RADIUS_ATTR_MESSAGE_AUTH).getValue();
-        byte[] authenticator = radiusPacket.getAuthenticator();
-        radiusPacket.updateAttribute(RADIUSAttribute.RADIUS_ATTR_MESSAGE_AUTH, newHash);
-        radiusPacket.setAuthenticator(requestAuthenticator);
-        // Calculate the MD5 HMAC based on the message
+    /**
+     * Releases a RADIUS request identifier and hands it over to the EAP
+     * responses waiting for one, if any.
+     *
+     * @param identifier request identifier to release
+     * @return the request the identifier was allocated to, null if it was not allocated
+     */
+    private InFlightRequest releaseIdentifier(RequestIdentifier identifier) {
+        InFlightRequest request = idManager.releaseIdentifier(identifier);
+        if (request != null && request.isSent()) {
+            request.cancelResponse();
+            aaaStatisticsManager.getAaaStats().increaseOrDecreasePendingRequests(false);
+            if (request.server() != null) {
+                request.server().requestDone();
+            }
+        }
+        drainIdentifierWaitQueue();
+        return request;
+    }
+
+    /**
+     * Sends a copy of the initial Access-Request of a session to a second
+     * server if the first one does not answer within the configured
+     * percentile of its round trip times.
+     *
+     * @param stateMachine state machine of the session
+     * @param inPacket     EAP response the request was built from
+     * @param eapPacket    EAP identity response
+     * @param identifier   identifier of the request
+     * @param request      request sent to the first server
+     */
+    private void scheduleHedge(StateMachine stateMachine, InboundPacket inPacket, EAP eapPacket,
+                               RequestIdentifier identifier, InFlightRequest request) {
+        if (!radiusHedgeBudget.isEnabled() || request.server() == null) {
+            return;
+        }
+        radiusHedgeBudget.requestSent();
+        long delay = request.server().roundTripTimePercentile(radiusHedgePercentile);
+        if (delay < 0 || radiusServerPool.servers().size() < 2) {
+            // no latency measured yet or nowhere to hedge to
+            return;
+        }
         try {
-            SecretKeySpec keySpec = new SecretKeySpec(key.getBytes(), "HmacMD5");
-            Mac mac = Mac.getInstance("HmacMD5");
-            mac.init(keySpec);
-            newHash = mac.doFinal(radiusPacket.serialize());
-        } catch (Exception e) {
-            log.error("Failed to generate message authenticator: {}", e.getMessage());
+            executor.schedule(() -> sessionExecutor.execute(stateMachine.sessionId(),
+                    () -> hedge(stateMachine, inPacket, eapPacket, identifier, request)),
+                              delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
         }
-        radiusPacket.updateAttribute(RADIUSAttribute.RADIUS_ATTR_MESSAGE_AUTH, messageAuthenticator);
-        radiusPacket.setAuthenticator(authenticator);
-        // Compare the calculated Message-Authenticator with the one in the message
-        return Arrays.equals(newHash, messageAuthenticator);
     }
-    public void checkForPacketFromUnknownServer(String hostAddress) {
-            if (!hostAddress.equals(configuredAaaServerAddress)) {
-                 getConfiguredAaaServerAddress();
-                 if (!hostAddress.equals(configuredAaaServerAddress)) {
-                     aaaStatisticsManager.getAaaStats().incrementUnknownServerRx();
-                 }
+
+    private void hedge(StateMachine stateMachine, InboundPacket inPacket, EAP eapPacket,
+                       RequestIdentifier identifier, InFlightRequest request) {
+        // the response of the first server releases the hedge under the same lock
+        synchronized (request) {
+            if (idManager.getRequest(identifier) != request) {
+                // answered or given up meanwhile
+                return;
             }
+            RadiusServer secondary = radiusServerPool.selectSecondary(request.server());
+            if (secondary == null || !radiusHedgeBudget.tryHedge()) {
+                return;
+            }
+            RequestIdentifier hedgeIdentifier =
+                    idManager.getNewIdentifier(stateMachine.sessionId(), stateMachine.sessionKey());
+            if (hedgeIdentifier == null) {
+                // identifiers are better spent on new sessions
+                return;
+            }
+            InFlightRequest hedge = idManager.getRequest(hedgeIdentifier);
+            hedge.setServer(secondary);
+            request.linkHedge(identifier, hedge, hedgeIdentifier);
+
+            RadiusRequest.Encoder radiusPayload = processor.getRadiusPayload(stateMachine, hedge,
+                                                                             hedgeIdentifier.identifier(), eapPacket);
+            radiusPayload = pktCustomizer.customizePacket(radiusPayload, inPacket);
+            RadiusRequest radiusRequest = signRequest(radiusPayload, secondary.secret());
+            log.debug("RADIUS server {} is slow for request {}, hedging with {} on {}",
+                      request.server(), identifier, secondary, hedgeIdentifier);
+            aaaStatisticsManager.getAaaStats().incrementRadiusHedgedRequests();
+            sendRadiusPacket(radiusRequest, inPacket, hedgeIdentifier);
+        }
     }
 
     /**
-     * Send RADIUS packet to the RADIUS server.
+     * Gives up the other copy of a hedged request once one is answered, and
+     * moves the session to the server that answered first.
      *
-     * @param radiusPacket RADIUS packet to be sent to server.
-     * @param inPkt        Incoming EAPOL packet
+     * @param request      request that was answered, its identifier already released
+     * @param stateMachine state machine of the session, null if expired
      */
-    protected void sendRadiusPacket(RADIUS radiusPacket, InboundPacket inPkt) {
-        outPacketSet.add(radiusPacket.getIdentifier());
-        aaaStatisticsManager.getAaaStats().increaseOrDecreasePendingRequests(true);
-        aaaStatisticsManager.getAaaStats().increaseAccessRequestsTx();
-        aaaStatisticsManager.putOutgoingIdentifierToMap(radiusPacket.getIdentifier());
-        impl.sendRadiusPacket(radiusPacket, inPkt);
+    private void hedgeAnswered(InFlightRequest request, StateMachine stateMachine) {
+        InFlightRequest sibling;
+        // a hedge being sent for the request completes before its sibling is read
+        synchronized (request) {
+            sibling = request.sibling();
+            if (sibling == null) {
+                return;
+            }
+            if (idManager.getRequest(request.siblingIdentifier()) == sibling) {
+                releaseIdentifier(request.siblingIdentifier());
+            }
+        }
+        if (stateMachine != null && stateMachine.radiusServer() != request.server()) {
+            // the State attribute of the response binds the session to this server
+            aaaStatisticsManager.getAaaStats().incrementRadiusHedgeWins();
+            stateMachine.setRadiusServer(request.server());
+        }
     }
 
     /**
-     * Handles RADIUS packets.
+     * Releases a RADIUS request identifier that was allocated but no request
+     * was sent for.
+     *
+     * @param identifier request identifier to release
+     */
+    private void releaseUnusedIdentifier(RequestIdentifier identifier) {
+        aaaStatisticsManager.getAaaStats().incrementLeakedIdentifiers();
+        releaseIdentifier(identifier);
+    }
+
+    private void scheduleIdentifierReclaimer() {
+        try {
+            scheduledIdentifierReclaimer = timer.schedule(this::reclaimExpiredIdentifiers,
+                    IDENTIFIER_RECLAIM_PERIOD_IN_SECONDS, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    /**
+     * Reclaims the RADIUS request identifiers whose response did not arrive
+     * before their deadline, and checks again after a period.
+     */
+    private void reclaimExpiredIdentifiers() {
+        scheduleIdentifierReclaimer();
+        Map<RequestIdentifier, InFlightRequest> reclaimed = idManager.reclaimExpiredIdentifiers();
+        if (reclaimed.isEmpty()) {
+            return;
+        }
+        reclaimed.forEach((identifier, request) -> {
+            log.debug("No RADIUS response for request {} {}, reclaiming identifier", identifier, request);
+            if (request.isSent()) {
+                request.cancelResponse();
+                aaaStatisticsManager.getAaaStats().increaseOrDecreasePendingRequests(false);
+                if (request.server() != null) {
+                    request.server().requestDone();
+                }
+                radiusCircuitBreaker.onFailure(System.currentTimeMillis());
+            }
+        });
+        aaaStatisticsManager.getAaaStats().increaseReclaimedIdentifiers(reclaimed.size());
+        drainIdentifierWaitQueue();
+    }
+
+    private void scheduleSessionReaper() {
+        try {
+            scheduledSessionReaper = timer.schedule(this::reapIdleSessions,
+                    SESSION_REAP_PERIOD_IN_SECONDS, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    /**
+     * Evicts the sessions left idle or unauthorized for longer than the idle
+     * timeout, and checks again after a period.
+     */
+    private void reapIdleSessions() {
+        scheduleSessionReaper();
+        for (StateMachine stateMachine : sessionReaper.expired(stateMachines.values(), System.currentTimeMillis())) {
+            sessionExecutor.execute(stateMachine.sessionId(), () -> {
+                // the session may have been active since it was picked
+                if (sessionReaper.isExpired(stateMachine, System.currentTimeMillis())
+                        && evictSession(stateMachine)) {
+                    aaaStatisticsManager.getAaaStats().incrementIdleSessionsEvicted();
+                }
+            });
+        }
+    }
+
+    private void scheduleAuthRecordFlush() {
+        try {
+            scheduledAuthRecordFlush = timer.schedule(this::flushAuthRecords,
+                    Math.max(authRecordFlushIntervalInMillis, 1), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    /**
+     * Has the buffered authentication records written, and again after a period.
+     */
+    private void flushAuthRecords() {
+        scheduleAuthRecordFlush();
+        authRecordWriter.requestFlush();
+    }
+
+    /**
+     * Checks whether a new session may be added. At the maximum number of
+     * sessions, the least recently active sessions that are not authorized
+     * are picked for eviction first, and the new session is only rejected if
+     * none of them can be evicted.
+     *
+     * @return true if a new session may be added
+     */
+    private boolean admitSession() {
+        if (!sessionReaper.isFull(stateMachines.size() - sessionsBeingEvicted.size())) {
+            return true;
+        }
+        // one shard at a time picks the sessions to evict, the others then see its choice
+        synchronized (sessionsBeingEvicted) {
+            if (sessionReaper.isFull(stateMachines.size() - sessionsBeingEvicted.size())) {
+                evictSessionsOverCap();
+            }
+            if (!sessionReaper.isFull(stateMachines.size() - sessionsBeingEvicted.size())) {
+                return true;
+            }
+        }
+        aaaStatisticsManager.getAaaStats().incrementSessionCapRejections();
+        return false;
+    }
+
+    private void evictSessionsOverCap() {
+        List<StateMachine> sessions = stateMachines.values();
+        sessions.removeIf(sessionsBeingEvicted::contains);
+        List<StateMachine> evicted = sessionReaper.overCap(sessions);
+        log.info("Maximum number of sessions reached, evicting {} sessions", evicted.size());
+        sessionsBeingEvicted.addAll(evicted);
+        for (StateMachine stateMachine : evicted) {
+            // evicted on their own shard, after the work already queued for them
+            boolean queued = sessionExecutor.execute(stateMachine.sessionId(), () -> {
+                try {
+                    // the session may have been authorized since it was picked
+                    if (stateMachine.state() != StateMachine.STATE_AUTHORIZED && evictSession(stateMachine)) {
+                        aaaStatisticsManager.getAaaStats().incrementSessionCapEvictions();
+                    }
+                } finally {
+                    sessionsBeingEvicted.remove(stateMachine);
+                }
+            });
+            if (!queued) {
+                sessionsBeingEvicted.remove(stateMachine);
+            }
+        }
+    }
+
+    /**
+     * Removes a session from the session table, unless it was already
+     * removed or replaced.
+     *
+     * @param stateMachine session to evict
+     * @return true if the session was evicted
+     */
+    private boolean evictSession(StateMachine stateMachine) {
+        if (!stateMachines.remove(stateMachine.sessionKey(), stateMachine)) {
+            return false;
+        }
+        log.debug("Evicting session {}", stateMachine);
+        stateMachine.stop();
+        identifierWaitQueue.remove(stateMachine.sessionId());
+        // the other instances and the users list no longer see the session
+        ConnectPoint supplicantConnectPoint = stateMachine.supplicantConnectpoint();
+        if (supplicantConnectPoint != null) {
+            authRecordWriter.update(supplicantConnectPoint, null, true);
+        }
+        return true;
+    }
+
+    /**
+     * Queues an EAP response until a RADIUS request identifier is available.
+     *
+     * @param sessionId session the response belongs to
+     * @param inPacket  EAP response from the supplicant
+     */
+    private void waitForIdentifier(String sessionId, InboundPacket inPacket) {
+        if (!identifierWaitQueue.offer(sessionId, inPacket)) {
+            log.warn("All RADIUS identifiers are in use and {} sessions are waiting, "
+                    + "dropping EAP response from {}", identifierWaitQueue.size(), sessionId);
+            aaaStatisticsManager.getAaaStats().incrementIdentifierWaitQueueDropped();
+        }
+        // an identifier may have been released since the allocation failed
+        drainIdentifierWaitQueue();
+    }
+
+    /**
+     * Hands released RADIUS request identifiers over to the EAP responses
+     * waiting for one, in the order their sessions started waiting.
+     */
+    private void drainIdentifierWaitQueue() {
+        if (identifierWaitQueueDrains.getAndIncrement() != 0) {
+            // another thread is draining and will pick up this request
+            return;
+        }
+        int drains = 1;
+        do {
+            IdentifierWaitQueue.Waiting waiting;
+            while ((waiting = identifierWaitQueue.poll()) != null) {
+                StateMachine stateMachine = stateMachines.get(waiting.packet().receivedFrom());
+                if (stateMachine == null) {
+                    continue;
+                }
+                RequestIdentifier identifier =
+                        idManager.getNewIdentifier(stateMachine.sessionId(), stateMachine.sessionKey());
+                if (identifier == null) {
+                    identifierWaitQueue.pushBack(waiting);
+                    break;
+                }
+                aaaStatisticsManager.getAaaStats()
+                        .recordIdentifierWaitTime(System.currentTimeMillis() - waiting.enqueueTimeInMillis());
+                InboundPacket packet = waiting.packet();
+                sessionExecutor.execute(waiting.sessionId(),
+                        () -> processor.handleEapResponse(stateMachine, packet, identifier));
+            }
+            aaaStatisticsManager.getAaaStats().setIdentifierWaitQueueDepth(identifierWaitQueue.size());
+            drains = identifierWaitQueueDrains.addAndGet(-drains);
+        } while (drains != 0);
+    }
+
+    /**
+     * Returns the session a RADIUS response belongs to, without handling it.
+     *
+     * @param identifierSpace identifier space the response was received on
+     * @param identifier      identifier of the response
+     * @return session ID, null if the identifier is not allocated
+     */
+    String sessionIdOf(int identifierSpace, byte identifier) {
+        return idManager.getSessionId(RequestIdentifier.of(identifierSpace, identifier));
+    }
+
+    /**
+     * Handles RADIUS packets received in the default identifier space.
      *
      * @param radiusPacket RADIUS packet coming from the RADIUS server.
      * @throws DeserializationException if packet deserialization fails
      */
     public void handleRadiusPacket(RADIUS radiusPacket) throws DeserializationException {
+        handleRadiusPacket(radiusPacket, 0);
+    }
+
+    /**
+     * Handles RADIUS packets.
+     *
+     * @param radiusPacket    RADIUS packet coming from the RADIUS server.
+     * @param identifierSpace identifier space (source socket) the packet was received on
+     * @throws DeserializationException if packet deserialization fails
+     */
+    public void handleRadiusPacket(RADIUS radiusPacket, int identifierSpace) throws DeserializationException {
+        handleRadiusPacket(RadiusResponse.of(radiusPacket), identifierSpace);
+    }
+
+    /**
+     * Handles a RADIUS packet that no request was waiting for. Responses
+     * whose identifier is not allocated anymore are dropped before they
+     * are decoded.
+     *
+     * @param data            buffer holding the packet
+     * @param offset          offset of the packet in the buffer
+     * @param length          length of the packet
+     * @param identifierSpace identifier space (source socket) the packet was received on
+     * @throws DeserializationException if packet deserialization fails
+     */
+    public void handleRadiusPacket(byte[] data, int offset, int length, int identifierSpace)
+            throws DeserializationException {
+        byte identifier = RadiusResponse.identifier(data, offset, length);
+        if (identifierSpace == 0 && radiusOperationalStatusService.isRadiusResponseForOperationalStatus(identifier)) {
+            handleRadiusPacket(RadiusResponse.decode(data, offset, length), identifierSpace);
+            return;
+        }
+        String sessionId = sessionIdOf(identifierSpace, identifier);
+        if (sessionId == null) {
+            log.error("Invalid packet identifier {}, could not find corresponding "
+                    + "state machine ... exiting", identifier);
+            aaaStatisticsManager.getAaaStats().incrementNumberOfSessionsExpired();
+            aaaStatisticsManager.getAaaStats().countDroppedResponsesRx();
+            return;
+        }
+        RadiusResponse response = RadiusResponse.decode(data, offset, length);
+        sessionExecutor.execute(sessionId, () -> handleRadiusResponse(response, identifierSpace));
+    }
+
+    /**
+     * Handles RADIUS responses, on the thread of the session they belong to.
+     *
+     * @param radiusPacket    RADIUS response coming from the RADIUS server.
+     * @param identifierSpace identifier space (source socket) the packet was received on
+     * @throws DeserializationException if the EAP message of the response is malformed
+     */
+    public void handleRadiusPacket(RadiusResponse radiusPacket, int identifierSpace)
+            throws DeserializationException {
         if (log.isTraceEnabled()) {
             log.trace("Received RADIUS packet {}", radiusPacket);
         }
-        if (radiusOperationalStatusService.isRadiusResponseForOperationalStatus(radiusPacket.getIdentifier())) {
+        if (identifierSpace == 0 &&
+                radiusOperationalStatusService.isRadiusResponseForOperationalStatus(radiusPacket.identifier())) {
             radiusOperationalStatusService.handleRadiusPacketForOperationalStatus(radiusPacket);
             return;
         }
 
-        RequestIdentifier identifier = RequestIdentifier.of(radiusPacket.getIdentifier());
-        String sessionId = idManager.getSessionId(identifier);
+        RequestIdentifier identifier = RequestIdentifier.of(identifierSpace, radiusPacket.identifier());
+        InFlightRequest request = releaseIdentifier(identifier);
 
-        if (sessionId == null) {
+        if (request == null) {
             log.error("Invalid packet identifier {}, could not find corresponding "
-                    + "state machine ... exiting", radiusPacket.getIdentifier());
+                    + "state machine ... exiting", radiusPacket.identifier());
             aaaStatisticsManager.getAaaStats().incrementNumberOfSessionsExpired();
             aaaStatisticsManager.getAaaStats().countDroppedResponsesRx();
             return;
         }
+        boolean valid = checkReceivedPacketForValidValidator(radiusPacket, request);
+        if (valid) {
+            // only an authenticated response tells the server is healthy
+            radiusCircuitBreaker.onSuccess();
+            if (request.server() != null) {
+                request.server().responseReceived();
+            }
+        }
+        if (request.isSent()) {
+            long rtt = System.currentTimeMillis() - request.sentTimeInMillis();
+            // a spoofed or corrupted response does not skew the round trip times
+            if (valid) {
+                aaaStatisticsManager.recordRoundtripTime(rtt);
+                if (request.retransmits() == 0) {
+                    // the response of a retransmitted request may answer any of its copies
+                    retransmissionTimeout.addSample(rtt);
+                    if (request.server() != null) {
+                        request.server().addRoundTripTime(rtt);
+                    }
+                }
+            }
+            if (request.server() != null) {
+                radiusOperationalStatusService.recordResponse(request.server().config().name(), rtt, valid);
+            }
+        }
 
-        idManager.releaseIdentifier(identifier);
-        StateMachine stateMachine = stateMachines.get(sessionId);
+        StateMachine stateMachine = stateMachines.get(request.sessionKey());
+        hedgeAnswered(request, stateMachine);
         if (stateMachine == null) {
             log.error("Invalid packet identifier {}, could not find corresponding "
-                    + "state machine ... exiting", radiusPacket.getIdentifier());
+                    + "state machine ... exiting", radiusPacket.identifier());
             aaaStatisticsManager.getAaaStats().incrementNumberOfSessionsExpired();
             aaaStatisticsManager.getAaaStats().countDroppedResponsesRx();
             return;
         }
+        stateMachine.setLastActivityTime(System.currentTimeMillis());
 
         //instance of StateMachine using the sessionId for updating machine stats
-        StateMachine machineStats = stateMachines.get(stateMachine.sessionId());
+        StateMachine machineStats = stateMachines.get(stateMachine.sessionKey());
 
-        EAP eapPayload;
+        // the EAP message is decoded once, when it is first needed
+        EAP eapPayload = radiusPacket.eapMessage();
         Ethernet eth;
-        checkReceivedPacketForValidValidator(radiusPacket, stateMachine.requestAuthenticator());
 
         //increasing packets and octets received from server
         machineStats.incrementTotalPacketsReceived();
-        machineStats.incrementTotalOctetReceived(radiusPacket.decapsulateMessage().getLength());
+        machineStats.incrementTotalOctetReceived(eapPayload == null ? 0 : eapPayload.getLength());
 
-        if (outPacketSet.contains(radiusPacket.getIdentifier())) {
-            aaaStatisticsManager.getAaaStats().increaseOrDecreasePendingRequests(false);
-            outPacketSet.remove(new Byte(radiusPacket.getIdentifier()));
-        }
-        switch (radiusPacket.getCode()) {
+        switch (radiusPacket.code()) {
             case RADIUS.RADIUS_CODE_ACCESS_CHALLENGE:
                 log.debug("RADIUS packet: RADIUS_CODE_ACCESS_CHALLENGE");
-                RADIUSAttribute radiusAttrState = radiusPacket.getAttribute(RADIUSAttribute.RADIUS_ATTR_STATE);
-                byte[] challengeState = null;
-                if (radiusAttrState != null) {
-                    challengeState = radiusAttrState.getValue();
+                if (eapPayload == null) {
+                    throw new DeserializationException("Access-Challenge without EAP-Message");
                 }
-                eapPayload = radiusPacket.decapsulateMessage();
-                stateMachine.setChallengeInfo(eapPayload.getIdentifier(), challengeState);
+                stateMachine.setChallengeInfo(eapPayload.getIdentifier(), radiusPacket.state());
                 eth = buildEapolResponse(stateMachine.supplicantAddress(),
                         MacAddress.valueOf(nasMacAddress),
                         stateMachine.vlanId(),
@@ -557,8 +1391,10 @@ public class AaaManager
                 log.debug("Send EAP challenge response to supplicant {}", stateMachine.supplicantAddress().toString());
                 sendPacketToSupplicant(eth, stateMachine.supplicantConnectpoint(), true);
                 aaaStatisticsManager.getAaaStats().increaseChallengeResponsesRx();
-                outPacketSupp.add(eapPayload.getIdentifier());
-                aaaStatisticsManager.getAaaStats().incrementPendingResSupp();
+                if (!stateMachine.challengeSent(eapPayload.getIdentifier())) {
+                    // an unanswered challenge is replaced, it stays a single pending response
+                    aaaStatisticsManager.getAaaStats().incrementPendingResSupp();
+                }
                 //increasing packets send to server
                 machineStats.incrementTotalPacketsSent();
                 machineStats.incrementTotalOctetSent(eapPayload.getLength());
@@ -566,10 +1402,9 @@ public class AaaManager
             case RADIUS.RADIUS_CODE_ACCESS_ACCEPT:
                 log.debug("RADIUS packet: RADIUS_CODE_ACCESS_ACCEPT");
                 //send an EAPOL - Success to the supplicant.
-                byte[] eapMessageSuccess =
-                        radiusPacket.getAttribute(RADIUSAttribute.RADIUS_ATTR_EAP_MESSAGE).getValue();
-                eapPayload = EAP.deserializer().deserialize(
-                        eapMessageSuccess, 0, eapMessageSuccess.length);
+                if (eapPayload == null) {
+                    throw new DeserializationException("Access-Accept without EAP-Message");
+                }
                 eth = buildEapolResponse(stateMachine.supplicantAddress(),
                         MacAddress.valueOf(nasMacAddress),
                         stateMachine.vlanId(),
@@ -580,6 +1415,7 @@ public class AaaManager
                 aaaStatisticsManager.getAaaStats().incrementEapolAuthSuccessTrans();
 
                 stateMachine.authorizeAccess();
+                stateMachine.setRadiusServer(null);
                 aaaStatisticsManager.getAaaStats().increaseAcceptResponsesRx();
                 //increasing packets send to server
                 machineStats.incrementTotalPacketsSent();
@@ -588,17 +1424,11 @@ public class AaaManager
             case RADIUS.RADIUS_CODE_ACCESS_REJECT:
                 log.debug("RADIUS packet: RADIUS_CODE_ACCESS_REJECT");
                 //send an EAPOL - Failure to the supplicant.
-                byte[] eapMessageFailure;
-                eapPayload = new EAP();
-                RADIUSAttribute radiusAttrEap = radiusPacket.getAttribute(RADIUSAttribute.RADIUS_ATTR_EAP_MESSAGE);
-                if (radiusAttrEap == null) {
+                if (eapPayload == null) {
+                    eapPayload = new EAP();
                     eapPayload.setCode(EAP.FAILURE);
                     eapPayload.setIdentifier(stateMachine.challengeIdentifier());
                     eapPayload.setLength(EAP.EAP_HDR_LEN_SUC_FAIL);
-                } else {
-                    eapMessageFailure = radiusAttrEap.getValue();
-                    eapPayload = EAP.deserializer().deserialize(
-                            eapMessageFailure, 0, eapMessageFailure.length);
                 }
                 eth = buildEapolResponse(stateMachine.supplicantAddress(),
                         MacAddress.valueOf(nasMacAddress),
@@ -610,6 +1440,7 @@ public class AaaManager
                 aaaStatisticsManager.getAaaStats().incrementEapolauthFailureTrans();
 
                 stateMachine.denyAccess();
+                stateMachine.setRadiusServer(null);
                 aaaStatisticsManager.getAaaStats().increaseRejectResponsesRx();
                 //increasing packets send to server
                 machineStats.incrementTotalPacketsSent();
@@ -620,11 +1451,11 @@ public class AaaManager
                         .notify(new AaaMachineStatisticsEvent(AaaMachineStatisticsEvent.Type.STATS_UPDATE, machineObj));
                 break;
             default:
-                log.warn("Unknown RADIUS message received with code: {}", radiusPacket.getCode());
+                log.warn("Unknown RADIUS message received with code: {}", radiusPacket.code());
                 aaaStatisticsManager.getAaaStats().increaseUnknownTypeRx();
                 //increasing packets received to server
                 machineStats.incrementTotalPacketsReceived();
-                machineStats.incrementTotalOctetReceived(radiusPacket.decapsulateMessage().getLength());
+                machineStats.incrementTotalOctetReceived(eapPayload == null ? 0 : eapPayload.getLength());
         }
         aaaStatisticsManager.getAaaStats().countDroppedResponsesRx();
     }
@@ -657,33 +1488,57 @@ public class AaaManager
         return ToStringBuilder.reflectionToString(this);
     }
 
+    /**
+     * Gets records of authentications that are completed or in progress.
+     * <p>
+     * The buffered records are written first, on the calling thread, so that
+     * the records of the latest transitions are returned. The call then waits
+     * for the store to write at most one record per connect point with a
+     * pending update, after any flush already in progress.
+     * </p>
+     *
+     * @return list of authentication records
+     */
     @Override
     public Iterable<AuthenticationRecord> getAuthenticationRecords() {
-        return authentications.asJavaMap().values();
+        authRecordWriter.flush();
+        return authentications.records();
     }
 
     @Override
     public boolean removeAuthenticationStateByMac(MacAddress mac) {
+        // a buffered record could otherwise be missed, or written back after being removed;
+        // writes them on the calling thread, like getAuthenticationRecords()
+        authRecordWriter.flush();
 
-        Optional<Versioned<AuthenticationRecord>> r = authentications.values().stream()
-                .filter(v -> v.value().supplicantAddress().equals(mac))
+        Optional<AuthenticationRecord> r = authentications.records().stream()
+                .filter(v -> v.supplicantAddress().equals(mac))
                 .findFirst();
 
         if (r.isEmpty()) {
             return false;
         }
 
-        Versioned<AuthenticationRecord> removed =
-                authentications.remove(r.get().value().supplicantConnectPoint());
-
-        return removed != null;
+        return authentications.remove(r.get().supplicantConnectPoint());
     }
 
-    StateMachine getStateMachine(String sessionId) {
-        return stateMachines.get(sessionId);
+    StateMachine getStateMachine(ConnectPoint supplicantConnectPoint) {
+        return stateMachines.get(supplicantConnectPoint);
     }
 
+    /**
+     * Gets the ID of the session on a connect point, the ID is only built
+     * when there is no session there yet.
+     *
+     * @param cp connect point of the supplicant
+     * @return session ID
+     */
     private String sessionId(ConnectPoint cp) {
+        StateMachine stateMachine = stateMachines.get(cp);
+        return stateMachine != null ? stateMachine.sessionId() : newSessionId(cp);
+    }
+
+    private String newSessionId(ConnectPoint cp) {
         return cp.deviceId().toString() + cp.port().toString();
     }
 
@@ -706,7 +1561,7 @@ public class AaaManager
             // identify if incoming packet comes from supplicant (EAP) or RADIUS
             switch (EthType.EtherType.lookup(ethPkt.getEtherType())) {
                 case EAPOL:
-                    handleSupplicantPacket(context.inPacket());
+                    sessionExecutor.execute(sessionId(pkt.receivedFrom()), () -> handleSupplicantPacket(pkt));
                     break;
                 default:
                     // any other packets let the specific implementation handle
@@ -715,21 +1570,22 @@ public class AaaManager
         }
 
         /**
-         * Creates and initializes common fields of a RADIUS packet.
+         * Starts encoding a RADIUS request with its common fields.
          *
          * @param stateMachine state machine for the request
+         * @param request    in flight state of the request
+         * @param identifier identifier of the request
          * @param eapPacket  EAP packet
-         * @return RADIUS packet
+         * @return RADIUS request encoder
          */
-        private RADIUS getRadiusPayload(StateMachine stateMachine, byte identifier, EAP eapPacket) {
-            RADIUS radiusPayload =
-                    new RADIUS(RADIUS.RADIUS_CODE_ACCESS_REQUEST,
-                               eapPacket.getIdentifier());
+        private RadiusRequest.Encoder getRadiusPayload(StateMachine stateMachine, InFlightRequest request,
+                                                       byte identifier, EAP eapPacket) {
+            RadiusRequest.Encoder radiusPayload =
+                    RadiusRequest.encoder(RADIUS.RADIUS_CODE_ACCESS_REQUEST, identifier);
 
-            // set Request Authenticator in StateMachine
-            stateMachine.setRequestAuthenticator(radiusPayload.generateAuthCode());
+            // set Request Authenticator in the in flight request
+            request.setRequestAuthenticator(radiusPayload.requestAuthenticator());
 
-            radiusPayload.setIdentifier(identifier);
             radiusPayload.setAttribute(RADIUSAttribute.RADIUS_ATTR_USERNAME,
                                        stateMachine.username());
 
@@ -753,7 +1609,6 @@ public class AaaManager
 
             DeviceId deviceId = inPacket.receivedFrom().deviceId();
             PortNumber portNumber = inPacket.receivedFrom().port();
-            String sessionId = sessionId(inPacket.receivedFrom());
             EAPOL eapol = (EAPOL) ethPkt.getPayload();
             if (log.isTraceEnabled()) {
                 log.trace("Received EAPOL packet {} in enclosing packet {} from "
@@ -776,7 +1631,25 @@ public class AaaManager
                 aaaStatisticsManager.getAaaStats().incrementValidEapolFramesRx();
             }
 
-            StateMachine stateMachine = stateMachines.computeIfAbsent(sessionId, id -> new StateMachine(id, executor));
+            if (eapol.getEapolType() == EAPOL.EAPOL_START
+                    && !radiusCircuitBreaker.allowStart(System.currentTimeMillis())) {
+                // the RADIUS server is down, let the supplicant retry later
+                aaaStatisticsManager.getAaaStats().incrementRadiusBreakerPacedStarts();
+                return;
+            }
+
+            if (stateMachines.get(inPacket.receivedFrom()) == null && !admitSession()) {
+                log.debug("Maximum number of sessions reached, dropping EAPOL packet from {}",
+                          inPacket.receivedFrom());
+                return;
+            }
+
+            StateMachine stateMachine = stateMachines.computeIfAbsent(inPacket.receivedFrom(), key -> {
+                String id = newSessionId(inPacket.receivedFrom());
+                return new StateMachine(id, key, timer, task -> sessionExecutor.execute(id, task));
+            });
+            String sessionId = stateMachine.sessionId();
+            stateMachine.setLastActivityTime(System.currentTimeMillis());
             stateMachine.setEapolTypeVal(eapol.getEapolType());
 
             switch (eapol.getEapolType()) {
@@ -823,104 +1696,142 @@ public class AaaManager
 
                     break;
                 case EAPOL.EAPOL_PACKET:
-                    RADIUS radiusPayload;
-                    // check if this is a Response/Identify or  a Response/TLS
-                    EAP eapPacket = (EAP) eapol.getPayload();
-                    Byte identifier = new Byte(eapPacket.getIdentifier());
-
-                    // get identifier for request and store mapping to session ID
-                    RequestIdentifier radiusIdentifier = idManager.getNewIdentifier(sessionId);
-
-                    byte dataType = eapPacket.getDataType();
-                    switch (dataType) {
-
-                        case EAP.ATTR_IDENTITY:
-                            log.debug("EAP packet: EAPOL_PACKET ATTR_IDENTITY");
-                            //Setting the time of this response from RG, only when its not a re-transmission.
-                            if (stateMachine.getLastPacketReceivedTime() == 0) {
-                               stateMachine.setLastPacketReceivedTime(System.currentTimeMillis());
-                            }
-                            // request id access to RADIUS
-                            stateMachine.setUsername(eapPacket.getData());
-
-                            radiusPayload = getRadiusPayload(stateMachine, radiusIdentifier.identifier(), eapPacket);
-                            radiusPayload = pktCustomizer.customizePacket(radiusPayload, inPacket);
-                            radiusPayload.addMessageAuthenticator(AaaManager.this.radiusSecret);
-
-                            sendRadiusPacket(radiusPayload, inPacket);
-                            stateMachine.setWaitingForRadiusResponse(true);
-                            aaaStatisticsManager.getAaaStats().incrementEapolAtrrIdentity();
-                            // change the state to "PENDING"
-                            if (stateMachine.state() == StateMachine.STATE_PENDING) {
-                                aaaStatisticsManager.getAaaStats().increaseRequestReTx();
-                                stateMachine.incrementTotalPacketsSent();
-                                stateMachine.incrementTotalOctetSent(eapol.getPacketLength());
-                            }
-                            stateMachine.requestAccess();
-                            break;
-                        case EAP.ATTR_MD5:
-                            stateMachine.setLastPacketReceivedTime(System.currentTimeMillis());
-                            log.debug("EAP packet: EAPOL_PACKET ATTR_MD5");
-                            // verify if the EAP identifier corresponds to the
-                            // challenge identifier from the client state
-                            // machine.
-                            if (eapPacket.getIdentifier() == stateMachine.challengeIdentifier()) {
-                                //send the RADIUS challenge response
-                                radiusPayload = getRadiusPayload(stateMachine,
-                                        radiusIdentifier.identifier(), eapPacket);
-                                radiusPayload = pktCustomizer.customizePacket(radiusPayload, inPacket);
-
-                                if (stateMachine.challengeState() != null) {
-                                    radiusPayload.setAttribute(RADIUSAttribute.RADIUS_ATTR_STATE,
-                                            stateMachine.challengeState());
-                                }
-                                radiusPayload.addMessageAuthenticator(AaaManager.this.radiusSecret);
-                                if (outPacketSupp.contains(eapPacket.getIdentifier())) {
-                                    aaaStatisticsManager.getAaaStats().decrementPendingResSupp();
-                                    outPacketSupp.remove(identifier);
-                                }
-                                sendRadiusPacket(radiusPayload, inPacket);
-                                stateMachine.setWaitingForRadiusResponse(true);
-                                aaaStatisticsManager.getAaaStats().incrementEapolMd5RspChall();
-                            }
-                            break;
-                        case EAP.ATTR_TLS:
-                            log.debug("EAP packet: EAPOL_PACKET ATTR_TLS");
-                            // request id access to RADIUS
-                            radiusPayload = getRadiusPayload(stateMachine, radiusIdentifier.identifier(), eapPacket);
-                            radiusPayload = pktCustomizer.customizePacket(radiusPayload, inPacket);
-
-                            if (stateMachine.challengeState() != null) {
-                                radiusPayload.setAttribute(RADIUSAttribute.RADIUS_ATTR_STATE,
-                                        stateMachine.challengeState());
-                            }
-                            stateMachine.setRequestAuthenticator(radiusPayload.generateAuthCode());
-
-                            radiusPayload.addMessageAuthenticator(AaaManager.this.radiusSecret);
-                            if (outPacketSupp.contains(eapPacket.getIdentifier())) {
-                                aaaStatisticsManager.getAaaStats().decrementPendingResSupp();
-                                outPacketSupp.remove(identifier);
-                            }
-                            sendRadiusPacket(radiusPayload, inPacket);
-                            stateMachine.setWaitingForRadiusResponse(true);
-                            aaaStatisticsManager.getAaaStats().incrementEapolTlsRespChall();
-
-                            if (stateMachine.state() != StateMachine.STATE_PENDING) {
-                                stateMachine.requestAccess();
-                            }
-
-                            break;
-                        default:
-                            log.warn("Unknown EAP packet type");
-                            return;
+                    if (!radiusCircuitBreaker.allowRequest(System.currentTimeMillis())) {
+                        // the supplicant retransmits its response, no need to keep it
+                        aaaStatisticsManager.getAaaStats().incrementRadiusBreakerShedResponses();
+                        return;
                     }
-                    break;
+                    // get identifier for request and store mapping to session ID, unless
+                    // other sessions are already waiting for one
+                    RequestIdentifier radiusIdentifier = identifierWaitQueue.isEmpty()
+                            ? idManager.getNewIdentifier(sessionId, stateMachine.sessionKey()) : null;
+                    if (radiusIdentifier == null) {
+                        waitForIdentifier(sessionId, inPacket);
+                    } else {
+                        handleEapResponse(stateMachine, inPacket, radiusIdentifier);
+                    }
+                    return;
                 default:
                     log.debug("Skipping EAPOL message {}", eapol.getEapolType());
             }
             aaaStatisticsManager.getAaaStats().countTransRespNotNak();
             aaaStatisticsManager.getAaaStats().countEapolResIdentityMsgTrans();
         }
+
+        /**
+         * Handles an EAP response from the supplicant for which a RADIUS
+         * request identifier has been allocated.
+         *
+         * @param stateMachine     state machine of the session
+         * @param inPacket         Ethernet packet coming from the supplicant
+         * @param radiusIdentifier identifier allocated for the RADIUS request
+         */
+        private void handleEapResponse(StateMachine stateMachine, InboundPacket inPacket,
+                                       RequestIdentifier radiusIdentifier) {
+            InFlightRequest request = idManager.getRequest(radiusIdentifier);
+            if (request == null) {
+                // reclaimed while the response was waiting
+                return;
+            }
+            // the conversation stays on its server as long as the server is in rotation
+            RadiusServer server = radiusServerPool.select(stateMachine.radiusServer());
+            stateMachine.setRadiusServer(server);
+            request.setServer(server);
+            EAPOL eapol = (EAPOL) inPacket.parsed().getPayload();
+            RadiusRequest.Encoder radiusPayload;
+            // check if this is a Response/Identify or  a Response/TLS
+            EAP eapPacket = (EAP) eapol.getPayload();
+
+            byte dataType = eapPacket.getDataType();
+            switch (dataType) {
+
+                case EAP.ATTR_IDENTITY:
+                    log.debug("EAP packet: EAPOL_PACKET ATTR_IDENTITY");
+                    //Setting the time of this response from RG, only when its not a re-transmission.
+                    if (stateMachine.getLastPacketReceivedTime() == 0) {
+                       stateMachine.setLastPacketReceivedTime(System.currentTimeMillis());
+                    }
+                    // request id access to RADIUS
+                    stateMachine.setUsername(eapPacket.getData());
+
+                    radiusPayload = getRadiusPayload(stateMachine, request, radiusIdentifier.identifier(),
+                            eapPacket);
+                    radiusPayload = pktCustomizer.customizePacket(radiusPayload, inPacket);
+
+                    sendRadiusPacket(signRequest(radiusPayload, server.secret()), inPacket, radiusIdentifier);
+                    if (stateMachine.challengeState() == null) {
+                        // no server holds state for the session yet, it may be hedged
+                        scheduleHedge(stateMachine, inPacket, eapPacket, radiusIdentifier, request);
+                    }
+                    stateMachine.setWaitingForRadiusResponse(true);
+                    aaaStatisticsManager.getAaaStats().incrementEapolAtrrIdentity();
+                    // change the state to "PENDING"
+                    if (stateMachine.state() == StateMachine.STATE_PENDING) {
+                        aaaStatisticsManager.getAaaStats().increaseRequestReTx();
+                        stateMachine.incrementTotalPacketsSent();
+                        stateMachine.incrementTotalOctetSent(eapol.getPacketLength());
+                    }
+                    stateMachine.requestAccess();
+                    break;
+                case EAP.ATTR_MD5:
+                    stateMachine.setLastPacketReceivedTime(System.currentTimeMillis());
+                    log.debug("EAP packet: EAPOL_PACKET ATTR_MD5");
+                    // verify if the EAP identifier corresponds to the
+                    // challenge identifier from the client state
+                    // machine.
+                    if (eapPacket.getIdentifier() == stateMachine.challengeIdentifier()) {
+                        //send the RADIUS challenge response
+                        radiusPayload = getRadiusPayload(stateMachine, request,
+                                radiusIdentifier.identifier(), eapPacket);
+                        radiusPayload = pktCustomizer.customizePacket(radiusPayload, inPacket);
+
+                        if (stateMachine.challengeState() != null) {
+                            radiusPayload.setAttribute(RADIUSAttribute.RADIUS_ATTR_STATE,
+                                    stateMachine.challengeState());
+                        }
+                        RadiusRequest radiusRequest = signRequest(radiusPayload, server.secret());
+                        if (stateMachine.challengeAnswered(eapPacket.getIdentifier())) {
+                            aaaStatisticsManager.getAaaStats().decrementPendingResSupp();
+                        }
+                        sendRadiusPacket(radiusRequest, inPacket, radiusIdentifier);
+                        stateMachine.setWaitingForRadiusResponse(true);
+                        aaaStatisticsManager.getAaaStats().incrementEapolMd5RspChall();
+                    } else {
+                        releaseUnusedIdentifier(radiusIdentifier);
+                    }
+                    break;
+                case EAP.ATTR_TLS:
+                    log.debug("EAP packet: EAPOL_PACKET ATTR_TLS");
+                    // request id access to RADIUS
+                    radiusPayload = getRadiusPayload(stateMachine, request, radiusIdentifier.identifier(),
+                            eapPacket);
+                    radiusPayload = pktCustomizer.customizePacket(radiusPayload, inPacket);
+
+                    if (stateMachine.challengeState() != null) {
+                        radiusPayload.setAttribute(RADIUSAttribute.RADIUS_ATTR_STATE,
+                                stateMachine.challengeState());
+                    }
+                    RadiusRequest radiusRequest = signRequest(radiusPayload, server.secret());
+                    if (stateMachine.challengeAnswered(eapPacket.getIdentifier())) {
+                        aaaStatisticsManager.getAaaStats().decrementPendingResSupp();
+                    }
+                    sendRadiusPacket(radiusRequest, inPacket, radiusIdentifier);
+                    stateMachine.setWaitingForRadiusResponse(true);
+                    aaaStatisticsManager.getAaaStats().incrementEapolTlsRespChall();
+
+                    if (stateMachine.state() != StateMachine.STATE_PENDING) {
+                        stateMachine.requestAccess();
+                    }
+
+                    break;
+                default:
+                    log.warn("Unknown EAP packet type");
+                    releaseUnusedIdentifier(radiusIdentifier);
+                    return;
+            }
+            aaaStatisticsManager.getAaaStats().countTransRespNotNak();
+            aaaStatisticsManager.getAaaStats().countEapolResIdentityMsgTrans();
+        }
     }
 
     /**
@@ -937,19 +1848,105 @@ public class AaaManager
                 handleStateMachineTimeout(authenticationEvent.subject());
             }
 
+            // written behind, the end of an authentication without waiting for the next flush
             AuthenticationRecord record = authenticationEvent.authenticationRecord();
-            if (record == null) {
-                authentications.remove(authenticationEvent.subject());
-            } else {
-                authentications.put(authenticationEvent.subject(), record);
+            boolean terminal = record == null
+                    || authenticationEvent.type() == AuthenticationEvent.Type.APPROVED
+                    || authenticationEvent.type() == AuthenticationEvent.Type.DENIED;
+            if (authRecordWriter.update(authenticationEvent.subject(), record, terminal)) {
+                aaaStatisticsManager.getAaaStats().incrementAuthRecordWritesCoalesced();
             }
 
             post(authenticationEvent);
         }
     }
 
+    /**
+     * Authentication records in a strongly consistent map, every write goes
+     * through consensus.
+     */
+    private class ConsistentAuthenticationRecordStore implements AuthenticationRecordStore {
+
+        private final ConsistentMap<ConnectPoint, AuthenticationRecord> records;
+
+        ConsistentAuthenticationRecordStore(KryoNamespace serializer) {
+            records = storageService.<ConnectPoint, AuthenticationRecord>consistentMapBuilder()
+                    .withApplicationId(appId)
+                    .withName("authentications")
+                    .withSerializer(Serializer.using(serializer))
+                    .build();
+            records.addListener(mapListener);
+        }
+
+        @Override
+        public void put(ConnectPoint supplicantConnectPoint, AuthenticationRecord record) {
+            records.put(supplicantConnectPoint, record);
+        }
+
+        @Override
+        public boolean remove(ConnectPoint supplicantConnectPoint) {
+            return records.remove(supplicantConnectPoint) != null;
+        }
+
+        @Override
+        public Collection<AuthenticationRecord> records() {
+            return records.asJavaMap().values();
+        }
+
+        @Override
+        public void close() {
+            records.removeListener(mapListener);
+        }
+    }
+
+    /**
+     * Authentication records in an eventually consistent map, written and
+     * read locally and gossiped to the other instances.
+     */
+    private class EventuallyConsistentAuthenticationRecordStore implements AuthenticationRecordStore {
+
+        private final EventuallyConsistentMap<ConnectPoint, AuthenticationRecord> records;
+
+        EventuallyConsistentAuthenticationRecordStore(KryoNamespace serializer) {
+            records = storageService.<ConnectPoint, AuthenticationRecord>eventuallyConsistentMapBuilder()
+                    .withName("authentications")
+                    .withSerializer(serializer)
+                    .withTimestampProvider((k, v) -> new WallClockTimestamp())
+                    .build();
+            records.addListener(ecMapListener);
+        }
+
+        @Override
+        public void put(ConnectPoint supplicantConnectPoint, AuthenticationRecord record) {
+            records.put(supplicantConnectPoint, record);
+        }
+
+        @Override
+        public boolean remove(ConnectPoint supplicantConnectPoint) {
+            return records.remove(supplicantConnectPoint) != null;
+        }
+
+        @Override
+        public Collection<AuthenticationRecord> records() {
+            return records.values();
+        }
+
+        @Override
+        public void close() {
+            records.removeListener(ecMapListener);
+            records.destroy();
+        }
+    }
+
     private void handleStateMachineTimeout(ConnectPoint supplicantConnectPoint) {
-        StateMachine stateMachine = stateMachines.remove(sessionId(supplicantConnectPoint));
+        // runs on the executor shard of the session timing out, and a session
+        // is stopped as it leaves the table, so the one found is still that one
+        StateMachine stateMachine = stateMachines.get(supplicantConnectPoint);
+        if (stateMachine == null || !stateMachines.remove(stateMachine.sessionKey(), stateMachine)) {
+            return;
+        }
+        stateMachine.stop();
+        identifierWaitQueue.remove(stateMachine.sessionId());
 
         //pushing captured machine stats to kafka
         stateMachine.setSessionTerminateReason("Time out");
@@ -962,8 +1959,6 @@ public class AaaManager
         if (stateMachine.state() == StateMachine.STATE_PENDING && stateMachine.isWaitingForRadiusResponse()) {
             aaaStatisticsManager.getAaaStats().increaseTimedOutPackets();
         }
-
-        StateMachine.deleteStateMachineMapping(stateMachine);
     }
 
     /**
@@ -1000,6 +1995,13 @@ public class AaaManager
             if (newCfg.radiusSecret() != null) {
                 radiusSecret = newCfg.radiusSecret();
             }
+            RadiusServerPool.LoadBalancing loadBalancing =
+                    RadiusServerPool.LoadBalancing.getValue(newCfg.radiusLoadBalancing());
+            if (loadBalancing == null) {
+                log.warn("Unknown RADIUS load balancing {}, keeping the current one",
+                         newCfg.radiusLoadBalancing());
+            }
+            radiusServerPool.configure(newCfg.radiusServers(), loadBalancing, newCfg.radiusHostCacheTtl());
 
             boolean reconfigureCustomizer = false;
             if (customizer == null || !customizer.equals(newCfg.radiusPktCustomizer())) {
@@ -1008,21 +2010,12 @@ public class AaaManager
                 reconfigureCustomizer = true;
             }
 
-            if (radiusConnectionType == null
+            boolean interceptsChanged = radiusConnectionType == null
                     || reconfigureCustomizer
-                    || !radiusConnectionType.equals(newCfg.radiusConnectionType())) {
-                radiusConnectionType = newCfg.radiusConnectionType();
-                if (impl != null) {
-                    impl.withdrawIntercepts();
-                    impl.clearLocalState();
-                }
-                configureRadiusCommunication();
-                impl.initializeLocalState(newCfg);
-                impl.requestIntercepts();
-            } else if (impl != null) {
-                impl.clearLocalState();
-                impl.initializeLocalState(newCfg);
-            }
+                    || !radiusConnectionType.equals(newCfg.radiusConnectionType());
+            radiusConnectionType = newCfg.radiusConnectionType();
+            // requests in flight stay on the communicator they were sent with
+            switchRadiusCommunicator(newCfg, interceptsChanged);
         }
 
         @Override
@@ -1044,26 +2037,45 @@ public class AaaManager
         @Override
         public void event(MapEvent<ConnectPoint, AuthenticationRecord> event) {
             if (event.type() == MapEvent.Type.REMOVE) {
-                // remove local state machine if user has requested remove
-                StateMachine sm = stateMachines.remove(sessionId(event.key()));
-                if (sm != null) {
-                    sm.stop();
-                }
+                handleAuthenticationRecordRemoved(event.key());
+            }
+        }
+    }
+
+    private class InternalEcMapEventListener
+            implements EventuallyConsistentMapListener<ConnectPoint, AuthenticationRecord> {
+        @Override
+        public void event(EventuallyConsistentMapEvent<ConnectPoint, AuthenticationRecord> event) {
+            if (event.type() == EventuallyConsistentMapEvent.Type.REMOVE) {
+                handleAuthenticationRecordRemoved(event.key());
             }
         }
     }
 
+    private void handleAuthenticationRecordRemoved(ConnectPoint supplicantConnectPoint) {
+        // remove local state machine if user has requested remove
+        String sessionId = sessionId(supplicantConnectPoint);
+        sessionExecutor.execute(sessionId, () -> {
+            StateMachine sm = stateMachines.remove(supplicantConnectPoint);
+            identifierWaitQueue.remove(sessionId);
+            if (sm != null) {
+                sm.stop();
+            }
+        });
+    }
+
     private class InternalDeviceListener implements DeviceListener {
         @Override
         public void event(DeviceEvent event) {
             DeviceId deviceId = event.subject().id();
             switch (event.type()) {
                 case PORT_REMOVED:
-                    PortNumber portNumber = event.port().number();
-                    String sessionId = deviceId.toString() + portNumber.toString();
+                    ConnectPoint cp = new ConnectPoint(deviceId, event.port().number());
+                    long sessionKey = stateMachines.existingKeyOf(cp);
+                    String sessionId = sessionId(cp);
                     log.debug("Received PORT_REMOVED event. Clearing AAA Session with Id {}", sessionId);
-                    flushStateMachineSession(sessionId,
-                            StateMachine.SessionTerminationReasons.PORT_REMOVED.getReason());
+                    sessionExecutor.execute(sessionId, () -> flushStateMachineSession(sessionKey, sessionId,
+                            StateMachine.SessionTerminationReasons.PORT_REMOVED.getReason()));
 
                     break;
                 case DEVICE_AVAILABILITY_CHANGED:
@@ -1084,23 +2096,23 @@ public class AaaManager
         }
 
         private void clearAllSessionStateForDevice(DeviceId deviceId) {
-            Set<String> associatedSessions = Sets.newHashSet();
-            for (Entry<String, StateMachine> stateMachineEntry : stateMachines.entrySet()) {
-                ConnectPoint cp = stateMachineEntry.getValue().supplicantConnectpoint();
-                if (cp != null && cp.deviceId().toString().equals(deviceId.toString())) {
-                    associatedSessions.add(stateMachineEntry.getKey());
+            List<StateMachine> associatedSessions = Lists.newArrayList();
+            for (StateMachine stateMachine : stateMachines.values()) {
+                ConnectPoint cp = stateMachine.supplicantConnectpoint();
+                if (cp != null && cp.deviceId().equals(deviceId)) {
+                    associatedSessions.add(stateMachine);
                 }
             }
 
-            for (String session : associatedSessions) {
-                log.debug("Clearing AAA Session {} associated with Removed Device", session);
-                flushStateMachineSession(session,
-                       StateMachine.SessionTerminationReasons.DEVICE_REMOVED.getReason());
+            for (StateMachine session : associatedSessions) {
+                log.debug("Clearing AAA Session {} associated with Removed Device", session.sessionId());
+                sessionExecutor.execute(session.sessionId(), () -> flushStateMachineSession(session.sessionKey(),
+                       session.sessionId(), StateMachine.SessionTerminationReasons.DEVICE_REMOVED.getReason()));
             }
         }
 
-        private void flushStateMachineSession(String sessionId, String terminationReason) {
-            StateMachine stateMachine = stateMachines.get(sessionId);
+        private void flushStateMachineSession(long sessionKey, String sessionId, String terminationReason) {
+            StateMachine stateMachine = stateMachines.get(sessionKey);
             if (stateMachine != null) {
                 stateMachine.setSessionTerminateReason(terminationReason);
             }
@@ -1110,9 +2122,10 @@ public class AaaManager
             aaaSupplicantStatsManager.getMachineStatsDelegate()
                    .notify(new AaaMachineStatisticsEvent(AaaMachineStatisticsEvent.Type.STATS_UPDATE, obj));
 
-            StateMachine removed = stateMachines.remove(sessionId);
+            StateMachine removed = stateMachines.remove(sessionKey);
+            identifierWaitQueue.remove(sessionId);
             if (removed != null) {
-                StateMachine.deleteStateMachineMapping(removed);
+                removed.stop();
             }
         }
     }
@@ -1155,6 +2168,28 @@ public class AaaManager
             log.debug("InvalidBodyLength---" + aaaStatisticsManager.getAaaStats().getInvalidBodyLength());
             log.debug("ValidEapolFramesRx---" + aaaStatisticsManager.getAaaStats().getValidEapolFramesRx());
             log.debug("PendingResSupp---" + aaaStatisticsManager.getAaaStats().getPendingResSupp());
+            log.debug("IdentifierWaitQueueDepth---" +
+                    aaaStatisticsManager.getAaaStats().getIdentifierWaitQueueDepth());
+            log.debug("IdentifierWaitQueueDropped---" +
+                    aaaStatisticsManager.getAaaStats().getIdentifierWaitQueueDropped());
+            log.debug("IdentifierWaitTimeMillis---" +
+                    aaaStatisticsManager.getAaaStats().getIdentifierWaitTimeMillis());
+            log.debug("LeakedIdentifiers---" + aaaStatisticsManager.getAaaStats().getLeakedIdentifiers());
+            log.debug("ReclaimedIdentifiers---" + aaaStatisticsManager.getAaaStats().getReclaimedIdentifiers());
+            log.debug("RadiusBreakerState---" + aaaStatisticsManager.getAaaStats().getRadiusBreakerState());
+            log.debug("RadiusBreakerTrips---" + aaaStatisticsManager.getAaaStats().getRadiusBreakerTrips());
+            log.debug("RadiusBreakerShedResponses---" +
+                    aaaStatisticsManager.getAaaStats().getRadiusBreakerShedResponses());
+            log.debug("RadiusBreakerPacedStarts---" +
+                    aaaStatisticsManager.getAaaStats().getRadiusBreakerPacedStarts());
+            log.debug("RadiusHedgedRequests---" + aaaStatisticsManager.getAaaStats().getRadiusHedgedRequests());
+            log.debug("RadiusHedgeWins---" + aaaStatisticsManager.getAaaStats().getRadiusHedgeWins());
+            log.debug("IdleSessionsEvicted---" + aaaStatisticsManager.getAaaStats().getIdleSessionsEvicted());
+            log.debug("SessionCapEvictions---" + aaaStatisticsManager.getAaaStats().getSessionCapEvictions());
+            log.debug("SessionCapRejections---" + aaaStatisticsManager.getAaaStats().getSessionCapRejections());
+            log.debug("AuthRecordWritesCoalesced---"
+                    + aaaStatisticsManager.getAaaStats().getAuthRecordWritesCoalesced());
+            log.debug("SessionTasksDropped---" + aaaStatisticsManager.getAaaStats().getSessionTasksDropped());
             log.debug("ResIdEapFramesRx---" + aaaStatisticsManager.getAaaStats().getEapolattrIdentity());
             aaaStatisticsManager.getStatsDelegate().
                 notify(new AuthenticationStatisticsEvent(AuthenticationStatisticsEvent.Type.STATS_UPDATE,
@@ -1165,14 +2200,23 @@ public class AaaManager
     private class ServerStatusChecker implements Runnable {
         @Override
         public void run() {
-            log.debug("Notifying RadiusOperationalStatusEvent");
-            radiusOperationalStatusService.checkServerOperationalStatus();
-            log.trace("--POSTING--" + radiusOperationalStatusService.getRadiusServerOperationalStatus());
+            log.debug("Checking RADIUS server operational status");
+            // the probes complete on the communicator's timer or receive
+            // threads, this executor is never held while they are pending
+            List<RadiusServerConfig> servers = radiusServerPool.servers().stream()
+                    .map(RadiusServer::resolvedConfig)
+                    .collect(Collectors.toList());
+            radiusOperationalStatusService.checkServerOperationalStatus(servers)
+                    .thenAccept(this::notifyStatus);
+        }
+
+        private void notifyStatus(RadiusOperationalStatusService.OperationalStatus status) {
+            log.trace("--POSTING--" + status);
+            radiusCircuitBreaker.onOperationalStatus(status, System.currentTimeMillis());
             radiusOperationalStatusService.getRadiusOprStDelegate()
                 .notify(new RadiusOperationalStatusEvent(
                         RadiusOperationalStatusEvent.Type.RADIUS_OPERATIONAL_STATUS,
-                        radiusOperationalStatusService.
-                        getRadiusServerOperationalStatus()));
+                        status.toString(), radiusOperationalStatusService.getServerHealth()));
         }
 
     }
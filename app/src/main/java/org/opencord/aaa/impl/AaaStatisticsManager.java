@@ -27,8 +27,6 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.slf4j.LoggerFactory.getLogger;
@@ -49,7 +47,6 @@ implements AuthenticationStatisticsService {
 
     private final Logger log = getLogger(getClass());
     private AaaStatistics aaaStats;
-    public Map<Byte, Long> outgoingPacketMap = new HashMap<Byte, Long>();
     private static final int PACKET_COUNT_FOR_AVERAGE_RTT_CALCULATION = 5;
 
     @Override
@@ -71,14 +68,11 @@ implements AuthenticationStatisticsService {
     }
 
     @Override
-    public void handleRoundtripTime(byte inPacketIdentifier) {
-        long inTimeInMilis = System.currentTimeMillis();
-        if (outgoingPacketMap.containsKey(inPacketIdentifier)) {
-            if (aaaStats.getPacketRoundTripTimeListSize() > PACKET_COUNT_FOR_AVERAGE_RTT_CALCULATION) {
-                aaaStats.getPacketRoundTripTimeListRemoveFirst();
-            }
-            aaaStats.getPacketRoundTripTimeListAdd(inTimeInMilis - outgoingPacketMap.get(inPacketIdentifier));
+    public synchronized void recordRoundtripTime(long roundtripTimeInMillis) {
+        if (aaaStats.getPacketRoundTripTimeListSize() > PACKET_COUNT_FOR_AVERAGE_RTT_CALCULATION) {
+            aaaStats.getPacketRoundTripTimeListRemoveFirst();
         }
+        aaaStats.getPacketRoundTripTimeListAdd(roundtripTimeInMillis);
     }
 
     @Override
@@ -87,18 +81,13 @@ implements AuthenticationStatisticsService {
     }
 
     @Override
-    public void calculatePacketRoundtripTime() {
+    public synchronized void calculatePacketRoundtripTime() {
         if (aaaStats.getPacketRoundTripTimeListSize() > 0) {
             long avg = (long) aaaStats.getPacketRoundTripTimeList().stream().mapToLong(i -> i).average().getAsDouble();
             aaaStats.setRequestRttMilis(new AtomicLong(avg));
         }
     }
 
-    @Override
-    public void putOutgoingIdentifierToMap(byte outPacketIdentifier) {
-        outgoingPacketMap.put(outPacketIdentifier, System.currentTimeMillis());
-    }
-
     /**
      *Delegate allowing the StateMachine to notify us of events.
      */
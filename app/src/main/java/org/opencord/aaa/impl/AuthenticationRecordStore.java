@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import org.onosproject.net.ConnectPoint;
+import org.opencord.aaa.AuthenticationRecord;
+
+import java.util.Collection;
+
+/**
+ * Distributed store of the authentication records, keyed by the connect
+ * point of the supplicant.
+ */
+public interface AuthenticationRecordStore {
+
+    /**
+     * Writes the record of a connect point.
+     *
+     * @param supplicantConnectPoint connect point of the supplicant
+     * @param record                 authentication record
+     */
+    void put(ConnectPoint supplicantConnectPoint, AuthenticationRecord record);
+
+    /**
+     * Removes the record of a connect point.
+     *
+     * @param supplicantConnectPoint connect point of the supplicant
+     * @return true if the connect point had a record
+     */
+    boolean remove(ConnectPoint supplicantConnectPoint);
+
+    /**
+     * Gets the records of all the connect points.
+     *
+     * @return authentication records
+     */
+    Collection<AuthenticationRecord> records();
+
+    /**
+     * Stops using the store on this instance and releases what it holds
+     * locally, such as listeners and background tasks. The records are not
+     * removed, the other instances keep them.
+     */
+    void close();
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import com.google.common.collect.Maps;
+import org.onosproject.net.ConnectPoint;
+import org.opencord.aaa.AuthenticationRecord;
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Writes the authentication records to the store behind the state machines.
+ * <p>
+ * The updates are buffered per connect point, and only the latest one of a
+ * connect point is written, so a supplicant going through several states
+ * between two flushes costs a single write. The buffer is flushed on the
+ * given executor when the caller asks for it periodically, and as soon as
+ * it holds a batch of updates or an update of a terminal state.
+ * </p>
+ */
+public class AuthenticationRecordWriter {
+
+    private final Logger log = getLogger(getClass());
+
+    private final AuthenticationRecordStore store;
+
+    private final Executor executor;
+
+    // latest update of each connect point not written yet
+    private final ConcurrentMap<ConnectPoint, Update> pending = Maps.newConcurrentMap();
+
+    // set while a flush is queued on the executor
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private volatile int batchSize;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param store     store the records are written to
+     * @param executor  runs the flushes, a single thread of its own as writes may block
+     * @param batchSize number of buffered updates flushed without waiting, 1 to write every update
+     */
+    public AuthenticationRecordWriter(AuthenticationRecordStore store, Executor executor, int batchSize) {
+        this.store = store;
+        this.executor = executor;
+        configure(batchSize);
+    }
+
+    /**
+     * Changes the number of buffered updates flushed without waiting.
+     *
+     * @param batchSize number of updates, 1 to write every update
+     */
+    public void configure(int batchSize) {
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    /**
+     * Buffers the record of a connect point, replacing the one buffered for
+     * it if not written yet.
+     *
+     * @param supplicantConnectPoint connect point of the supplicant
+     * @param record                 authentication record, null to remove it
+     * @param terminal               true if the authentication is over, so it is written without waiting
+     * @return true if an update of the connect point not written yet was replaced
+     */
+    public boolean update(ConnectPoint supplicantConnectPoint, AuthenticationRecord record, boolean terminal) {
+        Update replaced = pending.put(supplicantConnectPoint, new Update(record));
+        if (terminal || pending.size() >= batchSize) {
+            requestFlush();
+        }
+        return replaced != null;
+    }
+
+    /**
+     * Gets the number of updates not written yet.
+     *
+     * @return number of connect points with an update not written yet
+     */
+    public int pendingUpdates() {
+        return pending.size();
+    }
+
+    /**
+     * Has the buffered updates written on the executor, unless a flush is
+     * already queued.
+     */
+    public void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        } catch (RejectedExecutionException e) {
+            // shutting down, the last flush writes the buffered updates
+            flushRequested.set(false);
+        }
+    }
+
+    /**
+     * Writes the buffered updates to the store, on the calling thread. Flushes
+     * run one at a time so that the updates of a connect point are written in
+     * order, a caller waits for the flush in progress before its own.
+     */
+    public synchronized void flush() {
+        Map<ConnectPoint, Update> failed = Maps.newHashMap();
+        for (Map.Entry<ConnectPoint, Update> entry : pending.entrySet()) {
+            ConnectPoint supplicantConnectPoint = entry.getKey();
+            Update update = entry.getValue();
+            // a newer update stays buffered for the next flush
+            if (!pending.remove(supplicantConnectPoint, update)) {
+                continue;
+            }
+            try {
+                if (update.record == null) {
+                    store.remove(supplicantConnectPoint);
+                } else {
+                    store.put(supplicantConnectPoint, update.record);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to write the authentication record of {}, retrying on the next flush",
+                         supplicantConnectPoint, e);
+                failed.put(supplicantConnectPoint, update);
+            }
+        }
+        failed.forEach(pending::putIfAbsent);
+    }
+
+    /**
+     * Update of the record of a connect point, a distinct object per update
+     * so that a flush only removes the update it writes.
+     */
+    private static final class Update {
+        private final AuthenticationRecord record;
+
+        private Update(AuthenticationRecord record) {
+            this.record = record;
+        }
+    }
+}
@@ -18,53 +18,162 @@ package org.opencord.aaa.impl;
 
 import com.google.common.collect.Maps;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
- * Manages allocating request identifiers and mapping them to sessions.
+ * Manages allocating request identifiers and the table of RADIUS requests
+ * in flight.
+ * <p>
+ * Identifiers are allocated from one or more identifier spaces, one per
+ * RADIUS source socket, each holding its own 8 bit identifier range.
+ * Allocation never blocks; when every space is exhausted no identifier
+ * is returned.
+ * </p>
+ * <p>
+ * Each space has a preallocated table indexed by identifier that holds the
+ * {@link InFlightRequest} the identifier is allocated to, so a response is
+ * matched to its request without any hashing.
+ * </p>
+ * <p>
+ * Every identifier is bound to a deadline when allocated. Identifiers whose
+ * deadline passed without being released are reclaimed by
+ * {@link #reclaimExpiredIdentifiers()}, so lost RADIUS responses cannot
+ * drain the identifier pool.
+ * </p>
  */
 public class IdentifierManager {
 
     private static final int MAX_IDENTIFIER = 256;
 
-    private BlockingQueue<Integer> freeIdNumbers;
+    // Starts at 2 because ids 0 and 1 are reserved for RADIUS server status requests.
+    private static final int MIN_IDENTIFIER = 2;
+
+    private static final long DEFAULT_TIMEOUT_MILLIS = 30000;
+
+    private final List<Queue<Integer>> freeIdNumbers = new CopyOnWriteArrayList<>();
+
+    private final List<AtomicReferenceArray<InFlightRequest>> inFlight = new CopyOnWriteArrayList<>();
 
-    private ConcurrentMap<RequestIdentifier, String> idToSession;
+    private final AtomicInteger nextSpace = new AtomicInteger();
+
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    private volatile int identifierSpaces;
+
+    private volatile long timeoutInMillis = DEFAULT_TIMEOUT_MILLIS;
 
     /**
-     * Creates and initializes a new identifier manager.
+     * Creates and initializes a new identifier manager with a single
+     * identifier space.
      */
     public IdentifierManager() {
-        idToSession = Maps.newConcurrentMap();
-        freeIdNumbers = new LinkedBlockingQueue<>();
+        this(1);
+    }
 
-        // Starts at 2 because ids 0 and 1 are reserved for RADIUS server status requests.
-        for (int i = 2; i < MAX_IDENTIFIER; i++) {
-            freeIdNumbers.add(i);
-        }
+    /**
+     * Creates and initializes a new identifier manager.
+     *
+     * @param identifierSpaces number of identifier spaces to allocate from
+     */
+    public IdentifierManager(int identifierSpaces) {
+        setIdentifierSpaces(identifierSpaces);
     }
 
     /**
-     * Gets a new identifier and maps it to the given session ID.
+     * Changes the number of identifier spaces new identifiers are allocated
+     * from. Spaces that are no longer in use keep accepting released
+     * identifiers, so requests in flight are not affected.
      *
-     * @param sessionId session this identifier is associated with
-     * @return identifier
+     * @param identifierSpaces number of identifier spaces
      */
-    public synchronized RequestIdentifier getNewIdentifier(String sessionId) {
-        int idNum;
-        try {
-            idNum = freeIdNumbers.take();
-        } catch (InterruptedException e) {
-            return null;
+    public synchronized void setIdentifierSpaces(int identifierSpaces) {
+        checkArgument(identifierSpaces > 0, "At least one identifier space is required");
+        while (freeIdNumbers.size() < identifierSpaces) {
+            Queue<Integer> freeIds = new ConcurrentLinkedQueue<>();
+            for (int i = MIN_IDENTIFIER; i < MAX_IDENTIFIER; i++) {
+                freeIds.add(i);
+            }
+            inFlight.add(new AtomicReferenceArray<>(MAX_IDENTIFIER));
+            freeIdNumbers.add(freeIds);
         }
+        this.identifierSpaces = identifierSpaces;
+    }
+
+    /**
+     * Returns the number of identifier spaces new identifiers are allocated from.
+     *
+     * @return number of identifier spaces
+     */
+    public int identifierSpaces() {
+        return identifierSpaces;
+    }
+
+    /**
+     * Changes the time an identifier may stay allocated before it is
+     * reclaimed. Identifiers already allocated keep their deadline.
+     *
+     * @param timeoutInMillis identifier timeout in milliseconds
+     */
+    public void setTimeoutInMillis(long timeoutInMillis) {
+        checkArgument(timeoutInMillis > 0, "Identifier timeout must be positive");
+        this.timeoutInMillis = timeoutInMillis;
+    }
+
+    /**
+     * Returns the time an identifier may stay allocated before it is reclaimed.
+     *
+     * @return identifier timeout in milliseconds
+     */
+    public long timeoutInMillis() {
+        return timeoutInMillis;
+    }
 
-        RequestIdentifier id = RequestIdentifier.of((byte) idNum);
+    /**
+     * Gets a new identifier and maps it to the given session ID. Identifier
+     * spaces are visited in round robin order so that the load is spread
+     * over all the source sockets.
+     *
+     * @param sessionId  session this identifier is associated with
+     * @param sessionKey key of the session in the session table
+     * @return identifier, or null if all identifiers are in use
+     */
+    public RequestIdentifier getNewIdentifier(String sessionId, long sessionKey) {
+        int spaces = identifierSpaces;
+        int first = Math.floorMod(nextSpace.getAndIncrement(), spaces);
+
+        for (int i = 0; i < spaces; i++) {
+            int space = (first + i) % spaces;
+            Integer idNum = freeIdNumbers.get(space).poll();
+            if (idNum != null) {
+                inFlight.get(space).set(idNum, new InFlightRequest(sessionId, sessionKey,
+                        System.currentTimeMillis() + timeoutInMillis));
+                inUse.incrementAndGet();
+                return RequestIdentifier.of(space, idNum.byteValue());
+            }
+        }
 
-        idToSession.put(id, sessionId);
+        return null;
+    }
 
-        return id;
+    /**
+     * Gets the request a given request ID is allocated to.
+     *
+     * @param id request ID
+     * @return request in flight, null if the ID is not allocated
+     */
+    public InFlightRequest getRequest(RequestIdentifier id) {
+        if (id.space() >= inFlight.size()) {
+            return null;
+        }
+        return inFlight.get(id.space()).get(id.identifier() & 0xff);
     }
 
     /**
@@ -74,22 +183,74 @@ public class IdentifierManager {
      * @return session ID
      */
     public String getSessionId(RequestIdentifier id) {
-        return idToSession.get(id);
+        InFlightRequest request = getRequest(id);
+        return request == null ? null : request.sessionId();
     }
 
     /**
-     * Releases a request identifier and removes session mapping.
+     * Returns the number of identifiers currently mapped to a session.
+     *
+     * @return number of identifiers in use
+     */
+    public int inUse() {
+        return inUse.get();
+    }
+
+    /**
+     * Releases a request identifier and removes its request from the table.
      *
      * @param id request identifier to release
+     * @return the request the identifier was allocated to, null if it was not allocated
      */
-    public synchronized void releaseIdentifier(RequestIdentifier id) {
-        String session = idToSession.remove(id);
-        if (session == null) {
+    public InFlightRequest releaseIdentifier(RequestIdentifier id) {
+        if (id.space() >= inFlight.size()) {
+            return null;
+        }
+        int idNum = id.identifier() & 0xff;
+        InFlightRequest request = inFlight.get(id.space()).getAndSet(idNum, null);
+        if (request == null) {
             // this id wasn't mapped to a session so is still free
-            return;
+            return null;
         }
 
         // add id number back to set of free ids
-        freeIdNumbers.add((int) id.identifier());
+        inUse.decrementAndGet();
+        freeIdNumbers.get(id.space()).add(idNum);
+        return request;
+    }
+
+    /**
+     * Releases all identifiers whose deadline has passed.
+     *
+     * @return reclaimed identifiers and the requests they were allocated to
+     */
+    public Map<RequestIdentifier, InFlightRequest> reclaimExpiredIdentifiers() {
+        return reclaimExpiredIdentifiers(System.currentTimeMillis());
+    }
+
+    /**
+     * Releases all identifiers whose deadline is before the given time.
+     *
+     * @param nowInMillis current time in milliseconds
+     * @return reclaimed identifiers and the requests they were allocated to
+     */
+    Map<RequestIdentifier, InFlightRequest> reclaimExpiredIdentifiers(long nowInMillis) {
+        Map<RequestIdentifier, InFlightRequest> reclaimed = Maps.newHashMap();
+        for (int space = 0; space < inFlight.size(); space++) {
+            AtomicReferenceArray<InFlightRequest> requests = inFlight.get(space);
+            for (int idNum = MIN_IDENTIFIER; idNum < MAX_IDENTIFIER; idNum++) {
+                InFlightRequest request = requests.get(idNum);
+                // only remove this very request, the id may have been released and reallocated meanwhile
+                if (request != null && request.deadline() < nowInMillis
+                        && requests.compareAndSet(idNum, request, null)) {
+                    inUse.decrementAndGet();
+                    // released ids go to the tail of the queue, so a late response is unlikely to
+                    // match a new request
+                    freeIdNumbers.get(space).add(idNum);
+                    reclaimed.put(RequestIdentifier.of(space, (byte) idNum), request);
+                }
+            }
+        }
+        return reclaimed;
     }
 }
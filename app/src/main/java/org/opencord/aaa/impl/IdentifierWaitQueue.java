@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import com.google.common.collect.Maps;
+import org.onosproject.net.packet.InboundPacket;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * Bounded queue of EAP responses waiting for a RADIUS request identifier.
+ * <p>
+ * The queue holds at most one entry per session: a newer EAP response from
+ * a session that is already waiting replaces the older one but keeps its
+ * place in the queue, so a single chatty supplicant cannot starve others.
+ * Sessions are served in the order they started waiting.
+ * </p>
+ */
+public class IdentifierWaitQueue {
+
+    private final Deque<String> order = new ArrayDeque<>();
+    private final Map<String, Waiting> waiting = Maps.newHashMap();
+    private int capacity;
+
+    /**
+     * Creates a new wait queue.
+     *
+     * @param capacity maximum number of waiting sessions
+     */
+    public IdentifierWaitQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Changes the maximum number of waiting sessions. Sessions already
+     * waiting are kept even if the queue is now above capacity.
+     *
+     * @param capacity maximum number of waiting sessions
+     */
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queues an EAP response for the given session.
+     *
+     * @param sessionId session the packet belongs to
+     * @param packet    EAP response waiting for an identifier
+     * @return false if the queue is full and the packet was rejected
+     */
+    public synchronized boolean offer(String sessionId, InboundPacket packet) {
+        Waiting existing = waiting.get(sessionId);
+        if (existing != null) {
+            existing.packet = packet;
+            return true;
+        }
+        if (order.size() >= capacity) {
+            return false;
+        }
+        waiting.put(sessionId, new Waiting(sessionId, packet, System.currentTimeMillis()));
+        order.addLast(sessionId);
+        return true;
+    }
+
+    /**
+     * Removes and returns the session that has been waiting the longest.
+     *
+     * @return waiting entry, or null if the queue is empty
+     */
+    public synchronized Waiting poll() {
+        String sessionId = order.pollFirst();
+        if (sessionId == null) {
+            return null;
+        }
+        return waiting.remove(sessionId);
+    }
+
+    /**
+     * Puts back an entry at the head of the queue, used when an entry
+     * was polled but no identifier could be obtained for it after all.
+     *
+     * @param entry entry to put back
+     */
+    public synchronized void pushBack(Waiting entry) {
+        Waiting newer = waiting.remove(entry.sessionId);
+        if (newer != null) {
+            // a newer response arrived meanwhile, keep it but at the old position
+            order.remove(entry.sessionId);
+            entry.packet = newer.packet;
+        }
+        waiting.put(entry.sessionId, entry);
+        order.addFirst(entry.sessionId);
+    }
+
+    /**
+     * Drops the waiting entry of a session, if any.
+     *
+     * @param sessionId session ID
+     */
+    public synchronized void remove(String sessionId) {
+        if (waiting.remove(sessionId) != null) {
+            order.remove(sessionId);
+        }
+    }
+
+    /**
+     * Drops all waiting entries.
+     */
+    public synchronized void clear() {
+        waiting.clear();
+        order.clear();
+    }
+
+    /**
+     * Returns the number of sessions waiting.
+     *
+     * @return queue depth
+     */
+    public synchronized int size() {
+        return order.size();
+    }
+
+    /**
+     * Returns whether no session is waiting.
+     *
+     * @return true if the queue is empty
+     */
+    public synchronized boolean isEmpty() {
+        return order.isEmpty();
+    }
+
+    /**
+     * An EAP response waiting for an identifier.
+     */
+    public static final class Waiting {
+        private final String sessionId;
+        private final long enqueueTimeInMillis;
+        private InboundPacket packet;
+
+        private Waiting(String sessionId, InboundPacket packet, long enqueueTimeInMillis) {
+            this.sessionId = sessionId;
+            this.packet = packet;
+            this.enqueueTimeInMillis = enqueueTimeInMillis;
+        }
+
+        /**
+         * Returns the session the response belongs to.
+         *
+         * @return session ID
+         */
+        public String sessionId() {
+            return sessionId;
+        }
+
+        /**
+         * Returns the latest EAP response of the session.
+         *
+         * @return inbound packet
+         */
+        public InboundPacket packet() {
+            return packet;
+        }
+
+        /**
+         * Returns the time the session started waiting.
+         *
+         * @return time in milliseconds
+         */
+        public long enqueueTimeInMillis() {
+            return enqueueTimeInMillis;
+        }
+    }
+}
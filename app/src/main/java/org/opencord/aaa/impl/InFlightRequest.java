@@ -0,0 +1,232 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import com.google.common.base.MoreObjects;
+import org.opencord.aaa.RadiusResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * State of a RADIUS request waiting for its response, kept in the
+ * {@link IdentifierManager} slot of the request identifier.
+ */
+public final class InFlightRequest {
+
+    private final String sessionId;
+    private final long sessionKey;
+    private volatile long deadline;
+    private volatile long sentTimeInMillis;
+    private volatile byte[] requestAuthenticator;
+    private volatile int retransmits;
+    private volatile RadiusServer server;
+    private volatile CompletableFuture<RadiusResponse> response;
+    private volatile RequestIdentifier siblingIdentifier;
+    private volatile InFlightRequest sibling;
+
+    /**
+     * Creates the state of a new request.
+     *
+     * @param sessionId  session the request belongs to
+     * @param sessionKey key of the session in the session table
+     * @param deadline   time in milliseconds the identifier has to be released by
+     */
+    InFlightRequest(String sessionId, long sessionKey, long deadline) {
+        this.sessionId = sessionId;
+        this.sessionKey = sessionKey;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns the session the request belongs to.
+     *
+     * @return session ID
+     */
+    public String sessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Returns the key of the session the request belongs to.
+     *
+     * @return session key
+     */
+    public long sessionKey() {
+        return sessionKey;
+    }
+
+    /**
+     * Returns the time the identifier of the request has to be released by.
+     *
+     * @return deadline in milliseconds
+     */
+    public long deadline() {
+        return deadline;
+    }
+
+    /**
+     * Moves the deadline of the request.
+     *
+     * @param deadline deadline in milliseconds
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns the time the request was last sent to the RADIUS server.
+     *
+     * @return time in milliseconds, 0 if the request was not sent yet
+     */
+    public long sentTimeInMillis() {
+        return sentTimeInMillis;
+    }
+
+    /**
+     * Returns whether the request was sent to the RADIUS server.
+     *
+     * @return true if the request was sent
+     */
+    public boolean isSent() {
+        return sentTimeInMillis != 0;
+    }
+
+    /**
+     * Records that the request was sent to its RADIUS server.
+     *
+     * @param sentTimeInMillis time the request was sent
+     */
+    public void sent(long sentTimeInMillis) {
+        this.sentTimeInMillis = sentTimeInMillis;
+    }
+
+    /**
+     * Returns the Request Authenticator of the request.
+     *
+     * @return request authenticator
+     */
+    public byte[] requestAuthenticator() {
+        return requestAuthenticator;
+    }
+
+    /**
+     * Sets the Request Authenticator of the request.
+     *
+     * @param requestAuthenticator request authenticator
+     */
+    public void setRequestAuthenticator(byte[] requestAuthenticator) {
+        this.requestAuthenticator = requestAuthenticator;
+    }
+
+    /**
+     * Returns how many times the request was retransmitted.
+     *
+     * @return number of retransmissions
+     */
+    public int retransmits() {
+        return retransmits;
+    }
+
+    /**
+     * Counts a retransmission of the request.
+     */
+    public void incrementRetransmits() {
+        retransmits++;
+    }
+
+    /**
+     * Returns the RADIUS server the request is sent to.
+     *
+     * @return server, null if no server was selected yet
+     */
+    public RadiusServer server() {
+        return server;
+    }
+
+    /**
+     * Sets the RADIUS server the request is sent to.
+     *
+     * @param server server selected for the request
+     */
+    public void setServer(RadiusServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Sets the response the request waits for.
+     *
+     * @param response future completed by the RADIUS communicator
+     */
+    public void setResponse(CompletableFuture<RadiusResponse> response) {
+        this.response = response;
+    }
+
+    /**
+     * Stops waiting for the response of the request, which also stops its
+     * retransmissions.
+     */
+    public void cancelResponse() {
+        CompletableFuture<RadiusResponse> pending = response;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+    }
+
+    /**
+     * Links a request with its hedge, both copies racing for the first
+     * response.
+     *
+     * @param identifier      identifier of this request
+     * @param hedge           hedge of this request
+     * @param hedgeIdentifier identifier of the hedge
+     */
+    public void linkHedge(RequestIdentifier identifier, InFlightRequest hedge, RequestIdentifier hedgeIdentifier) {
+        this.siblingIdentifier = hedgeIdentifier;
+        this.sibling = hedge;
+        hedge.siblingIdentifier = identifier;
+        hedge.sibling = this;
+    }
+
+    /**
+     * Returns the other copy of a hedged request.
+     *
+     * @return primary request of a hedge or hedge of a primary request, null if not hedged
+     */
+    public InFlightRequest sibling() {
+        return sibling;
+    }
+
+    /**
+     * Returns the identifier of the other copy of a hedged request.
+     *
+     * @return request identifier, null if not hedged
+     */
+    public RequestIdentifier siblingIdentifier() {
+        return siblingIdentifier;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("sessionId", sessionId)
+                .add("deadline", deadline)
+                .add("sentTimeInMillis", sentTimeInMillis)
+                .add("retransmits", retransmits)
+                .add("server", server)
+                .toString();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HMAC-MD5 instances keyed with the RADIUS server secrets, used to verify
+ * the Message-Authenticator of the responses.
+ * <p>
+ * Looking up the JCA provider and keying a MAC is costly compared to the
+ * HMAC itself, so every thread keeps one keyed instance per secret. An
+ * instance is only created for a secret the thread has not seen yet, e.g.
+ * after the secret was changed; once too many secrets were seen the
+ * thread starts over.
+ * </p>
+ */
+public class MessageAuthenticatorKeys {
+
+    private static final String ALGORITHM = "HmacMD5";
+
+    // more secrets than RADIUS servers are only seen across reconfigurations
+    private static final int MAX_SECRETS = 16;
+
+    private final ThreadLocal<Map<String, Mac>> macs = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Returns the HMAC-MD5 of the calling thread keyed with a secret.
+     *
+     * @param secret secret shared with the RADIUS server
+     * @return keyed MAC, only to be used by the calling thread
+     * @throws GeneralSecurityException if no MAC can be keyed with the secret
+     */
+    public Mac mac(String secret) throws GeneralSecurityException {
+        if (secret == null) {
+            throw new GeneralSecurityException("No RADIUS secret configured");
+        }
+        Map<String, Mac> keyed = macs.get();
+        Mac mac = keyed.get(secret);
+        if (mac == null) {
+            if (keyed.size() >= MAX_SECRETS) {
+                keyed.clear();
+            }
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(new SecretKeySpec(secret.getBytes(), ALGORITHM));
+            } catch (IllegalArgumentException e) {
+                // empty secret
+                throw new GeneralSecurityException(e);
+            }
+            keyed.put(secret, mac);
+        }
+        return mac;
+    }
+}
@@ -36,4 +36,55 @@ public final class OsgiPropertyConstants {
 
     public static final String STATUS_SERVER_MODE = "operationalStatusEvaluationMode";
     public static final String STATUS_SERVER_MODE_DEFAULT = "AUTO";
+
+    public static final String IDENTIFIER_WAIT_QUEUE_SIZE = "identifierWaitQueueSize";
+    public static final int IDENTIFIER_WAIT_QUEUE_SIZE_DEFAULT = 4096;
+
+    public static final String IDENTIFIER_TIMEOUT = "identifierTimeoutInSeconds";
+    public static final int IDENTIFIER_TIMEOUT_DEFAULT = 30;
+
+    public static final String RADIUS_RETRANSMIT_ATTEMPTS = "radiusRetransmitAttempts";
+    public static final int RADIUS_RETRANSMIT_ATTEMPTS_DEFAULT = 3;
+
+    public static final String RADIUS_INITIAL_TIMEOUT = "radiusInitialTimeoutInMillis";
+    public static final int RADIUS_INITIAL_TIMEOUT_DEFAULT = 2000;
+
+    public static final String RADIUS_MAX_TIMEOUT = "radiusMaxTimeoutInMillis";
+    public static final int RADIUS_MAX_TIMEOUT_DEFAULT = 16000;
+
+    public static final String RADIUS_BREAKER_FAILURE_THRESHOLD = "radiusBreakerFailureThreshold";
+    public static final int RADIUS_BREAKER_FAILURE_THRESHOLD_DEFAULT = 10;
+
+    public static final String RADIUS_BREAKER_OPEN_TIME = "radiusBreakerOpenTimeInSeconds";
+    public static final int RADIUS_BREAKER_OPEN_TIME_DEFAULT = 10;
+
+    public static final String RADIUS_BREAKER_START_RATE = "radiusBreakerStartsPerSecond";
+    public static final int RADIUS_BREAKER_START_RATE_DEFAULT = 10;
+
+    public static final String RADIUS_HEDGE_BUDGET = "radiusHedgeBudgetPercent";
+    public static final int RADIUS_HEDGE_BUDGET_DEFAULT = 0;
+
+    public static final String RADIUS_HEDGE_PERCENTILE = "radiusHedgePercentile";
+    public static final int RADIUS_HEDGE_PERCENTILE_DEFAULT = 95;
+
+    public static final String SESSION_THREADS = "sessionThreads";
+    public static final int SESSION_THREADS_DEFAULT = 8;
+
+    public static final String SESSION_QUEUE_SIZE = "sessionQueueSize";
+    public static final int SESSION_QUEUE_SIZE_DEFAULT = 10000;
+
+    public static final String SESSION_IDLE_TIMEOUT = "sessionIdleTimeoutInSeconds";
+    public static final int SESSION_IDLE_TIMEOUT_DEFAULT = 600;
+
+    public static final String MAX_SESSIONS = "maxSessions";
+    public static final int MAX_SESSIONS_DEFAULT = 1000000;
+
+    public static final String AUTH_RECORD_FLUSH_INTERVAL = "authenticationRecordFlushIntervalInMillis";
+    public static final int AUTH_RECORD_FLUSH_INTERVAL_DEFAULT = 100;
+
+    public static final String AUTH_RECORD_BATCH_SIZE = "authenticationRecordBatchSize";
+    public static final int AUTH_RECORD_BATCH_SIZE_DEFAULT = 256;
+
+    public static final String AUTH_RECORDS_EVENTUALLY_CONSISTENT = "authenticationRecordsEventuallyConsistent";
+    public static final boolean AUTH_RECORDS_EVENTUALLY_CONSISTENT_DEFAULT = false;
 }
@@ -16,9 +16,9 @@
 package org.opencord.aaa.impl;
 
 import org.onlab.packet.Ethernet;
-import org.onlab.packet.RADIUS;
 
 import org.onosproject.net.packet.InboundPacket;
+import org.opencord.aaa.RadiusRequest;
 
 /**
  * Default RADIUS Packet Customization.
@@ -36,12 +36,13 @@ public class  PacketCustomizer {
 
     /**
      * Customize the packet as per specific Setup or RADIUS server requirements.
+     * The attributes are written into the request while it is being encoded.
      *
-     * @param inPkt RADIUS packet to be customized
+     * @param inPkt RADIUS request being encoded
      * @param eapPacket Incoming packet containing EAP for which this the RADIUS message is being created
-     * @return Customized RADIUS packet
+     * @return Customized RADIUS request encoder
      */
-    public RADIUS customizePacket(RADIUS inPkt, InboundPacket eapPacket) {
+    public RadiusRequest.Encoder customizePacket(RadiusRequest.Encoder inPkt, InboundPacket eapPacket) {
         return inPkt;
     }
 
@@ -15,11 +15,14 @@
  */
 package org.opencord.aaa.impl;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import org.onlab.packet.ARP;
+import org.onlab.packet.Data;
 import org.onlab.packet.DeserializationException;
 import org.onlab.packet.EthType;
 import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPacket;
 import org.onlab.packet.IPv4;
 import org.onlab.packet.Ip4Address;
 import org.onlab.packet.MacAddress;
@@ -45,15 +48,22 @@ import org.onosproject.net.packet.PacketContext;
 import org.onosproject.net.packet.PacketService;
 import org.opencord.aaa.AaaConfig;
 import org.opencord.aaa.RadiusCommunicator;
+import org.opencord.aaa.RadiusRequest;
+import org.opencord.aaa.RadiusResponse;
+import org.opencord.aaa.RequestContext;
 import org.opencord.sadis.BaseInformationService;
 import org.opencord.sadis.SubscriberAndDeviceInformation;
 import org.slf4j.Logger;
 
+import java.net.Inet4Address;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 
+import static com.google.common.base.Preconditions.checkState;
 import static org.onosproject.net.packet.PacketPriority.CONTROL;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -90,6 +100,9 @@ public class PortBasedRadiusCommunicator implements RadiusCommunicator {
     // RADIUS server TCP port number
     protected short radiusServerPort;
 
+    // UDP ports of all the servers of the RADIUS server pool
+    protected Set<Short> radiusServerPorts = ImmutableSet.of();
+
     protected String radiusMacAddress;
 
     // NAS IP address
@@ -110,6 +123,9 @@ public class PortBasedRadiusCommunicator implements RadiusCommunicator {
     InnerMastershipListener changeListener = new InnerMastershipListener();
     InnerDeviceListener deviceListener = new InnerDeviceListener();
 
+    // Requests waiting for their response
+    private final RadiusTransactions transactions;
+
     PortBasedRadiusCommunicator(ApplicationId appId, PacketService pktService,
                                 MastershipService masService, DeviceService devService,
                                 BaseInformationService<SubscriberAndDeviceInformation> subsService,
@@ -121,6 +137,9 @@ public class PortBasedRadiusCommunicator implements RadiusCommunicator {
         this.subsService = subsService;
         this.pktCustomizer = pktCustomizer;
         this.aaaManager = aaaManager;
+        // the request is framed into an Ethernet packet, its bytes are copied out of the pooled buffer
+        this.transactions = new RadiusTransactions(aaaManager.timer, (request, context) ->
+                transmit(new Data(request.toBytes()), context.inPacket(), context.server()));
 
         ipToSnMap = Maps.newConcurrentMap();
         mastershipService.addListener(changeListener);
@@ -168,6 +187,9 @@ public class PortBasedRadiusCommunicator implements RadiusCommunicator {
         }
 
         radiusServerPort = newCfg.radiusServerUdpPort();
+        ImmutableSet.Builder<Short> ports = ImmutableSet.<Short>builder().add(radiusServerPort);
+        newCfg.radiusServers().forEach(server -> ports.add(server.port()));
+        radiusServerPorts = ports.build();
         radiusVlanID = newCfg.radiusServerVlanId();
         radiusPBit = newCfg.radiusServerPBit();
 
@@ -186,6 +208,7 @@ public class PortBasedRadiusCommunicator implements RadiusCommunicator {
     public void deactivate() {
         mastershipService.removeListener(changeListener);
         deviceService.removeListener(deviceListener);
+        transactions.clear();
     }
 
     @Override
@@ -194,11 +217,13 @@ public class PortBasedRadiusCommunicator implements RadiusCommunicator {
                 .matchEthType(Ethernet.TYPE_ARP);
         packetService.requestPackets(selectorArpServer.build(), CONTROL, appId);
 
-        TrafficSelector.Builder selectorServer = DefaultTrafficSelector.builder()
-                .matchEthType(Ethernet.TYPE_IPV4)
-                .matchIPProtocol(IPv4.PROTOCOL_UDP)
-                .matchUdpSrc(TpPort.tpPort(radiusServerPort));
-        packetService.requestPackets(selectorServer.build(), CONTROL, appId);
+        for (short port : radiusServerPorts) {
+            TrafficSelector.Builder selectorServer = DefaultTrafficSelector.builder()
+                    .matchEthType(Ethernet.TYPE_IPV4)
+                    .matchIPProtocol(IPv4.PROTOCOL_UDP)
+                    .matchUdpSrc(TpPort.tpPort(port & 0xffff));
+            packetService.requestPackets(selectorServer.build(), CONTROL, appId);
+        }
 
         TrafficSelector.Builder selector = DefaultTrafficSelector.builder();
                selector.matchEthType(EthType.EtherType.EAPOL.ethType().toShort());
@@ -211,19 +236,45 @@ public class PortBasedRadiusCommunicator implements RadiusCommunicator {
                 .matchEthType(Ethernet.TYPE_ARP);
         packetService.cancelPackets(selectorArpServer.build(), CONTROL, appId);
 
-        TrafficSelector.Builder selectorServer = DefaultTrafficSelector.builder()
-                .matchEthType(Ethernet.TYPE_IPV4)
-                .matchIPProtocol(IPv4.PROTOCOL_UDP)
-                .matchUdpSrc(TpPort.tpPort(radiusServerPort));
-        packetService.cancelPackets(selectorServer.build(), CONTROL, appId);
+        for (short port : radiusServerPorts) {
+            TrafficSelector.Builder selectorServer = DefaultTrafficSelector.builder()
+                    .matchEthType(Ethernet.TYPE_IPV4)
+                    .matchIPProtocol(IPv4.PROTOCOL_UDP)
+                    .matchUdpSrc(TpPort.tpPort(port & 0xffff));
+            packetService.cancelPackets(selectorServer.build(), CONTROL, appId);
+        }
 
         TrafficSelector.Builder selector = DefaultTrafficSelector.builder();
         selector.matchEthType(EthType.EtherType.EAPOL.ethType().toShort());
         packetService.cancelPackets(selector.build(), CONTROL, appId);
     }
 
+    @Override
+    public int identifierSpaces() {
+        // all requests leave through the RADIUS server port, so there is
+        // only one source port and one identifier space
+        return 1;
+    }
+
     @Override
     public void sendRadiusPacket(RADIUS radiusPacket, InboundPacket inPkt) {
+        transmit(radiusPacket, inPkt, new InetSocketAddress(radiusIpAddress, radiusServerPort));
+    }
+
+    @Override
+    public CompletionStage<RadiusResponse> send(RadiusRequest request, RequestContext context) {
+        return transactions.send(request, context);
+    }
+
+    private void transmit(IPacket radiusPacket, InboundPacket inPkt, InetSocketAddress server) {
+        // the packet goes out through the RADIUS MAC address, only IPv4
+        // servers configured by address can be reached this way
+        if (server == null || !(server.getAddress() instanceof Inet4Address)) {
+            log.warn("RADIUS server {} is not an IPv4 address, dropping request", server);
+            return;
+        }
+        // the egress port is picked from the supplicant packet
+        checkState(inPkt != null, "RADIUS requests without supplicant packet cannot be sent through a port");
         // create the packet
         Ethernet ethReply = new Ethernet();
         ethReply.setSourceMACAddress(nasMacAddress);
@@ -237,11 +288,11 @@ public class PortBasedRadiusCommunicator implements RadiusCommunicator {
         ipv4Packet.setSourceAddress(Ip4Address.
                 valueOf(nasIpAddress).toInt());
         ipv4Packet.setDestinationAddress(Ip4Address.
-                valueOf(radiusIpAddress).toInt());
+                valueOf(server.getAddress()).toInt());
 
         UDP udpPacket = new UDP();
         udpPacket.setSourcePort(radiusServerPort);
-        udpPacket.setDestinationPort(radiusServerPort);
+        udpPacket.setDestinationPort(server.getPort());
 
         udpPacket.setPayload(radiusPacket);
         ipv4Packet.setPayload(udpPacket);
@@ -256,20 +307,12 @@ public class PortBasedRadiusCommunicator implements RadiusCommunicator {
 
         if (deviceInfo == null) {
             log.warn("No Device found with SN {}", serialNo);
-            aaaManager.radiusOperationalStatusService.setStatusServerReqSent(false);
             return;
         }
         ipToSnMap.put(deviceInfo.ipAddress(), serialNo);
-        if (radiusPacket.getIdentifier() == RadiusOperationalStatusManager.AAA_REQUEST_ID_STATUS_REQUEST ||
-                radiusPacket.getIdentifier() == RadiusOperationalStatusManager.AAA_REQUEST_ID_FAKE_ACCESS_REQUEST) {
-            aaaManager.radiusOperationalStatusService.setOutTimeInMillis(radiusPacket.getIdentifier());
-        } else {
-            aaaManager.aaaStatisticsManager.putOutgoingIdentifierToMap(radiusPacket.getIdentifier());
-        }
         // send the message out
         sendFromRadiusServerPort(pktCustomizer.
                 customizeEthernetIPHeaders(ethReply, inPkt));
-        aaaManager.radiusOperationalStatusService.setStatusServerReqSent(true);
     }
 
     /**
@@ -382,18 +425,21 @@ public class PortBasedRadiusCommunicator implements RadiusCommunicator {
         if (ipv4Packet.getProtocol() == IPv4.PROTOCOL_UDP) {
             UDP udpPacket = (UDP) ipv4Packet.getPayload();
 
-            if (udpPacket.getSourcePort() == radiusServerPort) {
+            if (aaaManager.radiusServerPool.isServerPort(udpPacket.getSourcePort())) {
                 //This packet is RADIUS packet from the server.
-                RADIUS radiusMsg;
                 try {
-                    radiusMsg =
-                            RADIUS.deserializer()
-                                    .deserialize(udpPacket.serialize(),
-                                            8,
-                                            udpPacket.getLength() - 8);
-                    aaaManager.aaaStatisticsManager.handleRoundtripTime(radiusMsg.getIdentifier());
-                    aaaManager.handleRadiusPacket(radiusMsg);
+                    byte[] data = udpPacket.serialize();
+                    int length = udpPacket.getLength() - 8;
+                    InetSocketAddress source = new InetSocketAddress(
+                            Ip4Address.valueOf(ipv4Packet.getSourceAddress()).toInetAddress(),
+                            udpPacket.getSourcePort());
+                    if (!transactions.complete(0, source, data, 8, length)) {
+                        // not awaited, e.g. a status check response or a late response
+                        aaaManager.handleRadiusPacket(data, 8, length, 0);
+                    }
                 } catch (DeserializationException dex) {
+                    aaaManager.malformedPacketFromServer(
+                            Ip4Address.valueOf(ipv4Packet.getSourceAddress()).toString());
                     log.error("Cannot deserialize packet", dex);
                 }
             }
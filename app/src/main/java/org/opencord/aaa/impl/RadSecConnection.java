@@ -0,0 +1,234 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import com.google.common.base.MoreObjects;
+import org.onlab.packet.RADIUS;
+import org.opencord.aaa.RadiusRequest;
+import org.opencord.aaa.RadiusResponse;
+import org.slf4j.Logger;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * TLS connection to a RadSec server, as described by RFC 6614.
+ * <p>
+ * Requests are written as soon as they are sent, any number of them may
+ * be waiting for their response on the connection. A reader thread reads
+ * the responses off the stream, framed by the RADIUS length, and hands
+ * them to the listener in the order they arrive.
+ * </p>
+ * <p>
+ * TCP recovers lost segments, so a request is written only once per
+ * connection: retransmitting it again on the same connection is skipped,
+ * and it is only sent again once the connection was reopened.
+ * </p>
+ */
+public class RadSecConnection {
+
+    private static final int LENGTH_OFFSET = 2;
+    private static final int LENGTH_END = 4;
+    private static final int IDENTIFIERS = 256;
+
+    private final Logger log = getLogger(getClass());
+
+    private final SSLSocket socket;
+
+    private final OutputStream out;
+
+    // request last written with each identifier on this connection
+    private final RadiusRequest[] written = new RadiusRequest[IDENTIFIERS];
+
+    private volatile long lastReceived;
+
+    private volatile long keepaliveSent;
+
+    private volatile boolean closed;
+
+    /**
+     * Listener to the responses received on a connection.
+     */
+    interface Listener {
+        /**
+         * Called on the reader thread for every response received. The
+         * buffer is reused for the next response.
+         *
+         * @param connection connection the response was received on
+         * @param data       buffer holding the response
+         * @param length     length of the response
+         */
+        void received(RadSecConnection connection, byte[] data, int length);
+
+        /**
+         * Called once when the connection is closed by either side or fails.
+         *
+         * @param connection connection that was closed
+         */
+        void closed(RadSecConnection connection);
+    }
+
+    private RadSecConnection(SSLSocket socket) throws IOException {
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket.getOutputStream(), RADIUS.RADIUS_MAX_LENGTH);
+        this.lastReceived = System.currentTimeMillis();
+    }
+
+    /**
+     * Opens a connection and completes the TLS handshake.
+     *
+     * @param socketFactory          factory of TLS sockets
+     * @param address                address and TCP port of the server
+     * @param connectTimeoutInMillis time to wait for the TCP connection
+     * @return connection, not reading yet
+     * @throws IOException if the connection or the handshake fails
+     */
+    public static RadSecConnection open(SSLSocketFactory socketFactory, InetSocketAddress address,
+                                        int connectTimeoutInMillis) throws IOException {
+        SSLSocket socket = (SSLSocket) socketFactory.createSocket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.connect(address, connectTimeoutInMillis);
+            socket.startHandshake();
+            return new RadSecConnection(socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts reading the responses.
+     *
+     * @param executor executor the reader thread runs on
+     * @param listener listener the responses are handed to
+     */
+    public void start(Executor executor, Listener listener) {
+        executor.execute(() -> read(listener));
+    }
+
+    private void read(Listener listener) {
+        byte[] data = new byte[RADIUS.RADIUS_MAX_LENGTH];
+        try {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            while (!closed) {
+                in.readFully(data, 0, LENGTH_END);
+                int length = ((data[LENGTH_OFFSET] & 0xff) << 8) | (data[LENGTH_OFFSET + 1] & 0xff);
+                if (length < RadiusResponse.HEADER_LENGTH || length > data.length) {
+                    // the stream cannot be framed anymore
+                    throw new IOException("Invalid RADIUS length " + length);
+                }
+                in.readFully(data, LENGTH_END, length - LENGTH_END);
+                lastReceived = System.currentTimeMillis();
+                listener.received(this, data, length);
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.info("RadSec connection to {} failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            close();
+            listener.closed(this);
+        }
+    }
+
+    /**
+     * Writes a request unless it was already written on this connection.
+     *
+     * @param request RADIUS request
+     * @return true if the request was written, false if it already was
+     * @throws IOException if the request cannot be written
+     */
+    public synchronized boolean send(RadiusRequest request) throws IOException {
+        int identifier = request.identifier() & 0xff;
+        if (written[identifier] == request) {
+            return false;
+        }
+        request.writeTo(out);
+        out.flush();
+        written[identifier] = request;
+        return true;
+    }
+
+    /**
+     * Sends a Status-Server once nothing was received for an interval, and
+     * checks that it is answered within another interval. Any response
+     * received answers the keepalive.
+     *
+     * @param now                current time in milliseconds
+     * @param intervalInMillis   keepalive interval
+     * @param statusServer       creates the Status-Server request, released once written
+     * @return false if the keepalive was not answered in time
+     * @throws IOException if the keepalive cannot be written
+     */
+    public synchronized boolean keepalive(long now, long intervalInMillis, Supplier<RadiusRequest> statusServer)
+            throws IOException {
+        if (keepaliveSent > lastReceived) {
+            return now - keepaliveSent < intervalInMillis;
+        }
+        if (now - lastReceived >= intervalInMillis) {
+            RadiusRequest request = statusServer.get();
+            try {
+                request.writeTo(out);
+                out.flush();
+            } finally {
+                request.release();
+            }
+            keepaliveSent = now;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the connection is closed.
+     *
+     * @return true once closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the connection. The reader thread stops and notifies the
+     * listener.
+     */
+    public void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Error closing RadSec connection", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("server", socket.getRemoteSocketAddress())
+                .toString();
+    }
+}
@@ -0,0 +1,535 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.onlab.packet.DeserializationException;
+import org.onlab.packet.EthType;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.RADIUS;
+import org.onlab.packet.RADIUSAttribute;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.packet.InboundPacket;
+import org.onosproject.net.packet.PacketContext;
+import org.onosproject.net.packet.PacketService;
+import org.opencord.aaa.AaaConfig;
+import org.opencord.aaa.RadiusCommunicator;
+import org.opencord.aaa.RadiusRequest;
+import org.opencord.aaa.RadiusResponse;
+import org.opencord.aaa.RequestContext;
+import org.slf4j.Logger;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.onosproject.net.packet.PacketPriority.CONTROL;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Handles RadSec (RADIUS over TLS, RFC 6614) communication with the RADIUS
+ * servers.
+ * <p>
+ * A pool of long-lived TLS connections is kept to every server, one per
+ * identifier space. Each connection carries up to 256 outstanding
+ * requests, written back to back without waiting for their responses.
+ * Connections are opened when first needed and reopened with an
+ * exponential backoff when they fail. A connection that receives nothing
+ * for the keepalive interval is probed with a Status-Server and reopened
+ * if the probe is not answered.
+ * </p>
+ * <p>
+ * Requests sent while their connection is being opened are queued until
+ * it is up. As TCP recovers lost segments, retransmissions are only
+ * written again once the request's connection was reopened.
+ * </p>
+ */
+public class RadSecRadiusCommunicator implements RadiusCommunicator {
+
+    // shared secret of all RadSec servers, RFC 6614 section 2.3
+    static final String RADSEC_SECRET = "radsec";
+
+    // identifier of the keepalive Status-Server, reserved for status requests
+    private static final byte KEEPALIVE_IDENTIFIER = RadiusOperationalStatusManager.AAA_REQUEST_ID_STATUS_REQUEST;
+
+    private static final byte RADIUS_CODE_STATUS_SERVER = (byte) 12;
+
+    // offset of the identifier in a RADIUS packet
+    private static final int RADIUS_IDENTIFIER_OFFSET = 1;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private static final long MIN_BACKOFF_MILLIS = 1000;
+
+    private static final long MAX_BACKOFF_MILLIS = 60000;
+
+    private static final String KEY_STORE_TYPE = "PKCS12";
+
+    private final Logger log = getLogger(getClass());
+
+    // our unique identifier
+    private ApplicationId appId;
+
+    // to receive Packet-in events that we'll respond to
+    PacketService packetService;
+
+    AaaManager aaaManager;
+
+    // Requests waiting for their response
+    private final RadiusTransactions transactions;
+
+    // Message-Authenticator of the keepalives
+    private final MessageAuthenticatorKeys messageAuthenticatorKeys = new MessageAuthenticatorKeys();
+
+    // Connections to the RADIUS servers, by server and identifier space
+    private final ConcurrentMap<Key, Slot> slots = Maps.newConcurrentMap();
+
+    // TLS socket factory set up for tests, null to build it from the configuration
+    private final SSLSocketFactory testSocketFactory;
+
+    private volatile SSLSocketFactory socketFactory;
+
+    private volatile int radSecPort;
+
+    private volatile int poolSize = 1;
+
+    private volatile long keepaliveIntervalInMillis;
+
+    private volatile byte[] nasIpAddress;
+
+    // Executor opening the connections and reading from them
+    private ExecutorService executor;
+
+    private ScheduledFuture<?> keepalive;
+
+    RadSecRadiusCommunicator(ApplicationId appId, PacketService pktService, AaaManager aaaManager) {
+        this(appId, pktService, aaaManager, null);
+    }
+
+    RadSecRadiusCommunicator(ApplicationId appId, PacketService pktService, AaaManager aaaManager,
+                             SSLSocketFactory socketFactory) {
+        this.appId = appId;
+        this.packetService = pktService;
+        this.aaaManager = aaaManager;
+        this.testSocketFactory = socketFactory;
+        this.transactions = new RadiusTransactions(aaaManager.timer, (request, context) ->
+                transmit(request, context.identifierSpace(), context.server(), true));
+    }
+
+    @Override
+    public void initializeLocalState(AaaConfig newCfg) {
+        radSecPort = newCfg.radSecPort();
+        poolSize = Math.max(1, newCfg.radiusSocketPoolSize());
+        keepaliveIntervalInMillis = TimeUnit.SECONDS.toMillis(Math.max(1, newCfg.radSecKeepaliveInterval()));
+        nasIpAddress = newCfg.nasIp() == null ? null : newCfg.nasIp().getAddress();
+        socketFactory = testSocketFactory;
+        if (socketFactory == null) {
+            try {
+                socketFactory = socketFactory(newCfg);
+            } catch (GeneralSecurityException | IOException e) {
+                log.error("Can't set up TLS for RadSec, no request will be sent", e);
+            }
+        }
+        log.info("RadSec to port {} using {} connections per server", radSecPort, poolSize);
+
+        executor = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder()
+                        .setNameFormat("AAA-radsec-%d").build());
+        try {
+            keepalive = aaaManager.executor.scheduleWithFixedDelay(this::keepalive, keepaliveIntervalInMillis,
+                                                                   keepaliveIntervalInMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    private SSLSocketFactory socketFactory(AaaConfig cfg) throws GeneralSecurityException, IOException {
+        KeyManager[] keyManagers = null;
+        if (cfg.radSecKeyStore() != null) {
+            char[] password = password(cfg.radSecKeyStorePassword());
+            KeyManagerFactory keyManagerFactory =
+                    KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore(cfg.radSecKeyStore(), password), password);
+            keyManagers = keyManagerFactory.getKeyManagers();
+        }
+        TrustManager[] trustManagers = null;
+        if (cfg.radSecTrustStore() != null) {
+            TrustManagerFactory trustManagerFactory =
+                    TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init(keyStore(cfg.radSecTrustStore(), password(cfg.radSecTrustStorePassword())));
+            trustManagers = trustManagerFactory.getTrustManagers();
+        }
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers, trustManagers, null);
+        return context.getSocketFactory();
+    }
+
+    private static char[] password(String password) {
+        return password == null ? null : password.toCharArray();
+    }
+
+    private static KeyStore keyStore(String path, char[] password) throws GeneralSecurityException, IOException {
+        KeyStore keyStore = KeyStore.getInstance(KEY_STORE_TYPE);
+        try (InputStream in = new FileInputStream(path)) {
+            keyStore.load(in, password);
+        }
+        return keyStore;
+    }
+
+    @Override
+    public void clearLocalState() {
+        if (keepalive != null) {
+            keepalive.cancel(false);
+            keepalive = null;
+        }
+        slots.values().forEach(Slot::close);
+        slots.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void deactivate() {
+        clearLocalState();
+        transactions.clear();
+    }
+
+    @Override
+    public void requestIntercepts() {
+        TrafficSelector.Builder selector = DefaultTrafficSelector.builder();
+        selector.matchEthType(EthType.EtherType.EAPOL.ethType().toShort());
+        packetService.requestPackets(selector.build(), CONTROL, appId);
+    }
+
+    @Override
+    public void withdrawIntercepts() {
+        TrafficSelector.Builder selector = DefaultTrafficSelector.builder();
+        selector.matchEthType(EthType.EtherType.EAPOL.ethType().toShort());
+        packetService.cancelPackets(selector.build(), CONTROL, appId);
+    }
+
+    @Override
+    public int identifierSpaces() {
+        return poolSize;
+    }
+
+    @Override
+    public void sendRadiusPacket(RADIUS radiusPacket, InboundPacket inPkt) {
+        RadiusServer server = aaaManager.radiusServerPool.defaultServer();
+        RadiusRequest request = RadiusRequest.of(radiusPacket);
+        try {
+            transmit(request, 0, server == null ? null : server.socketAddress(), false);
+        } finally {
+            request.release();
+        }
+    }
+
+    @Override
+    public CompletionStage<RadiusResponse> send(RadiusRequest request, RequestContext context) {
+        return transactions.send(request, context);
+    }
+
+    /**
+     * Writes a request on the connection of its server and identifier
+     * space, opening the connection if needed.
+     *
+     * @param request         RADIUS request
+     * @param identifierSpace identifier space of the request
+     * @param server          RADIUS server, as known to the server pool
+     * @param queue           whether to keep the request until the connection is open
+     */
+    private void transmit(RadiusRequest request, int identifierSpace, InetSocketAddress server, boolean queue) {
+        if (server == null) {
+            log.warn("RADIUS server address is not resolved yet, dropping request");
+            return;
+        }
+        if (socketFactory == null || identifierSpace >= poolSize) {
+            log.warn("No RadSec connection for identifier space {}, dropping request", identifierSpace);
+            return;
+        }
+        slots.computeIfAbsent(new Key(server, identifierSpace), Slot::new).send(request, queue);
+    }
+
+    /**
+     * Probes the silent connections and reopens the failed ones.
+     */
+    private void keepalive() {
+        long now = System.currentTimeMillis();
+        for (Slot slot : slots.values()) {
+            slot.keepalive(now);
+        }
+    }
+
+    private RadiusRequest statusServer() {
+        RadiusRequest.Encoder encoder = RadiusRequest.encoder(RADIUS_CODE_STATUS_SERVER, KEEPALIVE_IDENTIFIER);
+        byte[] nasIp = nasIpAddress;
+        if (nasIp != null) {
+            encoder.setAttribute(RADIUSAttribute.RADIUS_ATTR_NAS_IP, nasIp);
+        }
+        try {
+            return encoder.sign(messageAuthenticatorKeys.mac(RADSEC_SECRET));
+        } catch (GeneralSecurityException e) {
+            log.error("Failed to generate message authenticator: {}", e.getMessage());
+            return encoder.build();
+        }
+    }
+
+    @Override
+    public void handlePacketFromServer(PacketContext context) {
+        InboundPacket pkt = context.inPacket();
+        Ethernet ethPkt = pkt.parsed();
+        if (log.isTraceEnabled() && ethPkt.getEtherType() != Ethernet.TYPE_LLDP
+                && ethPkt.getEtherType() != Ethernet.TYPE_BSN) {
+            log.trace("Skipping Ethernet packet type {}",
+                      EthType.EtherType.lookup(ethPkt.getEtherType()));
+        }
+    }
+
+    /**
+     * Identifies a connection by server and identifier space.
+     */
+    private static final class Key {
+        private final InetSocketAddress server;
+        private final int identifierSpace;
+
+        private Key(InetSocketAddress server, int identifierSpace) {
+            this.server = server;
+            this.identifierSpace = identifierSpace;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return identifierSpace == that.identifierSpace && Objects.equals(server, that.server);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * identifierSpace + Objects.hashCode(server);
+        }
+    }
+
+    /**
+     * The connection to a server for an identifier space, and what is
+     * needed to reopen it.
+     */
+    private final class Slot implements RadSecConnection.Listener {
+        private final Key key;
+        private final Queue<RadiusRequest> queued = new ArrayDeque<>();
+        private RadSecConnection connection;
+        private boolean connecting;
+        private boolean closed;
+        private long backoffInMillis = MIN_BACKOFF_MILLIS;
+        private long nextAttempt;
+
+        private Slot(Key key) {
+            this.key = key;
+        }
+
+        private void send(RadiusRequest request, boolean queue) {
+            RadSecConnection current;
+            synchronized (this) {
+                current = connection;
+                if (current == null) {
+                    if (queue && connect(System.currentTimeMillis())) {
+                        queued.add(request);
+                    } else {
+                        log.debug("No RadSec connection to {} yet, request {} waits for a retransmission",
+                                  key.server, request.identifier());
+                    }
+                    return;
+                }
+            }
+            write(current, request);
+        }
+
+        private void write(RadSecConnection current, RadiusRequest request) {
+            try {
+                if (current.send(request) && log.isTraceEnabled()) {
+                    log.trace("Sending packet {} to Radius Server {} using RadSec", request, key.server);
+                }
+            } catch (IOException e) {
+                log.info("Cannot send packet to RADIUS server {}: {}", key.server, e.getMessage());
+                current.close();
+            } catch (IllegalStateException e) {
+                // given up while queued
+            }
+        }
+
+        /**
+         * Starts opening the connection unless it is already being opened
+         * or the backoff after the last failure has not elapsed.
+         *
+         * @param now current time in milliseconds
+         * @return true if the connection is being opened
+         */
+        private synchronized boolean connect(long now) {
+            if (closed || connection != null) {
+                return false;
+            }
+            if (!connecting) {
+                if (now < nextAttempt) {
+                    return false;
+                }
+                try {
+                    executor.execute(this::open);
+                    connecting = true;
+                } catch (RejectedExecutionException e) {
+                    // shutting down
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void open() {
+            InetSocketAddress address = new InetSocketAddress(key.server.getAddress(), radSecPort);
+            RadSecConnection opened;
+            try {
+                opened = RadSecConnection.open(socketFactory, address, CONNECT_TIMEOUT_MILLIS);
+            } catch (IOException e) {
+                synchronized (this) {
+                    connecting = false;
+                    nextAttempt = System.currentTimeMillis() + backoffInMillis;
+                    log.warn("Can't open RadSec connection to {}, retrying in {} ms: {}",
+                             address, backoffInMillis, e.getMessage());
+                    backoffInMillis = Math.min(backoffInMillis * 2, MAX_BACKOFF_MILLIS);
+                    // retransmissions queue them again once the connection is retried
+                    queued.clear();
+                }
+                return;
+            }
+            Queue<RadiusRequest> pending;
+            synchronized (this) {
+                connecting = false;
+                if (closed) {
+                    opened.close();
+                    return;
+                }
+                log.info("RadSec connection to {} open for identifier space {}", address, key.identifierSpace);
+                connection = opened;
+                backoffInMillis = MIN_BACKOFF_MILLIS;
+                pending = new ArrayDeque<>(queued);
+                queued.clear();
+            }
+            try {
+                opened.start(executor, this);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                opened.close();
+                return;
+            }
+            pending.forEach(request -> write(opened, request));
+        }
+
+        private void keepalive(long now) {
+            RadSecConnection current;
+            synchronized (this) {
+                current = connection;
+                if (current == null) {
+                    // keep the pool open between requests
+                    connect(now);
+                    return;
+                }
+            }
+            try {
+                if (!current.keepalive(now, keepaliveIntervalInMillis, RadSecRadiusCommunicator.this::statusServer)) {
+                    log.warn("RadSec connection to {} does not answer keepalives, reopening", key.server);
+                    current.close();
+                }
+            } catch (IOException e) {
+                log.info("Cannot send keepalive to RADIUS server {}: {}", key.server, e.getMessage());
+                current.close();
+            }
+        }
+
+        private void close() {
+            RadSecConnection current;
+            synchronized (this) {
+                closed = true;
+                current = connection;
+                queued.clear();
+            }
+            if (current != null) {
+                current.close();
+            }
+        }
+
+        @Override
+        public void received(RadSecConnection from, byte[] data, int length) {
+            InetSocketAddress server = key.server;
+            aaaManager.checkForPacketFromUnknownServer(server.getAddress().getHostAddress());
+            try {
+                if (transactions.complete(key.identifierSpace, server, data, 0, length)) {
+                    return;
+                }
+                if (data[RADIUS_IDENTIFIER_OFFSET] == KEEPALIVE_IDENTIFIER) {
+                    // answer to a keepalive or a late one to a status probe, receiving it was all that mattered
+                    return;
+                }
+                // not awaited, e.g. a late response
+                aaaManager.handleRadiusPacket(data, 0, length, key.identifierSpace);
+            } catch (DeserializationException dex) {
+                aaaManager.malformedPacketFromServer(server.getAddress().getHostAddress());
+                log.error("Cannot deserialize packet", dex);
+            } catch (RuntimeException e) {
+                log.warn("Error handling RADIUS packet from {}", server, e);
+            }
+        }
+
+        @Override
+        public void closed(RadSecConnection from) {
+            synchronized (this) {
+                if (connection == from) {
+                    connection = null;
+                    // reopened by the next request or keepalive, backing off only if that fails
+                    nextAttempt = 0;
+                }
+            }
+            log.info("RadSec connection to {} closed", key.server);
+        }
+    }
+}
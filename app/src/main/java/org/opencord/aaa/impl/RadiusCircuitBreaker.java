@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import org.opencord.aaa.RadiusOperationalStatusService.OperationalStatus;
+import org.slf4j.Logger;
+
+import java.util.function.Consumer;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Circuit breaker in front of the RADIUS servers.
+ * <p>
+ * The breaker opens when the operational status check reports the server
+ * as unavailable or when too many requests in a row go unanswered. While
+ * open, no RADIUS request is sent and EAPOL-Starts are paced. Once the
+ * open time has elapsed, or as soon as the status check sees the server
+ * again, the breaker is half-open and lets one trial request through per
+ * open time; the first response closes it, a failed trial opens it again.
+ * </p>
+ */
+public class RadiusCircuitBreaker {
+
+    /**
+     * State of the breaker.
+     */
+    public enum State {
+        /**
+         * Requests flow normally.
+         */
+        CLOSED,
+
+        /**
+         * Requests are shed.
+         */
+        OPEN,
+
+        /**
+         * Trial requests probe the server.
+         */
+        HALF_OPEN
+    }
+
+    private final Logger log = getLogger(getClass());
+
+    private final Consumer<State> listener;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    // time the breaker goes half-open while open, time of the next trial while half-open
+    private long nextAttemptAt;
+
+    private long startWindowStart;
+
+    private int startsInWindow;
+
+    private int failureThreshold;
+
+    private long openTimeInMillis;
+
+    private int startsPerSecond;
+
+    /**
+     * Creates a new closed breaker.
+     *
+     * @param failureThreshold requests in a row without response that open the breaker
+     * @param openTimeInMillis time the breaker stays open before a trial request
+     * @param startsPerSecond  EAPOL-Starts accepted per second while not closed
+     * @param listener         called with the new state on every transition
+     */
+    public RadiusCircuitBreaker(int failureThreshold, long openTimeInMillis, int startsPerSecond,
+                                Consumer<State> listener) {
+        this.listener = listener;
+        configure(failureThreshold, openTimeInMillis, startsPerSecond);
+    }
+
+    /**
+     * Changes the thresholds of the breaker.
+     *
+     * @param failureThreshold requests in a row without response that open the breaker
+     * @param openTimeInMillis time the breaker stays open before a trial request
+     * @param startsPerSecond  EAPOL-Starts accepted per second while not closed
+     */
+    public synchronized void configure(int failureThreshold, long openTimeInMillis, int startsPerSecond) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openTimeInMillis = Math.max(0, openTimeInMillis);
+        this.startsPerSecond = Math.max(0, startsPerSecond);
+    }
+
+    /**
+     * Returns the state of the breaker.
+     *
+     * @return state
+     */
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Returns whether a RADIUS request may be sent.
+     *
+     * @param nowInMillis current time
+     * @return true if the request may be sent, false if it has to be shed
+     */
+    public synchronized boolean allowRequest(long nowInMillis) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nowInMillis < nextAttemptAt) {
+                    return false;
+                }
+                transition(State.HALF_OPEN);
+                return trial(nowInMillis);
+            default:
+                return nowInMillis >= nextAttemptAt && trial(nowInMillis);
+        }
+    }
+
+    private boolean trial(long nowInMillis) {
+        nextAttemptAt = nowInMillis + openTimeInMillis;
+        return true;
+    }
+
+    /**
+     * Returns whether an EAPOL-Start may be handled. Starts are only paced
+     * while the breaker is not closed.
+     *
+     * @param nowInMillis current time
+     * @return true if the start may be handled
+     */
+    public synchronized boolean allowStart(long nowInMillis) {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (nowInMillis - startWindowStart >= 1000) {
+            startWindowStart = nowInMillis;
+            startsInWindow = 0;
+        }
+        return startsInWindow++ < startsPerSecond;
+    }
+
+    /**
+     * Records a response from the RADIUS server.
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * Records a RADIUS request that was given up without response.
+     *
+     * @param nowInMillis current time
+     */
+    public synchronized void onFailure(long nowInMillis) {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN
+                || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            open(nowInMillis);
+        }
+    }
+
+    /**
+     * Records the result of the periodic operational status check.
+     *
+     * @param status      operational status of the RADIUS server
+     * @param nowInMillis current time
+     */
+    public synchronized void onOperationalStatus(OperationalStatus status, long nowInMillis) {
+        if (status == OperationalStatus.UNAVAILABLE && state != State.OPEN) {
+            open(nowInMillis);
+        } else if (status == OperationalStatus.IN_USE && state == State.OPEN) {
+            // the server answers the status check, probe it right away
+            nextAttemptAt = nowInMillis;
+            transition(State.HALF_OPEN);
+        }
+    }
+
+    private void open(long nowInMillis) {
+        nextAttemptAt = nowInMillis + openTimeInMillis;
+        transition(State.OPEN);
+    }
+
+    private void transition(State newState) {
+        if (newState == State.OPEN) {
+            log.warn("RADIUS server is not responding, shedding requests for {} ms", openTimeInMillis);
+        } else {
+            log.info("RADIUS circuit breaker {}", newState);
+        }
+        state = newState;
+        listener.accept(newState);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+/**
+ * Caps the hedged RADIUS requests at a share of the hedgeable requests.
+ * <p>
+ * Every hedgeable request earns a fraction of a token, a hedge spends a
+ * whole one. The tokens are capped so that a long quiet period does not
+ * allow a burst of hedges when the servers slow down.
+ * </p>
+ */
+public class RadiusHedgeBudget {
+
+    // tokens are counted in hundredths of a hedge
+    private static final int HEDGE_COST = 100;
+
+    private static final int MAX_TOKENS = 10 * HEDGE_COST;
+
+    private int tokensPerRequest;
+
+    private int tokens;
+
+    /**
+     * Creates a new budget.
+     *
+     * @param percent hedges allowed per hundred hedgeable requests, 0 to disable hedging
+     */
+    public RadiusHedgeBudget(int percent) {
+        configure(percent);
+    }
+
+    /**
+     * Changes the share of requests that may be hedged.
+     *
+     * @param percent hedges allowed per hundred hedgeable requests, 0 to disable hedging
+     */
+    public synchronized void configure(int percent) {
+        tokensPerRequest = Math.min(Math.max(percent, 0), 100);
+        tokens = Math.min(tokens, MAX_TOKENS);
+    }
+
+    /**
+     * Returns whether hedging is enabled.
+     *
+     * @return true if some requests may be hedged
+     */
+    public synchronized boolean isEnabled() {
+        return tokensPerRequest > 0;
+    }
+
+    /**
+     * Records a request that could be hedged.
+     */
+    public synchronized void requestSent() {
+        tokens = Math.min(tokens + tokensPerRequest, MAX_TOKENS);
+    }
+
+    /**
+     * Spends the budget of one hedge, if there is enough.
+     *
+     * @return true if the request may be hedged
+     */
+    public synchronized boolean tryHedge() {
+        if (tokens < HEDGE_COST) {
+            return false;
+        }
+        tokens -= HEDGE_COST;
+        return true;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.opencord.aaa.impl;
 
+import com.google.common.collect.Maps;
 import org.onlab.packet.RADIUS;
 import org.onlab.packet.RADIUSAttribute;
 import org.onosproject.event.AbstractListenerManager;
@@ -23,11 +24,28 @@ import org.opencord.aaa.RadiusOperationalStatusEvent;
 import org.opencord.aaa.RadiusOperationalStatusEventDelegate;
 import org.opencord.aaa.RadiusOperationalStatusEventListener;
 import org.opencord.aaa.RadiusOperationalStatusService;
+import org.opencord.aaa.RadiusServerConfig;
+import org.opencord.aaa.RadiusRequest;
+import org.opencord.aaa.RadiusResponse;
+import org.opencord.aaa.RadiusServerHealth;
+import org.opencord.aaa.RequestContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
 import static org.slf4j.LoggerFactory.getLogger;
 
 @Component(immediate = true)
@@ -36,29 +54,22 @@ public class RadiusOperationalStatusManager
         implements RadiusOperationalStatusService {
 
     private byte[] address;
-    private String secret;
     private RadiusCommunicator impl;
     private RadiusOperationalStatusEventDelegate radiusOprStDelegate;
 
-    private long operationalStatusServerTimeoutInMillis;
-    private boolean statusServerReqSent;
+    private volatile long operationalStatusServerTimeoutInMillis;
     private final Logger log = getLogger(getClass());
 
-    private Boolean fakeAccessRequestPacketRecieved = false;
-    private long fakeAccessRequestOutTimeInMillis;
-
-    private Boolean serverStatusPacketRecieved = false;
-    private long serverStatusOutTimeInMillis;
-
-    private OperationalStatus radiusServerOperationalStatus;
+    private volatile OperationalStatus radiusServerOperationalStatus;
     public static final byte AAA_REQUEST_ID_STATUS_REQUEST = 0;
     public static final byte AAA_REQUEST_ID_FAKE_ACCESS_REQUEST = 1;
 
-    private RadiusOperationalStatusEvaluationMode radiusOperationalStatusEvaluationMode;
+    private volatile RadiusOperationalStatusEvaluationMode radiusOperationalStatusEvaluationMode;
 
     private static final String DUMMY_USER = new String("dummy-user");
     private static final byte RADIUS_CODE_STATUS_REQUEST = (byte) 12;
-    private long lastRadiusPacketInTimeInMillis;
+
+    private final ConcurrentMap<String, RadiusServerHealthTracker> serverHealth = Maps.newConcurrentMap();
 
     public void setOperationalStatusServerTimeoutInMillis(long operationalStatusServerTimeoutInMillis) {
         this.operationalStatusServerTimeoutInMillis = operationalStatusServerTimeoutInMillis;
@@ -73,15 +84,6 @@ public class RadiusOperationalStatusManager
         return radiusOprStDelegate;
     }
 
-    @Override
-    public void setOutTimeInMillis(byte identifier) {
-        if (identifier == AAA_REQUEST_ID_STATUS_REQUEST) {
-            serverStatusOutTimeInMillis = System.currentTimeMillis();
-        } else {
-            fakeAccessRequestOutTimeInMillis = System.currentTimeMillis();
-        }
-    }
-
     @Override
     public String getRadiusServerOperationalStatus() {
         return radiusServerOperationalStatus.toString();
@@ -94,10 +96,6 @@ public class RadiusOperationalStatusManager
         radiusServerOperationalStatus = OperationalStatus.UNKNOWN;
     }
 
-    public void setStatusServerReqSent(boolean statusServerReqSent) {
-        this.statusServerReqSent = statusServerReqSent;
-    }
-
     @Deactivate
     public void deactivate() {
         eventDispatcher.removeSink(RadiusOperationalStatusEvent.class);
@@ -105,132 +103,156 @@ public class RadiusOperationalStatusManager
 
     public void initialize(byte[] address, String secret, RadiusCommunicator impl) {
         this.address = address;
-        this.secret = secret;
         this.impl = impl;
     }
 
     public boolean isRadiusResponseForOperationalStatus(byte identifier) {
-        if (identifier == AAA_REQUEST_ID_STATUS_REQUEST || identifier == AAA_REQUEST_ID_FAKE_ACCESS_REQUEST) {
-            return true;
-        } else {
-            lastRadiusPacketInTimeInMillis = System.currentTimeMillis();
-            return false;
-        }
+        return identifier == AAA_REQUEST_ID_STATUS_REQUEST || identifier == AAA_REQUEST_ID_FAKE_ACCESS_REQUEST;
+    }
+
+    private RadiusServerHealthTracker tracker(String server) {
+        return serverHealth.computeIfAbsent(server, RadiusServerHealthTracker::new);
     }
 
-    public void handleRadiusPacketForOperationalStatus(RADIUS radiusPacket) {
-        byte radiusPktIdentifier = radiusPacket.getIdentifier();
+    @Override
+    public void recordResponse(String server, long rttInMillis, boolean valid) {
+        tracker(server).recordResponse(rttInMillis, valid, System.currentTimeMillis());
+    }
 
-        if (radiusPktIdentifier == AAA_REQUEST_ID_STATUS_REQUEST) {
-            long serverStatusRttInMillis = System.currentTimeMillis() - serverStatusOutTimeInMillis;
-            if (serverStatusRttInMillis < operationalStatusServerTimeoutInMillis) {
-                serverStatusPacketRecieved = true;
-            }
-        } else {
-            long fakeAccessRttInMillis = System.currentTimeMillis() - fakeAccessRequestOutTimeInMillis;
-            if (fakeAccessRttInMillis < operationalStatusServerTimeoutInMillis) {
-                fakeAccessRequestPacketRecieved = true;
-            }
-        }
+    @Override
+    public void recordMalformedResponse(String server) {
+        tracker(server).recordMalformedResponse();
+    }
 
-        switch (radiusPacket.getCode()) {
-            case RADIUS.RADIUS_CODE_ACCESS_ACCEPT:
-                synchronized (serverStatusPacketRecieved) {
-                    serverStatusPacketRecieved.notify();
-                }
-                break;
-            case RADIUS.RADIUS_CODE_ACCESS_REJECT:
-                synchronized (fakeAccessRequestPacketRecieved) {
-                    fakeAccessRequestPacketRecieved.notify();
-                }
-                break;
-            default:
-                log.warn("Unexpected Radius message for operational status recieved "
-                        + "with code: {}", radiusPacket.getCode());
-        }
+    @Override
+    public void recordTimeout(String server) {
+        tracker(server).recordTimeout();
     }
 
-    public void checkServerStatusUsingStatusServerRequest() throws InterruptedException {
-        RADIUS radiusStatusServerRequest;
-        // identifier = 0 for status server
-        radiusStatusServerRequest = new RADIUS(RADIUS_CODE_STATUS_REQUEST, AAA_REQUEST_ID_STATUS_REQUEST);
+    @Override
+    public Map<String, RadiusServerHealth> getServerHealth() {
+        // latency is weighed against the time a status probe may take
+        long latencyBudgetInMillis = operationalStatusServerTimeoutInMillis;
+        return serverHealth.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().health(latencyBudgetInMillis)));
+    }
 
-        radiusStatusServerRequest.setIdentifier(AAA_REQUEST_ID_STATUS_REQUEST);
-        radiusStatusServerRequest.setAttribute(RADIUSAttribute.RADIUS_ATTR_USERNAME, DUMMY_USER.getBytes());
+    private boolean isIdle(RadiusServerConfig server) {
+        RadiusServerHealthTracker tracker = serverHealth.get(server.name());
+        return tracker == null ||
+                tracker.isIdle(System.currentTimeMillis(), operationalStatusServerTimeoutInMillis);
+    }
 
-        radiusStatusServerRequest.setAttribute(RADIUSAttribute.RADIUS_ATTR_NAS_IP, address);
-        radiusStatusServerRequest.addMessageAuthenticator(secret);
-        setOutTimeInMillis(radiusStatusServerRequest.getIdentifier());
-        impl.sendRadiusPacket(radiusStatusServerRequest, null);
-        synchronized (serverStatusPacketRecieved) {
-            serverStatusPacketRecieved.wait(operationalStatusServerTimeoutInMillis);
-        }
+    public void handleRadiusPacketForOperationalStatus(RadiusResponse radiusPacket) {
+        // probes are completed by the communicator, this one came too late
+        log.debug("Ignoring late response {} to operational status request {}",
+                  radiusPacket.code(), radiusPacket.identifier());
     }
 
-    public void checkServerStatusUsingFakeAccessRequest() throws InterruptedException {
-        RADIUS radiusDummyAccessRequest;
-        // identifier = 1 for fake accessRequest
-        radiusDummyAccessRequest = new RADIUS(RADIUS.RADIUS_CODE_ACCESS_REQUEST, AAA_REQUEST_ID_FAKE_ACCESS_REQUEST);
+    private RADIUS probeRequest(byte code, byte identifier, String secret) {
+        RADIUS radiusRequest = new RADIUS(code, identifier);
+        radiusRequest.setAttribute(RADIUSAttribute.RADIUS_ATTR_USERNAME, DUMMY_USER.getBytes());
+        radiusRequest.setAttribute(RADIUSAttribute.RADIUS_ATTR_NAS_IP, address);
+        radiusRequest.addMessageAuthenticator(secret);
+        return radiusRequest;
+    }
 
-        radiusDummyAccessRequest.setIdentifier(AAA_REQUEST_ID_FAKE_ACCESS_REQUEST);
-        radiusDummyAccessRequest.setAttribute(RADIUSAttribute.RADIUS_ATTR_USERNAME, DUMMY_USER.getBytes());
+    /**
+     * Sends one probe to a server. The probe is completed by the response,
+     * or by the communicator's timer once the status server timeout elapses.
+     *
+     * @param radiusRequest probe request
+     * @param server        server to probe
+     * @return future completed with the status the probe observed
+     */
+    private CompletableFuture<OperationalStatus> probe(RADIUS radiusRequest, RadiusServerConfig server) {
+        long timeoutInMillis = operationalStatusServerTimeoutInMillis;
+        RequestContext context = RequestContext.builder()
+                .server(new InetSocketAddress(server.address(), server.port() & 0xffff))
+                .timeoutInMillis(retransmits -> timeoutInMillis)
+                .build();
+        // probes are rare, they are built as packets and encoded once
+        return impl.send(RadiusRequest.of(radiusRequest), context).toCompletableFuture()
+                .handle((response, error) -> {
+                    if (error == null) {
+                        return OperationalStatus.IN_USE;
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        return OperationalStatus.UNAVAILABLE;
+                    }
+                    // the probe could not be sent
+                    log.debug("Operational status request to {} failed", server, cause);
+                    return OperationalStatus.UNKNOWN;
+                });
+    }
 
-        radiusDummyAccessRequest.setAttribute(RADIUSAttribute.RADIUS_ATTR_NAS_IP, address);
-        radiusDummyAccessRequest.addMessageAuthenticator(secret);
-        setOutTimeInMillis(radiusDummyAccessRequest.getIdentifier());
-        impl.sendRadiusPacket(radiusDummyAccessRequest, null);
-        synchronized (fakeAccessRequestPacketRecieved) {
-            fakeAccessRequestPacketRecieved.wait(operationalStatusServerTimeoutInMillis);
-        }
+    private CompletableFuture<OperationalStatus> checkServerStatusUsingStatusServerRequest(
+            RadiusServerConfig server) {
+        // identifier = 0 for status server
+        return probe(probeRequest(RADIUS_CODE_STATUS_REQUEST, AAA_REQUEST_ID_STATUS_REQUEST, server.secret()),
+                     server);
     }
 
-    public void checkStatusServerForAccessRequestMode() throws InterruptedException {
-        long radiusResponseRecievedTimeDifference = System.currentTimeMillis() - lastRadiusPacketInTimeInMillis;
-        if (radiusResponseRecievedTimeDifference > operationalStatusServerTimeoutInMillis) {
-            checkServerStatusUsingFakeAccessRequest();
-            if (statusServerReqSent && fakeAccessRequestPacketRecieved) {
-                radiusServerOperationalStatus = OperationalStatus.IN_USE;
-            } else if (statusServerReqSent && !fakeAccessRequestPacketRecieved) {
-                radiusServerOperationalStatus = OperationalStatus.UNAVAILABLE;
-            } else {
-                radiusServerOperationalStatus = OperationalStatus.UNKNOWN;
+    private CompletableFuture<OperationalStatus> checkServerStatusUsingFakeAccessRequest(
+            RadiusServerConfig server) {
+        // identifier = 1 for fake accessRequest
+        return probe(probeRequest(RADIUS.RADIUS_CODE_ACCESS_REQUEST, AAA_REQUEST_ID_FAKE_ACCESS_REQUEST,
+                                  server.secret()),
+                     server);
+    }
+
+    private CompletableFuture<OperationalStatus> checkServer(RadiusServerConfig server) {
+        if (server.address() == null) {
+            // not resolved, nothing can be sent
+            return CompletableFuture.completedFuture(OperationalStatus.UNKNOWN);
+        }
+        if (!isIdle(server)) {
+            // live traffic is answered, no need to probe
+            return CompletableFuture.completedFuture(OperationalStatus.IN_USE);
+        }
+        try {
+            switch (radiusOperationalStatusEvaluationMode) {
+                case STATUS_REQUEST:
+                    // determine operational status by statusServerRequest
+                    return checkServerStatusUsingStatusServerRequest(server);
+                case AUTO:
+                    return checkServerStatusUsingStatusServerRequest(server)
+                            .thenCompose(status -> status == OperationalStatus.IN_USE ?
+                                    CompletableFuture.completedFuture(status) :
+                                    checkServerStatusUsingFakeAccessRequest(server));
+                default:
+                    return checkServerStatusUsingFakeAccessRequest(server);
             }
-        } else {
-            radiusServerOperationalStatus = OperationalStatus.IN_USE;
+        } catch (RuntimeException e) {
+            log.error("Caught exception while checking radius server status::" + e);
+            return CompletableFuture.completedFuture(OperationalStatus.UNKNOWN);
         }
     }
 
-    public void checkServerOperationalStatus() {
-
-        try {
-            if (radiusOperationalStatusEvaluationMode == RadiusOperationalStatusEvaluationMode.STATUS_REQUEST) {
-                // determine operational status by statusServerRequest
-                checkServerStatusUsingStatusServerRequest();
-                if (statusServerReqSent && serverStatusPacketRecieved) {
-                    // if req sent and response recieved
-                    radiusServerOperationalStatus = OperationalStatus.IN_USE;
-                } else if (statusServerReqSent && !serverStatusPacketRecieved) {
-                    radiusServerOperationalStatus = OperationalStatus.UNAVAILABLE;
-                } else {
-                radiusServerOperationalStatus = OperationalStatus.UNKNOWN;
-                }
-            } else {
-                if (radiusOperationalStatusEvaluationMode == RadiusOperationalStatusEvaluationMode.AUTO) {
-                    checkServerStatusUsingStatusServerRequest();
-                    if (statusServerReqSent && serverStatusPacketRecieved) {
+    public CompletionStage<OperationalStatus> checkServerOperationalStatus(
+            Collection<RadiusServerConfig> servers) {
+        // forget the servers that were removed from the configuration
+        Set<String> names = servers.stream().map(RadiusServerConfig::name).collect(Collectors.toSet());
+        serverHealth.keySet().retainAll(names);
+
+        List<CompletableFuture<OperationalStatus>> probes = servers.stream()
+                .map(this::checkServer)
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(probes.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> {
+                    Set<OperationalStatus> statuses = probes.stream()
+                            .map(CompletableFuture::join)
+                            .collect(Collectors.toSet());
+                    if (statuses.contains(OperationalStatus.IN_USE)) {
                         radiusServerOperationalStatus = OperationalStatus.IN_USE;
+                    } else if (statuses.contains(OperationalStatus.UNAVAILABLE)) {
+                        radiusServerOperationalStatus = OperationalStatus.UNAVAILABLE;
                     } else {
-                        checkStatusServerForAccessRequestMode();
+                        radiusServerOperationalStatus = OperationalStatus.UNKNOWN;
                     }
-                } else {
-                    checkStatusServerForAccessRequestMode();
-                }
-            }
-            fakeAccessRequestPacketRecieved = false;
-            serverStatusPacketRecieved = false;
-        } catch (Exception e) {
-            log.error("Caught exception while checking radius server status::" + e);
-        }
+                    return radiusServerOperationalStatus;
+                });
     }
 
     /**
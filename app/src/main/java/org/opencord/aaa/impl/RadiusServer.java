@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import com.google.common.base.MoreObjects;
+import org.opencord.aaa.RadiusServerConfig;
+import org.slf4j.Logger;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * A RADIUS server of the server pool, with its addresses, its load and
+ * its health.
+ * <p>
+ * A server that leaves several requests in a row unanswered is taken out
+ * of rotation for a while; any response puts it back.
+ * </p>
+ */
+public class RadiusServer {
+
+    // requests in a row without response after which the server is taken out of rotation
+    static final int FAILURE_THRESHOLD = 2;
+
+    // time a failed server is kept out of rotation
+    static final long HOLD_DOWN_MILLIS = 10000;
+
+    // round trip times kept to estimate the percentiles, and needed before estimating them
+    private static final int RTT_SAMPLES = 256;
+    private static final int RTT_MIN_SAMPLES = 20;
+
+    private final Logger log = getLogger(getClass());
+
+    private final RadiusServerConfig config;
+
+    private final RadiusServerResolver resolver;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final AtomicInteger consecutiveTimeouts = new AtomicInteger();
+
+    private final RoundTripTimeSamples roundTripTimes = new RoundTripTimeSamples(RTT_SAMPLES, RTT_MIN_SAMPLES);
+
+    private volatile long downUntil;
+
+    // current weight for the smooth weighted round robin, guarded by the pool
+    int currentWeight;
+
+    /**
+     * Creates a new RADIUS server.
+     *
+     * @param config       server configuration
+     * @param executor     executor the server host name is resolved on
+     * @param ttlInSeconds time the resolved addresses are cached for
+     */
+    RadiusServer(RadiusServerConfig config, ScheduledExecutorService executor, long ttlInSeconds) {
+        this.config = config;
+        this.resolver = new RadiusServerResolver(executor);
+        resolver.configure(config.hostName(), config.address(), ttlInSeconds);
+    }
+
+    /**
+     * Returns the configuration of the server.
+     *
+     * @return server configuration
+     */
+    public RadiusServerConfig config() {
+        return config;
+    }
+
+    /**
+     * Returns the configuration of the server with the address it currently
+     * resolves to.
+     *
+     * @return server configuration, with a null address if not resolved yet
+     */
+    public RadiusServerConfig resolvedConfig() {
+        return new RadiusServerConfig(config.hostName(), resolver.address(), config.port(),
+                                      config.secret(), config.weight());
+    }
+
+    /**
+     * Returns the shared secret of the server.
+     *
+     * @return shared secret
+     */
+    public String secret() {
+        return config.secret();
+    }
+
+    /**
+     * Returns the weight of the server.
+     *
+     * @return weight
+     */
+    public int weight() {
+        return config.weight();
+    }
+
+    /**
+     * Returns the address requests are sent to.
+     *
+     * @return address, null if not resolved yet
+     */
+    public InetAddress address() {
+        return resolver.address();
+    }
+
+    /**
+     * Returns the address and port requests are sent to.
+     *
+     * @return socket address, null if not resolved yet
+     */
+    public InetSocketAddress socketAddress() {
+        InetAddress address = resolver.address();
+        return address == null ? null : new InetSocketAddress(address, config.port() & 0xffff);
+    }
+
+    /**
+     * Returns whether a packet source address is one of the addresses of the server.
+     *
+     * @param hostAddress textual source address
+     * @return true if the address belongs to the server
+     */
+    public boolean isServerAddress(String hostAddress) {
+        return resolver.isServerAddress(hostAddress);
+    }
+
+    /**
+     * Returns the number of requests sent to the server and not answered yet.
+     *
+     * @return outstanding requests
+     */
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * Counts a request sent to the server.
+     */
+    public void requestSent() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * Counts a request of the server that is no longer outstanding.
+     */
+    public void requestDone() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Returns whether the server is in rotation.
+     *
+     * @param nowInMillis current time
+     * @return true if requests may be sent to the server
+     */
+    public boolean isAvailable(long nowInMillis) {
+        return downUntil <= nowInMillis;
+    }
+
+    /**
+     * Records a response of the server, putting it back into rotation.
+     */
+    public void responseReceived() {
+        consecutiveTimeouts.set(0);
+        if (downUntil != 0) {
+            downUntil = 0;
+            log.info("RADIUS server {} is responding again", this);
+        }
+    }
+
+    /**
+     * Records the round trip time of a request that was not retransmitted.
+     *
+     * @param rttInMillis round trip time
+     */
+    public void addRoundTripTime(long rttInMillis) {
+        roundTripTimes.add(rttInMillis);
+    }
+
+    /**
+     * Estimates a percentile of the recent round trip times of the server.
+     *
+     * @param percentile percentile, from 1 to 100
+     * @return round trip time in milliseconds, -1 if too few were measured
+     */
+    public long roundTripTimePercentile(int percentile) {
+        return roundTripTimes.percentile(percentile);
+    }
+
+    /**
+     * Records a request left unanswered by the server, taking the server
+     * out of rotation after too many of them in a row.
+     *
+     * @param nowInMillis current time
+     */
+    public void responseTimedOut(long nowInMillis) {
+        if (consecutiveTimeouts.incrementAndGet() >= FAILURE_THRESHOLD && isAvailable(nowInMillis)) {
+            downUntil = nowInMillis + HOLD_DOWN_MILLIS;
+            log.warn("RADIUS server {} is not responding, taking it out of rotation", this);
+        }
+    }
+
+    /**
+     * Stops resolving the server host name.
+     */
+    void shutdown() {
+        resolver.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("server", config.hostName() != null ? config.hostName() : config.address())
+                .add("port", config.port() & 0xffff)
+                .add("outstanding", outstanding)
+                .toString();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import org.opencord.aaa.RadiusServerHealth;
+
+/**
+ * Scores the health of one RADIUS server from its live traffic.
+ * <p>
+ * Round trip time, timeout ratio and invalid response ratio are
+ * exponentially weighted moving averages. The score multiplies the share
+ * of answered transmissions, the share of valid responses and a latency
+ * factor that halves when the round trip time reaches the latency budget.
+ * </p>
+ */
+public class RadiusServerHealthTracker {
+
+    // weight of the newest sample in the moving averages
+    static final double ALPHA = 0.1;
+
+    private final String server;
+
+    private double roundTripTimeInMillis;
+
+    private boolean roundTripTimeSampled;
+
+    private double timeoutRatio;
+
+    private double invalidResponseRatio;
+
+    private volatile long lastResponseTimeInMillis;
+
+    /**
+     * Creates a tracker for a server without history.
+     *
+     * @param server name of the server
+     */
+    public RadiusServerHealthTracker(String server) {
+        this.server = server;
+    }
+
+    private static double average(double average, double sample) {
+        return average + ALPHA * (sample - average);
+    }
+
+    /**
+     * Records a response of the server.
+     *
+     * @param rttInMillis time between the last transmission and the response
+     * @param valid       false if the response was malformed or had an invalid authenticator
+     * @param nowInMillis current time
+     */
+    public synchronized void recordResponse(long rttInMillis, boolean valid, long nowInMillis) {
+        if (roundTripTimeSampled) {
+            roundTripTimeInMillis = average(roundTripTimeInMillis, rttInMillis);
+        } else {
+            roundTripTimeInMillis = rttInMillis;
+            roundTripTimeSampled = true;
+        }
+        timeoutRatio = average(timeoutRatio, 0);
+        invalidResponseRatio = average(invalidResponseRatio, valid ? 0 : 1);
+        lastResponseTimeInMillis = nowInMillis;
+    }
+
+    /**
+     * Records a response of the server that could not be parsed.
+     */
+    public synchronized void recordMalformedResponse() {
+        invalidResponseRatio = average(invalidResponseRatio, 1);
+    }
+
+    /**
+     * Records a transmission left unanswered by the server.
+     */
+    public synchronized void recordTimeout() {
+        timeoutRatio = average(timeoutRatio, 1);
+    }
+
+    /**
+     * Returns whether the server answered no live request recently.
+     *
+     * @param nowInMillis    current time
+     * @param windowInMillis how recent a response has to be
+     * @return true if the last response is older than the window
+     */
+    public boolean isIdle(long nowInMillis, long windowInMillis) {
+        return nowInMillis - lastResponseTimeInMillis > windowInMillis;
+    }
+
+    /**
+     * Returns a snapshot of the health of the server.
+     *
+     * @param latencyBudgetInMillis round trip time at which the latency factor is one half
+     * @return server health
+     */
+    public synchronized RadiusServerHealth health(long latencyBudgetInMillis) {
+        double latencyFactor = latencyBudgetInMillis > 0 ?
+                latencyBudgetInMillis / (latencyBudgetInMillis + roundTripTimeInMillis) : 1;
+        double score = (1 - timeoutRatio) * (1 - invalidResponseRatio) * latencyFactor;
+        return new RadiusServerHealth(server, score, roundTripTimeInMillis, timeoutRatio,
+                                      invalidResponseRatio, lastResponseTimeInMillis);
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.opencord.aaa.RadiusServerConfig;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Pool of RADIUS servers requests are spread over.
+ * <p>
+ * A server is picked for every new EAP conversation, either the one with
+ * the fewest outstanding requests relative to its weight or by smooth
+ * weighted round robin. The conversation then stays on that server, since
+ * the State attribute it hands out is only valid there, unless the
+ * server is taken out of rotation.
+ * </p>
+ */
+public class RadiusServerPool {
+
+    /**
+     * How requests are spread over the servers.
+     */
+    public enum LoadBalancing {
+        /**
+         * Server with the fewest outstanding requests relative to its weight.
+         */
+        LEAST_OUTSTANDING,
+
+        /**
+         * Smooth weighted round robin.
+         */
+        WEIGHTED_ROUND_ROBIN;
+
+        /**
+         * Parses a load balancing mode from the configuration.
+         *
+         * @param value configured value
+         * @return load balancing mode, null if unknown
+         */
+        public static LoadBalancing getValue(String value) {
+            for (LoadBalancing mode : values()) {
+                if (mode.name().equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Logger log = getLogger(getClass());
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("AAA-resolver-%d").setDaemon(true).build());
+
+    private volatile List<RadiusServer> servers = ImmutableList.of();
+
+    private volatile LoadBalancing loadBalancing = LoadBalancing.LEAST_OUTSTANDING;
+
+    /**
+     * Replaces the servers of the pool. Servers whose configuration did not
+     * change are kept along with their load and health.
+     *
+     * @param configs      server configurations
+     * @param mode         load balancing mode
+     * @param ttlInSeconds time the resolved server addresses are cached for
+     */
+    public synchronized void configure(List<RadiusServerConfig> configs, LoadBalancing mode, long ttlInSeconds) {
+        if (configs.isEmpty()) {
+            log.warn("No valid RADIUS server configured, keeping servers {}", servers);
+            return;
+        }
+        List<RadiusServer> current = servers;
+        ImmutableList.Builder<RadiusServer> builder = ImmutableList.builder();
+        for (RadiusServerConfig config : configs) {
+            RadiusServer server = current.stream()
+                    .filter(s -> s.config().equals(config))
+                    .findFirst()
+                    .orElseGet(() -> new RadiusServer(config, executor, ttlInSeconds));
+            builder.add(server);
+        }
+        List<RadiusServer> updated = builder.build();
+        current.stream().filter(s -> !updated.contains(s)).forEach(RadiusServer::shutdown);
+        servers = updated;
+        if (mode != null) {
+            loadBalancing = mode;
+        }
+        log.info("RADIUS servers {} with {} load balancing", configs, loadBalancing);
+    }
+
+    /**
+     * Returns the servers of the pool.
+     *
+     * @return servers
+     */
+    public List<RadiusServer> servers() {
+        return servers;
+    }
+
+    /**
+     * Returns the first configured server, used for the requests that are
+     * not part of an EAP conversation.
+     *
+     * @return default server
+     */
+    public RadiusServer defaultServer() {
+        List<RadiusServer> current = servers;
+        return current.isEmpty() ? null : current.get(0);
+    }
+
+    /**
+     * Selects the server for a request of an EAP conversation.
+     *
+     * @param pinned server the conversation is on, null for a new conversation
+     * @return server to send the request to
+     */
+    public RadiusServer select(RadiusServer pinned) {
+        List<RadiusServer> current = servers;
+        long now = System.currentTimeMillis();
+        if (pinned != null && pinned.isAvailable(now) && current.contains(pinned)) {
+            return pinned;
+        }
+
+        List<RadiusServer> candidates = ImmutableList.copyOf(
+                current.stream().filter(s -> s.isAvailable(now)).iterator());
+        if (candidates.isEmpty()) {
+            // every server is out of rotation, better try one than stall
+            candidates = current;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        RadiusServer selected = loadBalancing == LoadBalancing.WEIGHTED_ROUND_ROBIN
+                ? nextRoundRobin(candidates) : leastOutstanding(candidates);
+        if (pinned != null && pinned != selected) {
+            log.info("Moving EAP conversation from RADIUS server {} to {}", pinned, selected);
+        }
+        return selected;
+    }
+
+    /**
+     * Selects a server to hedge a request with.
+     *
+     * @param primary server the request was sent to
+     * @return another server in rotation with the fewest outstanding
+     *         requests, null if there is none
+     */
+    public RadiusServer selectSecondary(RadiusServer primary) {
+        long now = System.currentTimeMillis();
+        List<RadiusServer> candidates = ImmutableList.copyOf(
+                servers.stream().filter(s -> s != primary && s.isAvailable(now)).iterator());
+        return candidates.isEmpty() ? null : leastOutstanding(candidates);
+    }
+
+    private RadiusServer leastOutstanding(List<RadiusServer> candidates) {
+        RadiusServer best = null;
+        for (RadiusServer server : candidates) {
+            // compare outstanding / weight without dividing
+            if (best == null || (long) server.outstanding() * best.weight()
+                    < (long) best.outstanding() * server.weight()) {
+                best = server;
+            }
+        }
+        return best;
+    }
+
+    private synchronized RadiusServer nextRoundRobin(List<RadiusServer> candidates) {
+        RadiusServer best = null;
+        int totalWeight = 0;
+        for (RadiusServer server : candidates) {
+            server.currentWeight += server.weight();
+            totalWeight += server.weight();
+            if (best == null || server.currentWeight > best.currentWeight) {
+                best = server;
+            }
+        }
+        best.currentWeight -= totalWeight;
+        return best;
+    }
+
+    /**
+     * Returns whether a packet source address belongs to one of the servers.
+     *
+     * @param hostAddress textual source address
+     * @return true if the address belongs to a server of the pool
+     */
+    public boolean isServerAddress(String hostAddress) {
+        return server(hostAddress) != null;
+    }
+
+    /**
+     * Returns the server a packet source address belongs to.
+     *
+     * @param hostAddress textual source address
+     * @return server of the pool, null if the address is not one of theirs
+     */
+    public RadiusServer server(String hostAddress) {
+        for (RadiusServer server : servers) {
+            if (server.isServerAddress(hostAddress)) {
+                return server;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether a UDP port is the port of one of the servers.
+     *
+     * @param port UDP port
+     * @return true if a server of the pool uses the port
+     */
+    public boolean isServerPort(int port) {
+        for (RadiusServer server : servers) {
+            if ((server.config().port() & 0xffff) == (port & 0xffff)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops resolving the server host names.
+     */
+    public synchronized void shutdown() {
+        servers.forEach(RadiusServer::shutdown);
+        executor.shutdownNow();
+    }
+}
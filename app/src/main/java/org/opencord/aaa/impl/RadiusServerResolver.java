@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Keeps the addresses of the RADIUS server.
+ * <p>
+ * When the server is configured by host name, the name is resolved in the
+ * background when configured and again every time the cache TTL expires,
+ * keeping every address returned. The packet path only reads the cached
+ * addresses and never waits for the resolver. If a refresh fails, the
+ * addresses resolved last are kept.
+ * </p>
+ */
+public class RadiusServerResolver {
+
+    private final Logger log = getLogger(getClass());
+
+    private final ScheduledExecutorService executor;
+
+    private volatile Addresses addresses = new Addresses(ImmutableList.of());
+
+    private String hostName;
+
+    private ScheduledFuture<?> refresh;
+
+    /**
+     * Creates a new resolver.
+     *
+     * @param executor executor the host name is resolved on
+     */
+    public RadiusServerResolver(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the RADIUS server to resolve.
+     *
+     * @param hostName     host name of the server, null if it is configured by address
+     * @param address      address of the server, used when no host name is configured
+     * @param ttlInSeconds time the resolved addresses are cached for
+     */
+    public synchronized void configure(String hostName, InetAddress address, long ttlInSeconds) {
+        if (refresh != null) {
+            refresh.cancel(false);
+            refresh = null;
+        }
+        this.hostName = hostName;
+        if (hostName == null) {
+            addresses = new Addresses(address == null ? ImmutableList.of() : ImmutableList.of(address));
+            return;
+        }
+        refresh = executor.scheduleWithFixedDelay(() -> resolve(hostName), 0,
+                Math.max(1, ttlInSeconds), TimeUnit.SECONDS);
+    }
+
+    private void resolve(String name) {
+        List<InetAddress> resolved;
+        try {
+            resolved = ImmutableList.copyOf(Arrays.asList(InetAddress.getAllByName(name)));
+        } catch (UnknownHostException e) {
+            log.warn("Unable to resolve host {}, keeping addresses {}", name, addresses());
+            return;
+        }
+        synchronized (this) {
+            // ignore the result if the server was reconfigured while resolving
+            if (!Objects.equals(name, hostName)) {
+                return;
+            }
+            if (!resolved.equals(addresses.list)) {
+                log.info("RADIUS server {} resolved to {}", name, resolved);
+            }
+            addresses = new Addresses(resolved);
+        }
+    }
+
+    /**
+     * Returns all the addresses of the RADIUS server.
+     *
+     * @return addresses, empty if not resolved yet
+     */
+    public List<InetAddress> addresses() {
+        return addresses.list;
+    }
+
+    /**
+     * Returns the address requests are sent to.
+     *
+     * @return address, null if not resolved yet
+     */
+    public InetAddress address() {
+        List<InetAddress> current = addresses.list;
+        return current.isEmpty() ? null : current.get(0);
+    }
+
+    /**
+     * Returns whether a packet source address is one of the addresses of
+     * the RADIUS server.
+     *
+     * @param hostAddress textual source address
+     * @return true if the address belongs to the server
+     */
+    public boolean isServerAddress(String hostAddress) {
+        return addresses.hostAddresses.contains(hostAddress);
+    }
+
+    /**
+     * Stops refreshing the addresses.
+     */
+    public synchronized void shutdown() {
+        hostName = null;
+        if (refresh != null) {
+            refresh.cancel(false);
+            refresh = null;
+        }
+    }
+
+    /**
+     * Resolved addresses, replaced as a whole on every refresh.
+     */
+    private static final class Addresses {
+        private final List<InetAddress> list;
+        private final Set<String> hostAddresses;
+
+        private Addresses(List<InetAddress> list) {
+            this.list = list;
+            ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+            list.forEach(address -> builder.add(address.getHostAddress()));
+            this.hostAddresses = builder.build();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import com.google.common.collect.Maps;
+import org.onlab.packet.DeserializationException;
+import org.opencord.aaa.RadiusRequest;
+import org.opencord.aaa.RadiusResponse;
+import org.opencord.aaa.RequestContext;
+import org.slf4j.Logger;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * RADIUS requests sent by a {@link org.opencord.aaa.RadiusCommunicator}
+ * and waiting for their response.
+ * <p>
+ * Each request is keyed by its identifier space, identifier and server, so
+ * that requests to different servers may use the same identifier. A request
+ * is retransmitted unchanged as long as no response arrives in time, and
+ * its future fails with a {@link TimeoutException} once all attempts are
+ * exhausted, or with the transmitter's exception when the request cannot be
+ * sent. Completing or cancelling the future removes the request and
+ * releases its buffer.
+ * </p>
+ * <p>
+ * Responses are matched on their raw header, only the ones a request is
+ * waiting for are decoded.
+ * </p>
+ */
+public class RadiusTransactions {
+
+    private final Logger log = getLogger(getClass());
+
+    private final TimingWheel timer;
+
+    private final BiConsumer<RadiusRequest, RequestContext> transmitter;
+
+    private final ConcurrentMap<Key, Transaction> pending = Maps.newConcurrentMap();
+
+    /**
+     * Creates a new request table.
+     *
+     * @param timer       timer the retransmissions are scheduled on
+     * @param transmitter sends a packet to the server of its request context
+     */
+    public RadiusTransactions(TimingWheel timer, BiConsumer<RadiusRequest, RequestContext> transmitter) {
+        this.timer = timer;
+        this.transmitter = transmitter;
+    }
+
+    /**
+     * Sends a request and waits for its response.
+     *
+     * @param request RADIUS request, released once the future is completed
+     * @param context how the request is sent
+     * @return future completed with the response
+     */
+    public CompletableFuture<RadiusResponse> send(RadiusRequest request, RequestContext context) {
+        Key key = new Key(context.identifierSpace(), request.identifier(), context.server());
+        Transaction transaction = new Transaction(request, context);
+        Transaction previous = pending.put(key, transaction);
+        if (previous != null) {
+            // the identifier was released and reused without the previous request being completed
+            previous.response.cancel(false);
+        }
+        transaction.response.whenComplete((response, error) -> {
+            pending.remove(key, transaction);
+            transaction.cancelTimeout();
+            transaction.release();
+        });
+        if (transaction.transmit()) {
+            transaction.scheduleTimeout();
+        }
+        return transaction.response;
+    }
+
+    /**
+     * Completes the request a response belongs to.
+     *
+     * @param identifierSpace identifier space the response was received on
+     * @param source          address and port the response was received from
+     * @param data            buffer holding the response
+     * @param offset          offset of the response in the buffer
+     * @param length          length of the response
+     * @return true if the response matched a request waiting for it
+     * @throws DeserializationException if the response matched a request but is malformed
+     */
+    public boolean complete(int identifierSpace, InetSocketAddress source, byte[] data, int offset, int length)
+            throws DeserializationException {
+        Key key = new Key(identifierSpace, RadiusResponse.identifier(data, offset, length), source);
+        Transaction transaction = pending.get(key);
+        if (transaction == null) {
+            return false;
+        }
+        // a malformed response leaves the request waiting for a retransmission to be answered
+        RadiusResponse response = RadiusResponse.decode(data, offset, length);
+        return pending.remove(key, transaction) && transaction.response.complete(response);
+    }
+
+    /**
+     * Returns the number of requests waiting for their response.
+     *
+     * @return pending requests
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Cancels all the requests waiting for their response.
+     */
+    public void clear() {
+        pending.values().forEach(transaction -> transaction.response.cancel(false));
+    }
+
+    /**
+     * Identifies a request by identifier space, identifier and server.
+     */
+    private static final class Key {
+        private final int identifier;
+        private final InetSocketAddress server;
+
+        private Key(int identifierSpace, byte identifier, InetSocketAddress server) {
+            this.identifier = (identifierSpace << 8) | (identifier & 0xff);
+            this.server = server;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return identifier == that.identifier && Objects.equals(server, that.server);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * identifier + Objects.hashCode(server);
+        }
+    }
+
+    /**
+     * A request waiting for its response.
+     */
+    private final class Transaction {
+        private final RadiusRequest request;
+        private final RequestContext context;
+        private final CompletableFuture<RadiusResponse> response = new CompletableFuture<>();
+        private int retransmits;
+        private volatile TimingWheel.Timeout timeout;
+
+        private Transaction(RadiusRequest request, RequestContext context) {
+            this.request = request;
+            this.context = context;
+        }
+
+        private boolean transmit() {
+            try {
+                // the buffer is not released while it is being sent
+                synchronized (this) {
+                    if (response.isDone()) {
+                        return false;
+                    }
+                    transmitter.accept(request, context);
+                }
+                return true;
+            } catch (RuntimeException e) {
+                response.completeExceptionally(e);
+                return false;
+            }
+        }
+
+        private synchronized void release() {
+            request.release();
+        }
+
+        private void scheduleTimeout() {
+            try {
+                timeout = timer.schedule(this::timedOut, context.timeoutInMillis(retransmits),
+                                         TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                response.cancel(false);
+            }
+        }
+
+        private void cancelTimeout() {
+            TimingWheel.Timeout pendingTimeout = timeout;
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel();
+            }
+        }
+
+        private void timedOut() {
+            if (response.isDone()) {
+                return;
+            }
+            if (retransmits + 1 >= context.attempts()) {
+                response.completeExceptionally(new TimeoutException(
+                        "No RADIUS response after " + (retransmits + 1) + " attempts"));
+                return;
+            }
+            retransmits++;
+            context.retransmitted();
+            log.debug("Retransmitting RADIUS request {} {}", request.identifier(), context);
+            if (transmit()) {
+                scheduleTimeout();
+            }
+        }
+    }
+}
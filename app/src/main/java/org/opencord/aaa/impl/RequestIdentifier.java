@@ -20,20 +20,38 @@ import java.util.Objects;
 
 /**
  * An identifier for an authentication request.
+ * <p>
+ * RADIUS identifiers are only 8 bits wide, but they only have to be unique
+ * per source port (RFC 5080, section 2.2.2). A request identifier is therefore
+ * the pair of the identifier space (the source socket the request is sent
+ * from) and the 8 bit identifier within that space.
+ * </p>
  */
 public final class RequestIdentifier {
 
+    private int space;
     private byte identifier;
 
     /**
      * Creates a new request identifier.
      *
+     * @param space identifier space
      * @param identifier id number
      */
-    private RequestIdentifier(byte identifier) {
+    private RequestIdentifier(int space, byte identifier) {
+        this.space = space;
         this.identifier = identifier;
     }
 
+    /**
+     * Returns the identifier space this id was allocated from.
+     *
+     * @return identifier space
+     */
+    public int space() {
+        return this.space;
+    }
+
     /**
      * Returns the id number.
      *
@@ -44,13 +62,24 @@ public final class RequestIdentifier {
     }
 
     /**
-     * Creates a new request identifier.
+     * Creates a new request identifier in the default identifier space.
      *
      * @param identifier id number
      * @return identifier
      */
     public static RequestIdentifier of(byte identifier) {
-        return new RequestIdentifier(identifier);
+        return new RequestIdentifier(0, identifier);
+    }
+
+    /**
+     * Creates a new request identifier.
+     *
+     * @param space identifier space
+     * @param identifier id number
+     * @return identifier
+     */
+    public static RequestIdentifier of(int space, byte identifier) {
+        return new RequestIdentifier(space, identifier);
     }
 
     public boolean equals(Object other) {
@@ -60,10 +89,15 @@ public final class RequestIdentifier {
 
         RequestIdentifier that = (RequestIdentifier) other;
 
-        return identifier == that.identifier;
+        return space == that.space && identifier == that.identifier;
     }
 
     public int hashCode() {
-        return Objects.hashCode(identifier);
+        return Objects.hash(space, identifier);
+    }
+
+    @Override
+    public String toString() {
+        return space + "/" + (identifier & 0xff);
     }
 }
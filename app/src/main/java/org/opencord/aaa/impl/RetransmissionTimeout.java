@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Computes the timeout after which a RADIUS request is retransmitted.
+ * <p>
+ * The timeout follows the measured round trip time the same way TCP does
+ * (RFC 6298): a smoothed round trip time and its variation are updated on
+ * every sample, and the timeout is doubled on every retransmission of a
+ * request, up to a maximum.
+ * </p>
+ */
+public class RetransmissionTimeout {
+
+    private static final double ALPHA = 0.125;
+    private static final double BETA = 0.25;
+    private static final int K = 4;
+
+    // lower bound of the timeout, so a few fast responses do not make it too aggressive
+    private static final long MIN_TIMEOUT_MILLIS = 200;
+
+    private long initialTimeoutInMillis;
+    private long maxTimeoutInMillis;
+
+    private double smoothedRtt = -1;
+    private double rttVariation;
+    private long timeoutInMillis;
+
+    /**
+     * Creates a new retransmission timeout estimator.
+     *
+     * @param initialTimeoutInMillis timeout used before any round trip time is measured
+     * @param maxTimeoutInMillis     maximum timeout
+     */
+    public RetransmissionTimeout(long initialTimeoutInMillis, long maxTimeoutInMillis) {
+        configure(initialTimeoutInMillis, maxTimeoutInMillis);
+    }
+
+    /**
+     * Changes the bounds of the timeout. Measured round trip times are kept.
+     *
+     * @param initialTimeoutInMillis timeout used before any round trip time is measured
+     * @param maxTimeoutInMillis     maximum timeout
+     */
+    public synchronized void configure(long initialTimeoutInMillis, long maxTimeoutInMillis) {
+        checkArgument(initialTimeoutInMillis > 0, "Initial timeout must be positive");
+        checkArgument(maxTimeoutInMillis >= initialTimeoutInMillis,
+                "Maximum timeout must not be lower than the initial timeout");
+        this.initialTimeoutInMillis = initialTimeoutInMillis;
+        this.maxTimeoutInMillis = maxTimeoutInMillis;
+        if (smoothedRtt < 0) {
+            timeoutInMillis = initialTimeoutInMillis;
+        }
+    }
+
+    /**
+     * Updates the timeout with the round trip time of a request that was
+     * not retransmitted.
+     *
+     * @param rttInMillis measured round trip time
+     */
+    public synchronized void addSample(long rttInMillis) {
+        if (smoothedRtt < 0) {
+            smoothedRtt = rttInMillis;
+            rttVariation = rttInMillis / 2.0;
+        } else {
+            rttVariation = (1 - BETA) * rttVariation + BETA * Math.abs(smoothedRtt - rttInMillis);
+            smoothedRtt = (1 - ALPHA) * smoothedRtt + ALPHA * rttInMillis;
+        }
+        long timeout = (long) Math.ceil(smoothedRtt + K * rttVariation);
+        timeoutInMillis = Math.min(Math.max(timeout, MIN_TIMEOUT_MILLIS), maxTimeoutInMillis);
+    }
+
+    /**
+     * Returns the time to wait for a response after sending a request.
+     *
+     * @param retransmits number of times the request was already retransmitted
+     * @return timeout in milliseconds
+     */
+    public synchronized long timeoutInMillis(int retransmits) {
+        long timeout = timeoutInMillis;
+        for (int i = 0; i < retransmits && timeout < maxTimeoutInMillis; i++) {
+            timeout <<= 1;
+        }
+        return Math.min(timeout, maxTimeoutInMillis);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The most recent round trip times of a RADIUS server, to estimate their
+ * percentiles.
+ */
+public class RoundTripTimeSamples {
+
+    private final long[] samples;
+
+    private final int minSamples;
+
+    private int count;
+
+    private int next;
+
+    /**
+     * Creates an empty sample window.
+     *
+     * @param size       number of samples kept
+     * @param minSamples number of samples needed before percentiles are estimated
+     */
+    public RoundTripTimeSamples(int size, int minSamples) {
+        checkArgument(size > 0 && minSamples <= size, "Invalid sample window %s/%s", minSamples, size);
+        this.samples = new long[size];
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Adds a round trip time, replacing the oldest one once the window is full.
+     *
+     * @param rttInMillis round trip time
+     */
+    public synchronized void add(long rttInMillis) {
+        samples[next] = rttInMillis;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /**
+     * Estimates a percentile of the round trip times in the window.
+     *
+     * @param percentile percentile, from 1 to 100
+     * @return round trip time in milliseconds, -1 if there are not enough samples yet
+     */
+    public long percentile(int percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (count < minSamples) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+    }
+}
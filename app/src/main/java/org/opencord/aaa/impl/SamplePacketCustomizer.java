@@ -22,11 +22,11 @@ import java.nio.ByteBuffer;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.IPv4;
 import org.onlab.packet.MacAddress;
-import org.onlab.packet.RADIUS;
 import org.onlab.packet.RADIUSAttribute;
 import org.onosproject.net.AnnotationKeys;
 import org.onosproject.net.Port;
 import org.onosproject.net.packet.InboundPacket;
+import org.opencord.aaa.RadiusRequest;
 import org.opencord.sadis.SubscriberAndDeviceInformation;
 import org.slf4j.Logger;
 
@@ -56,13 +56,13 @@ public class  SamplePacketCustomizer extends PacketCustomizer {
      * Customize the packet as per specific Setup or RADIUS
      * server requirements.
      *
-     * @param inPkt RADIUS packet to be customized
+     * @param inPkt RADIUS request being encoded
      * @param eapPacket Incoming packet containing EAP for which this the
      *                  RADIUS message is being created
-     * @return Customized RADIUS packet
+     * @return Customized RADIUS request encoder
      */
     @Override
-    public RADIUS customizePacket(RADIUS inPkt, InboundPacket eapPacket) {
+    public RadiusRequest.Encoder customizePacket(RadiusRequest.Encoder inPkt, InboundPacket eapPacket) {
         Port p = customInfo.deviceService().getPort(eapPacket.receivedFrom());
 
         String id = p.annotations().value(AnnotationKeys.PORT_NAME);
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Runs the work on a session one task after the other, and the work on
+ * different sessions in parallel.
+ * <p>
+ * Sessions are hashed onto a fixed set of single-threaded shards. Packets
+ * from the supplicant, RADIUS responses, timeouts and device events of a
+ * session all run on the thread of its shard, in the order they were
+ * submitted, so the state machine of a session is never modified by two
+ * threads at once. With no threads, tasks run on the calling thread.
+ * </p>
+ * <p>
+ * The tasks waiting on a shard are bounded, tasks submitted to a full shard
+ * are dropped.
+ * </p>
+ */
+public class SessionExecutor {
+
+    private final Logger log = getLogger(getClass());
+
+    private final ExecutorService[] shards;
+
+    // called for every task dropped as its shard is full
+    private final Runnable droppedTask;
+
+    /**
+     * Creates an executor with the given number of shards, and no bound on
+     * the tasks waiting on them.
+     *
+     * @param threads number of threads, 0 to run the tasks on the calling thread
+     */
+    public SessionExecutor(int threads) {
+        this(threads, Integer.MAX_VALUE, () -> { });
+    }
+
+    /**
+     * Creates an executor with the given number of shards.
+     *
+     * @param threads     number of threads, 0 to run the tasks on the calling thread
+     * @param queueSize   maximum number of tasks waiting on a shard
+     * @param droppedTask called for every task dropped as its shard is full
+     */
+    public SessionExecutor(int threads, int queueSize, Runnable droppedTask) {
+        this.droppedTask = droppedTask;
+        shards = new ExecutorService[Math.max(0, threads)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(Math.max(1, queueSize)),
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("AAA-session-" + i).build());
+        }
+    }
+
+    /**
+     * Gets the number of threads the sessions are spread over.
+     *
+     * @return number of threads
+     */
+    public int threads() {
+        return shards.length;
+    }
+
+    /**
+     * Runs a task after the tasks already submitted for the same session.
+     * Tasks submitted once the executor is shut down, or while the shard of
+     * the session is full, are dropped.
+     *
+     * @param sessionId session the task works on
+     * @param task      task to run
+     * @return true if the task was queued or ran, false if it was dropped
+     */
+    public boolean execute(String sessionId, Runnable task) {
+        if (shards.length == 0) {
+            task.run();
+            return true;
+        }
+        ExecutorService shard = shardOf(sessionId);
+        try {
+            shard.execute(() -> run(sessionId, task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (shard.isShutdown()) {
+                log.debug("Shutting down, dropping task of session {}", sessionId);
+            } else {
+                log.debug("Too much work queued, dropping task of session {}", sessionId);
+                droppedTask.run();
+            }
+            return false;
+        }
+    }
+
+    private ExecutorService shardOf(String sessionId) {
+        int hash = Objects.hashCode(sessionId);
+        // session IDs of a device only differ by their last characters
+        hash ^= hash >>> 16;
+        return shards[Math.floorMod(hash, shards.length)];
+    }
+
+    private void run(String sessionId, Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.warn("Error processing session {}", sessionId, e);
+        }
+    }
+
+    /**
+     * Stops accepting tasks, the tasks already submitted still run.
+     */
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    /**
+     * Stops accepting tasks and drops the tasks not started yet.
+     */
+    public void shutdownNow() {
+        for (ExecutorService shard : shards) {
+            shard.shutdownNow();
+        }
+    }
+}
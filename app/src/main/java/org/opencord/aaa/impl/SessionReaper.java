@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Picks the sessions to evict so that the session table does not grow
+ * with every supplicant ever seen.
+ * <p>
+ * Sessions left idle or unauthorized are evicted once they have not been
+ * active for a while. The number of sessions is also capped: when the cap
+ * is reached, the least recently active sessions that are not authorized
+ * are evicted, down to a tenth below the cap so that eviction does not run
+ * again for every new session. Authorized sessions are never evicted.
+ * </p>
+ */
+public class SessionReaper {
+
+    private volatile long idleTimeoutInMillis;
+
+    private volatile int maxSessions;
+
+    /**
+     * Creates a new reaper.
+     *
+     * @param idleTimeoutInMillis time an idle or unauthorized session is kept, 0 to keep them
+     * @param maxSessions         maximum number of sessions, 0 for no maximum
+     */
+    public SessionReaper(long idleTimeoutInMillis, int maxSessions) {
+        configure(idleTimeoutInMillis, maxSessions);
+    }
+
+    /**
+     * Changes the idle timeout and the maximum number of sessions.
+     *
+     * @param idleTimeoutInMillis time an idle or unauthorized session is kept, 0 to keep them
+     * @param maxSessions         maximum number of sessions, 0 for no maximum
+     */
+    public void configure(long idleTimeoutInMillis, int maxSessions) {
+        this.idleTimeoutInMillis = Math.max(idleTimeoutInMillis, 0);
+        this.maxSessions = Math.max(maxSessions, 0);
+    }
+
+    /**
+     * Returns whether a session has been idle or unauthorized for longer
+     * than the idle timeout.
+     *
+     * @param session session
+     * @param now     current time in milliseconds
+     * @return true if the session should be evicted
+     */
+    public boolean isExpired(StateMachine session, long now) {
+        long timeout = idleTimeoutInMillis;
+        int state = session.state();
+        return timeout > 0
+                && (state == StateMachine.STATE_IDLE || state == StateMachine.STATE_UNAUTHORIZED)
+                && now - session.lastActivityTime() >= timeout;
+    }
+
+    /**
+     * Gets the sessions that have been idle or unauthorized for longer than
+     * the idle timeout.
+     *
+     * @param sessions sessions to look at
+     * @param now      current time in milliseconds
+     * @return sessions to evict
+     */
+    public List<StateMachine> expired(Iterable<StateMachine> sessions, long now) {
+        List<StateMachine> expired = new ArrayList<>();
+        if (idleTimeoutInMillis == 0) {
+            return expired;
+        }
+        for (StateMachine session : sessions) {
+            if (isExpired(session, now)) {
+                expired.add(session);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Returns whether no session may be added.
+     *
+     * @param sessions current number of sessions
+     * @return true if the maximum number of sessions is reached
+     */
+    public boolean isFull(int sessions) {
+        int max = maxSessions;
+        return max > 0 && sessions >= max;
+    }
+
+    /**
+     * Gets the least recently active sessions that are not authorized, as
+     * many as needed to go a tenth below the maximum number of sessions.
+     *
+     * @param sessions all the sessions
+     * @return sessions to evict, fewer if not enough sessions are evictable
+     */
+    public List<StateMachine> overCap(List<StateMachine> sessions) {
+        int max = maxSessions;
+        int excess = sessions.size() - (max - max / 10);
+        List<StateMachine> evicted = new ArrayList<>();
+        if (max == 0 || excess <= 0) {
+            return evicted;
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        for (StateMachine session : sessions) {
+            if (session.state() != StateMachine.STATE_AUTHORIZED) {
+                candidates.add(new Candidate(session));
+            }
+        }
+        candidates.sort(Comparator.comparingLong(candidate -> candidate.lastActivityTime));
+        for (int i = 0; i < Math.min(excess, candidates.size()); i++) {
+            evicted.add(candidates.get(i).session);
+        }
+        return evicted;
+    }
+
+    /**
+     * Session along with its activity time when the eviction started, so
+     * that the order does not change while sorting.
+     */
+    private static final class Candidate {
+        private final StateMachine session;
+        private final long lastActivityTime;
+
+        private Candidate(StateMachine session) {
+            this.session = session;
+            this.lastActivityTime = session.lastActivityTime();
+        }
+    }
+}
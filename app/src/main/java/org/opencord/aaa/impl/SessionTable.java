@@ -0,0 +1,328 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import com.google.common.collect.Maps;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+/**
+ * Table of the supplicant sessions, keyed by the connect point of the
+ * supplicant.
+ * <p>
+ * A connect point is turned into a long made of a small index given to its
+ * device and of its port number, so finding the session of a packet neither
+ * builds a string nor boxes a key. The table is split into segments locked
+ * independently, each storing its keys and sessions side by side in two
+ * open addressing arrays rather than in an entry object per session.
+ * </p>
+ *
+ * @param <V> type of the sessions
+ */
+public class SessionTable<V> {
+
+    /**
+     * Key of no session, device indices start at 1 so no connect point maps to it.
+     */
+    public static final long NO_KEY = 0;
+
+    // a power of two, well above the number of threads working on sessions
+    private static final int SEGMENTS = 64;
+
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    // devices are few and never given back their index
+    private final ConcurrentMap<DeviceId, Integer> deviceIndices = Maps.newConcurrentMap();
+
+    private final AtomicInteger lastDeviceIndex = new AtomicInteger();
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    // kept apart from the segments so that it is read without locking them
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Creates an empty table.
+     */
+    public SessionTable() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(size);
+        }
+    }
+
+    /**
+     * Gets the key of a connect point, giving its device an index if it has
+     * none yet. Only the lower 32 bits of the port number are kept, the size
+     * of an OpenFlow port number.
+     *
+     * @param cp connect point of the supplicant
+     * @return session key
+     */
+    public long keyOf(ConnectPoint cp) {
+        int device = deviceIndices.computeIfAbsent(cp.deviceId(), id -> lastDeviceIndex.incrementAndGet());
+        return key(device, cp);
+    }
+
+    /**
+     * Gets the key of a connect point without giving its device an index.
+     *
+     * @param cp connect point of the supplicant
+     * @return session key, {@link #NO_KEY} if no session was ever created on the device
+     */
+    public long existingKeyOf(ConnectPoint cp) {
+        Integer device = deviceIndices.get(cp.deviceId());
+        return device == null ? NO_KEY : key(device, cp);
+    }
+
+    private static long key(int device, ConnectPoint cp) {
+        return ((long) device << 32) | (cp.port().toLong() & 0xffffffffL);
+    }
+
+    private Segment segment(long key) {
+        return segments[(int) (hash(key) >>> 58)];
+    }
+
+    private static long hash(long key) {
+        // every bit of the device index and of the port number reaches both
+        // the upper bits picking the segment and the lower bits picking the slot
+        long hash = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Gets the session with the given key.
+     *
+     * @param key session key
+     * @return session, null if none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return key == NO_KEY ? null : (V) segment(key).get(key);
+    }
+
+    /**
+     * Gets the session of a connect point.
+     *
+     * @param cp connect point of the supplicant
+     * @return session, null if none
+     */
+    public V get(ConnectPoint cp) {
+        return get(existingKeyOf(cp));
+    }
+
+    /**
+     * Gets the session of a connect point, creating it if there is none.
+     *
+     * @param cp      connect point of the supplicant
+     * @param factory creates the session from its key
+     * @return session
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(ConnectPoint cp, LongFunction<? extends V> factory) {
+        long key = keyOf(cp);
+        return (V) segment(key).computeIfAbsent(key, factory);
+    }
+
+    /**
+     * Removes the session with the given key.
+     *
+     * @param key session key
+     * @return session removed, null if none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        return key == NO_KEY ? null : (V) segment(key).remove(key);
+    }
+
+    /**
+     * Removes the session with the given key if it is the given session.
+     *
+     * @param key     session key
+     * @param session session expected under the key
+     * @return true if the session was removed
+     */
+    public boolean remove(long key, V session) {
+        return key != NO_KEY && segment(key).remove(key, session) != null;
+    }
+
+    /**
+     * Removes the session of a connect point.
+     *
+     * @param cp connect point of the supplicant
+     * @return session removed, null if none
+     */
+    public V remove(ConnectPoint cp) {
+        return remove(existingKeyOf(cp));
+    }
+
+    /**
+     * Gets a copy of the sessions in the table.
+     *
+     * @return sessions
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<Object> values = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.addValuesTo(values);
+        }
+        return (List<V>) values;
+    }
+
+    /**
+     * Gets the number of sessions in the table.
+     *
+     * @return number of sessions
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Removes all the sessions.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Open addressing table with linear probing, holding the sessions whose
+     * key hashes onto the segment.
+     */
+    private static final class Segment {
+        private final AtomicInteger tableSize;
+        private long[] keys = new long[INITIAL_SEGMENT_CAPACITY];
+        private Object[] values = new Object[INITIAL_SEGMENT_CAPACITY];
+        private int size;
+
+        private Segment(AtomicInteger tableSize) {
+            this.tableSize = tableSize;
+        }
+
+        private int slot(long key) {
+            // the upper bits picked the segment
+            return (int) hash(key) & (keys.length - 1);
+        }
+
+        private int indexOf(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key); keys[i] != NO_KEY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private synchronized Object get(long key) {
+            int index = indexOf(key);
+            return index < 0 ? null : values[index];
+        }
+
+        private synchronized Object computeIfAbsent(long key, LongFunction<?> factory) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                return values[index];
+            }
+            Object value = factory.apply(key);
+            if (value != null) {
+                if ((size + 1) * 4 > keys.length * 3) {
+                    resize(keys.length * 2);
+                }
+                insert(key, value);
+                size++;
+                tableSize.incrementAndGet();
+            }
+            return value;
+        }
+
+        private void insert(long key, Object value) {
+            int mask = keys.length - 1;
+            int i = slot(key);
+            while (keys[i] != NO_KEY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != NO_KEY) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private synchronized Object remove(long key) {
+            return remove(key, null);
+        }
+
+        private synchronized Object remove(long key, Object expected) {
+            int index = indexOf(key);
+            if (index < 0 || (expected != null && values[index] != expected)) {
+                return null;
+            }
+            Object removed = values[index];
+            // shifts back the following keys of the run so that no probe stops at the hole
+            int mask = keys.length - 1;
+            int hole = index;
+            for (int i = (hole + 1) & mask; keys[i] != NO_KEY; i = (i + 1) & mask) {
+                int home = slot(keys[i]);
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    keys[hole] = keys[i];
+                    values[hole] = values[i];
+                    hole = i;
+                }
+            }
+            keys[hole] = NO_KEY;
+            values[hole] = null;
+            size--;
+            tableSize.decrementAndGet();
+            return removed;
+        }
+
+        private synchronized void addValuesTo(List<Object> list) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != NO_KEY) {
+                    list.add(values[i]);
+                }
+            }
+        }
+
+        private synchronized void clear() {
+            Arrays.fill(keys, NO_KEY);
+            Arrays.fill(values, null);
+            tableSize.addAndGet(-size);
+            size = 0;
+        }
+    }
+}
@@ -28,14 +28,21 @@ import org.onosproject.net.packet.PacketContext;
 import org.onosproject.net.packet.PacketService;
 import org.opencord.aaa.AaaConfig;
 import org.opencord.aaa.RadiusCommunicator;
+import org.opencord.aaa.RadiusRequest;
+import org.opencord.aaa.RadiusResponse;
+import org.opencord.aaa.RequestContext;
 import org.slf4j.Logger;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.UnknownHostException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -44,9 +51,29 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Handles Socket based communication with the RADIUS server.
+ * <p>
+ * One UDP channel is opened per identifier space. A receiver thread per
+ * channel reads the responses into pooled direct buffers and hands them
+ * over to a set of worker threads that parse and handle them. Responses
+ * are spread over the workers by session, so the responses of a session
+ * are handled in the order they were received. The buffers are allocated
+ * up front and bound the responses waiting for the workers: when they are
+ * all in use, the receivers wait and the responses queue up in the socket
+ * receive buffers.
+ * </p>
  */
 public class SocketBasedRadiusCommunicator implements RadiusCommunicator {
 
+    // offset of the identifier in a RADIUS packet
+    private static final int RADIUS_IDENTIFIER_OFFSET = 1;
+
+    // number of receive buffers, enough for a burst of responses without using much direct memory
+    private static final int RECEIVE_BUFFERS = 1024;
+
+    // copy of the received packet to parse, one per worker thread; the decoder copies what it keeps
+    private static final ThreadLocal<byte[]> PARSE_BUFFER =
+            ThreadLocal.withInitial(() -> new byte[RADIUS.RADIUS_MAX_LENGTH]);
+
     // for verbose output
     private final Logger log = getLogger(getClass());
 
@@ -56,62 +83,108 @@ public class SocketBasedRadiusCommunicator implements RadiusCommunicator {
     // to receive Packet-in events that we'll respond to
     PacketService packetService;
 
-    // Socket used for UDP communications with RADIUS server
-    private DatagramSocket radiusSocket;
-
-    private String radiusHost;
-
-    // Parsed RADIUS server addresses
-    protected InetAddress radiusIpAddress;
+    // Channels used for UDP communications with RADIUS server, one per identifier space
+    private DatagramChannel[] radiusChannels = new DatagramChannel[0];
 
     // RADIUS server TCP port number
     protected short radiusServerPort;
 
-    // Executor for RADIUS communication thread
+    // Executor for the threads reading from the RADIUS channels
     private ExecutorService executor;
 
+    // Executors handling the received packets, each one handles a subset of the sessions
+    private ExecutorService[] workers = new ExecutorService[0];
+
+    // Receive buffers not in use
+    private final BlockingQueue<ByteBuffer> bufferPool = new ArrayBlockingQueue<>(RECEIVE_BUFFERS);
+
     AaaManager aaaManager;
 
+    // Requests waiting for their response
+    private final RadiusTransactions transactions;
+
     SocketBasedRadiusCommunicator(ApplicationId appId, PacketService pktService,
                                   AaaManager aaaManager) {
         this.appId = appId;
         this.packetService = pktService;
         this.aaaManager = aaaManager;
+        this.transactions = new RadiusTransactions(aaaManager.timer, (request, context) ->
+                transmit(request.buffer(), request, context.identifierSpace(), context.server()));
+        for (int i = 0; i < RECEIVE_BUFFERS; i++) {
+            bufferPool.add(ByteBuffer.allocateDirect(RADIUS.RADIUS_MAX_LENGTH));
+        }
     }
 
     @Override
     public void initializeLocalState(AaaConfig newCfg) {
-        if (newCfg.radiusIp() != null) {
-            radiusIpAddress = newCfg.radiusIp();
-        }
         radiusServerPort = newCfg.radiusServerUdpPort();
-        radiusHost = newCfg.radiusHostName();
 
-        try {
-            radiusSocket = new DatagramSocket(null);
-            radiusSocket.setReuseAddress(true);
-            radiusSocket.bind(new InetSocketAddress(radiusServerPort));
-        } catch (Exception ex) {
-            log.error("Can't open RADIUS socket", ex);
+        int requestedPoolSize = Math.max(1, newCfg.radiusSocketPoolSize());
+        List<DatagramChannel> channels = new ArrayList<>();
+        for (int i = 0; i < requestedPoolSize; i++) {
+            DatagramChannel channel = null;
+            try {
+                channel = DatagramChannel.open();
+                channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                // the first channel keeps using the server port as source port,
+                // additional channels get an ephemeral port
+                channel.bind(new InetSocketAddress(i == 0 ? radiusServerPort : 0));
+                channels.add(channel);
+            } catch (Exception ex) {
+                log.error("Can't open RADIUS socket", ex);
+                closeQuietly(channel);
+            }
+        }
+        // only the channels that opened are identifier spaces, no identifier is given out on a dead one
+        radiusChannels = channels.toArray(new DatagramChannel[0]);
+        int poolSize = radiusChannels.length;
+        if (poolSize < requestedPoolSize) {
+            log.error("Only {} of {} RADIUS sockets could be opened", poolSize, requestedPoolSize);
         }
 
-        log.info("Remote RADIUS Server: {}:{}", radiusIpAddress, radiusServerPort);
+        int receiverThreads = Math.max(1, newCfg.radiusReceiverThreads());
+        log.info("Remote RADIUS Server: {}:{} using {} source sockets and {} receiver threads",
+                 newCfg.radiusIp(), radiusServerPort, poolSize, receiverThreads);
 
-        executor = Executors.newSingleThreadExecutor(
+        workers = new ExecutorService[receiverThreads];
+        for (int i = 0; i < receiverThreads; i++) {
+            workers[i] = Executors.newSingleThreadExecutor(
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("AAA-radius-worker-" + i).build());
+        }
+        executor = Executors.newFixedThreadPool(Math.max(1, poolSize),
                 new ThreadFactoryBuilder()
                         .setNameFormat("AAA-radius-%d").build());
-        executor.execute(radiusListener);
+        for (int i = 0; i < poolSize; i++) {
+            executor.execute(new RadiusListener(i));
+        }
+    }
+
+    private void closeQuietly(DatagramChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Error closing RADIUS socket", e);
+            }
+        }
     }
 
     @Override
     public void clearLocalState() {
-        radiusSocket.close();
+        for (DatagramChannel channel : radiusChannels) {
+            closeQuietly(channel);
+        }
         executor.shutdownNow();
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
     }
 
     @Override
     public void deactivate() {
        clearLocalState();
+       transactions.clear();
     }
 
     @Override
@@ -128,31 +201,40 @@ public class SocketBasedRadiusCommunicator implements RadiusCommunicator {
         packetService.cancelPackets(selector.build(), CONTROL, appId);
     }
 
+    @Override
+    public int identifierSpaces() {
+        // at least one, requests then fail to be sent if no socket could be opened
+        return Math.max(1, radiusChannels.length);
+    }
+
     @Override
     public void sendRadiusPacket(RADIUS radiusPacket, InboundPacket inPkt) {
-        try {
-            final byte[] data = radiusPacket.serialize();
-            final DatagramSocket socket = radiusSocket;
+        RadiusServer server = aaaManager.radiusServerPool.defaultServer();
+        transmit(ByteBuffer.wrap(radiusPacket.serialize()), radiusPacket, 0,
+                 server == null ? null : server.socketAddress());
+    }
 
-            try {
-                InetAddress address;
-                if (radiusHost != null) {
-                    address = InetAddress.getByName(radiusHost);
-                } else {
-                    address = radiusIpAddress;
-                }
-                DatagramPacket packet =
-                        new DatagramPacket(data, data.length, address, radiusServerPort);
-                if (log.isTraceEnabled()) {
-                    log.trace("Sending packet {} to Radius Server {}:{} using socket",
-                              radiusPacket, address, radiusServerPort);
-                }
-                socket.send(packet);
-                aaaManager.radiusOperationalStatusService.setStatusServerReqSent(true);
-            } catch (UnknownHostException uhe) {
-                log.warn("Unable to resolve host {}", radiusHost);
-                aaaManager.radiusOperationalStatusService.setStatusServerReqSent(false);
+    @Override
+    public CompletionStage<RadiusResponse> send(RadiusRequest request, RequestContext context) {
+        return transactions.send(request, context);
+    }
+
+    private void transmit(ByteBuffer data, Object radiusPacket, int identifierSpace, InetSocketAddress server) {
+        final DatagramChannel[] channels = radiusChannels;
+        final DatagramChannel channel = identifierSpace < channels.length ? channels[identifierSpace] : null;
+        if (channel == null) {
+            log.warn("No RADIUS socket open for identifier space {}", identifierSpace);
+            return;
+        }
+        try {
+            if (server == null) {
+                log.warn("RADIUS server address is not resolved yet, dropping request");
+                return;
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("Sending packet {} to Radius Server {} using socket", radiusPacket, server);
             }
+            channel.send(data, server);
         } catch (IOException e) {
             log.info("Cannot send packet to RADIUS server", e);
         }
@@ -169,43 +251,115 @@ public class SocketBasedRadiusCommunicator implements RadiusCommunicator {
         }
     }
 
+    private ByteBuffer acquireBuffer() throws InterruptedException {
+        ByteBuffer buffer = bufferPool.poll();
+        if (buffer == null) {
+            log.debug("All the RADIUS receive buffers are in use, waiting for the workers");
+            buffer = bufferPool.take();
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        bufferPool.offer(buffer);
+    }
+
+    /**
+     * Selects the worker handling a response, so that all the responses of
+     * a session are handled by the same thread.
+     *
+     * @param buffer          received packet
+     * @param identifierSpace identifier space the packet was received on
+     * @return worker executor
+     */
+    private ExecutorService workerFor(ByteBuffer buffer, int identifierSpace) {
+        ExecutorService[] current = workers;
+        if (current.length == 1 || buffer.remaining() <= RADIUS_IDENTIFIER_OFFSET) {
+            return current[0];
+        }
+        String sessionId = aaaManager.sessionIdOf(identifierSpace, buffer.get(RADIUS_IDENTIFIER_OFFSET));
+        int hash = sessionId == null ? 0 : sessionId.hashCode();
+        return current[Math.floorMod(hash, current.length)];
+    }
+
     class RadiusListener implements Runnable {
 
+        // identifier space of the channel this listener is reading from
+        private final int identifierSpace;
+
+        RadiusListener(int identifierSpace) {
+            this.identifierSpace = identifierSpace;
+        }
+
         @Override
         public void run() {
             boolean done = false;
             int packetNumber = 1;
 
-            log.info("UDP listener thread starting up");
-            RADIUS inboundRadiusPacket;
+            log.info("UDP listener thread starting up for identifier space {}", identifierSpace);
+            DatagramChannel channel = radiusChannels[identifierSpace];
             while (!done) {
+                ByteBuffer buffer;
+                try {
+                    buffer = acquireBuffer();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.info("Interrupted, exiting listener thread");
+                    return;
+                }
                 try {
-                    byte[] packetBuffer = new byte[RADIUS.RADIUS_MAX_LENGTH];
-                    DatagramPacket inboundBasePacket =
-                            new DatagramPacket(packetBuffer, packetBuffer.length);
-                    DatagramSocket socket = radiusSocket;
-                    socket.receive(inboundBasePacket);
-                    aaaManager.checkForPacketFromUnknownServer(inboundBasePacket.getAddress().getHostAddress());
+                    InetSocketAddress source = (InetSocketAddress) channel.receive(buffer);
+                    buffer.flip();
                     log.debug("Packet #{} received", packetNumber++);
-                    try {
-                        inboundRadiusPacket =
-                                RADIUS.deserializer()
-                                        .deserialize(inboundBasePacket.getData(),
-                                                0,
-                                                inboundBasePacket.getLength());
-                        aaaManager.aaaStatisticsManager.handleRoundtripTime(inboundRadiusPacket.getIdentifier());
-                        aaaManager.handleRadiusPacket(inboundRadiusPacket);
-                    } catch (DeserializationException dex) {
-                        aaaManager.aaaStatisticsManager.getAaaStats().increaseMalformedResponsesRx();
-                        log.error("Cannot deserialize packet", dex);
-                    }
+                    workerFor(buffer, identifierSpace)
+                            .execute(new RadiusPacketHandler(buffer, source, identifierSpace));
                 } catch (IOException e) {
+                    releaseBuffer(buffer);
                     log.info("Socket was closed, exiting listener thread");
                     done = true;
+                } catch (RuntimeException e) {
+                    // the workers are shut down
+                    releaseBuffer(buffer);
+                    done = true;
                 }
             }
         }
     }
 
-    RadiusListener radiusListener = new RadiusListener();
+    /**
+     * Parses and handles a received RADIUS packet on a worker thread.
+     */
+    private class RadiusPacketHandler implements Runnable {
+        private final ByteBuffer buffer;
+        private final InetSocketAddress source;
+        private final int identifierSpace;
+
+        RadiusPacketHandler(ByteBuffer buffer, InetSocketAddress source, int identifierSpace) {
+            this.buffer = buffer;
+            this.source = source;
+            this.identifierSpace = identifierSpace;
+        }
+
+        @Override
+        public void run() {
+            byte[] data = PARSE_BUFFER.get();
+            int length = buffer.remaining();
+            buffer.get(data, 0, length);
+            releaseBuffer(buffer);
+
+            aaaManager.checkForPacketFromUnknownServer(source.getAddress().getHostAddress());
+            try {
+                if (!transactions.complete(identifierSpace, source, data, 0, length)) {
+                    // not awaited, e.g. a status check response or a late response
+                    aaaManager.handleRadiusPacket(data, 0, length, identifierSpace);
+                }
+            } catch (DeserializationException dex) {
+                aaaManager.malformedPacketFromServer(source.getAddress().getHostAddress());
+                log.error("Cannot deserialize packet", dex);
+            } catch (RuntimeException e) {
+                log.warn("Error handling RADIUS packet from {}", source, e);
+            }
+        }
+    }
 }
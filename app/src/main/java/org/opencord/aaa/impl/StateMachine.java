@@ -26,8 +26,9 @@ import org.slf4j.Logger;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -49,17 +50,31 @@ public class StateMachine {
         TIMEOUT_ELIGIBLE_STATES.add(STATE_PENDING);
     }
     // INDEX to identify the transition in the transition table
+    private static final int NO_CHALLENGE = -1;
+
     static final int TRANSITION_START = 0; // --> started
     static final int TRANSITION_REQUEST_ACCESS = 1;
     static final int TRANSITION_AUTHORIZE_ACCESS = 2;
     static final int TRANSITION_DENY_ACCESS = 3;
     static final int TRANSITION_LOGOFF = 4;
 
-    private static int identifier = -1;
+    // updates the state and the EAP identifier without an object per session
+    private static final AtomicIntegerFieldUpdater<StateMachine> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(StateMachine.class, "currentState");
+    private static final AtomicIntegerFieldUpdater<StateMachine> EAP_IDENTIFIER =
+            AtomicIntegerFieldUpdater.newUpdater(StateMachine.class, "eapIdentifier");
+    private static final AtomicIntegerFieldUpdater<StateMachine> SENT_CHALLENGE_IDENTIFIER =
+            AtomicIntegerFieldUpdater.newUpdater(StateMachine.class, "sentChallengeIdentifier");
+
+    // identifier of the next EAP request sent to the supplicant
+    private volatile int eapIdentifier;
     private byte challengeIdentifier;
     private byte[] challengeState;
+    // identifier of the challenge sent to the supplicant and not answered yet, NO_CHALLENGE if none
+    private volatile int sentChallengeIdentifier = NO_CHALLENGE;
     private byte[] username;
-    private byte[] requestAuthenticator;
+    // RADIUS server the EAP conversation is on
+    private volatile RadiusServer radiusServer;
 
     // Supplicant connectivity info
     private ConnectPoint supplicantConnectpoint;
@@ -67,7 +82,7 @@ public class StateMachine {
     private short vlanId;
     private byte priorityCode;
     private long sessionStartTime;
-    private String eapolTypeVal;
+    private byte eapolType = -1;
 
     public enum EapolType {
         EAPOL_PACKET("EAPOL_PACKET"),
@@ -114,19 +129,33 @@ public class StateMachine {
 
     private static int cleanupTimerTimeOutInMins;
 
-    private String sessionId = null;
+    private final String sessionId;
+
+    // key of the session in the session table
+    private final long sessionKey;
 
-    private final Logger log = getLogger(getClass());
+    private static final Logger log = getLogger(StateMachine.class);
 
-    private State[] states = {new Idle(), new Started(), new Pending(), new Authorized(), new Unauthorized() };
+    // states hold no data of their own and are shared by all sessions
+    private static final State[] STATES = {
+            new Idle(), new Started(), new Pending(), new Authorized(), new Unauthorized() };
 
     // Cleanup Timer instance created for this session
-    private ScheduledExecutorService executor;
-    private java.util.concurrent.ScheduledFuture<?> cleanupTimer = null;
+    private TimingWheel timer;
+    private TimingWheel.Timeout cleanupTimer = null;
+
+    // Runs the timeout along with the other work on the session
+    private final Executor sessionExecutor;
+
+    // set once the session is removed from the session table, its timeout then does nothing
+    private volatile boolean stopped;
 
     // TimeStamp of last EAPOL or RADIUS message received.
     private long lastPacketReceivedTime = 0;
 
+    // time of the last packet of the session, idle sessions are evicted after a while
+    private volatile long lastActivityTime = System.currentTimeMillis();
+
     // State transition table
     /*
      *
@@ -145,20 +174,21 @@ public class StateMachine {
      * LOGOFF _ | _ | _ | IDLE | IDLE
      */
 
-    private int[] idleTransition = {STATE_STARTED, STATE_IDLE, STATE_IDLE, STATE_IDLE, STATE_IDLE };
-    private int[] startedTransition = {STATE_STARTED, STATE_PENDING, STATE_STARTED, STATE_STARTED, STATE_STARTED };
-    private int[] pendingTransition = {STATE_PENDING, STATE_PENDING, STATE_AUTHORIZED, STATE_UNAUTHORIZED,
-            STATE_PENDING };
-    private int[] authorizedTransition = {STATE_STARTED, STATE_AUTHORIZED, STATE_AUTHORIZED, STATE_AUTHORIZED,
-            STATE_IDLE };
-    private int[] unauthorizedTransition = {STATE_STARTED, STATE_UNAUTHORIZED, STATE_UNAUTHORIZED, STATE_UNAUTHORIZED,
-            STATE_IDLE };
+    private static final int[] IDLE_TRANSITION = {STATE_STARTED, STATE_IDLE, STATE_IDLE, STATE_IDLE, STATE_IDLE };
+    private static final int[] STARTED_TRANSITION = {STATE_STARTED, STATE_PENDING, STATE_STARTED, STATE_STARTED,
+            STATE_STARTED };
+    private static final int[] PENDING_TRANSITION = {STATE_PENDING, STATE_PENDING, STATE_AUTHORIZED,
+            STATE_UNAUTHORIZED, STATE_PENDING };
+    private static final int[] AUTHORIZED_TRANSITION = {STATE_STARTED, STATE_AUTHORIZED, STATE_AUTHORIZED,
+            STATE_AUTHORIZED, STATE_IDLE };
+    private static final int[] UNAUTHORIZED_TRANSITION = {STATE_STARTED, STATE_UNAUTHORIZED, STATE_UNAUTHORIZED,
+            STATE_UNAUTHORIZED, STATE_IDLE };
 
-    // THE TRANSITION TABLE
-    private int[][] transition = {idleTransition, startedTransition, pendingTransition, authorizedTransition,
-            unauthorizedTransition };
+    // THE TRANSITION TABLE, shared by all sessions
+    private static final int[][] TRANSITION = {IDLE_TRANSITION, STARTED_TRANSITION, PENDING_TRANSITION,
+            AUTHORIZED_TRANSITION, UNAUTHORIZED_TRANSITION };
 
-    private int currentState = STATE_IDLE;
+    private volatile int currentState = STATE_IDLE;
 
     private static StateMachineDelegate delegate;
 
@@ -171,7 +201,15 @@ public class StateMachine {
     }
 
     private void scheduleTimeout() {
-        cleanupTimer = executor.schedule(this::timeout, cleanupTimerTimeOutInMins, TimeUnit.MINUTES);
+        if (stopped) {
+            return;
+        }
+        if (cleanupTimer != null) {
+            // a new EAPOL-Start restarts the timer
+            cleanupTimer.cancel();
+        }
+        cleanupTimer = timer.schedule(() -> sessionExecutor.execute(this::timeout),
+                                      cleanupTimerTimeOutInMins, TimeUnit.MINUTES);
     }
 
     public static void unsetDelegate(StateMachineDelegate delegate) {
@@ -182,17 +220,31 @@ public class StateMachine {
 
     public static void deleteStateMachineMapping(StateMachine machine) {
         if (machine.cleanupTimer != null) {
-            machine.cleanupTimer.cancel(false);
+            machine.cleanupTimer.cancel();
             machine.cleanupTimer = null;
         }
     }
 
+    /**
+     * Stops the session once it is removed from the session table, so that a
+     * timeout already queued for it does nothing.
+     */
     public void stop() {
+        stopped = true;
         if (cleanupTimer != null) {
-            cleanupTimer.cancel(false);
+            cleanupTimer.cancel();
         }
     }
 
+    /**
+     * Returns whether the session was removed from the session table.
+     *
+     * @return true if the session is stopped
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
     public boolean isWaitingForRadiusResponse() {
         return waitingForRadiusResponse;
     }
@@ -205,12 +257,27 @@ public class StateMachine {
      * Creates a new StateMachine with the given session ID.
      *
      * @param sessionId session Id represented by the switch dpid + port number
-     * @param executor executor to run background tasks on
+     * @param timer timer the session cleanup is scheduled on
+     */
+    public StateMachine(String sessionId, TimingWheel timer) {
+        this(sessionId, SessionTable.NO_KEY, timer, Runnable::run);
+    }
+
+    /**
+     * Creates a new StateMachine with the given session ID, whose timeout
+     * runs on the executor of the session.
+     *
+     * @param sessionId       session Id represented by the switch dpid + port number
+     * @param sessionKey      key of the session in the session table
+     * @param timer           timer the session cleanup is scheduled on
+     * @param sessionExecutor executor running the work on the session one task at a time
      */
-    public StateMachine(String sessionId, ScheduledExecutorService executor) {
+    public StateMachine(String sessionId, long sessionKey, TimingWheel timer, Executor sessionExecutor) {
         log.info("Creating a new state machine for {}", sessionId);
         this.sessionId = sessionId;
-        this.executor = executor;
+        this.sessionKey = sessionKey;
+        this.timer = timer;
+        this.sessionExecutor = sessionExecutor;
     }
 
     /**
@@ -267,6 +334,24 @@ public class StateMachine {
         return lastPacketReceivedTime;
     }
 
+    /**
+     * Gets the time of the last EAPOL packet or RADIUS response of the session.
+     *
+     * @return time in milliseconds
+     */
+    public long lastActivityTime() {
+        return lastActivityTime;
+    }
+
+    /**
+     * Sets the time of the last EAPOL packet or RADIUS response of the session.
+     *
+     * @param lastActivityTime time in milliseconds
+     */
+    public void setLastActivityTime(long lastActivityTime) {
+        this.lastActivityTime = lastActivityTime;
+    }
+
     /**
      * Gets the client's Vlan ID.
      *
@@ -327,7 +412,11 @@ public class StateMachine {
      * @return eapolTypeVal.
      */
     public String eapolType() {
-        return this.eapolTypeVal;
+        if (eapolType < 0) {
+            return null;
+        }
+        EapolType[] types = EapolType.values();
+        return eapolType < types.length ? types[eapolType].eaptype : "INVALID TYPE";
     }
 
     /**
@@ -336,19 +425,8 @@ public class StateMachine {
      * @param value eapol type as byte.
      */
     public void setEapolTypeVal(byte value) {
-        switch (value) {
-            case (byte) 0: this.eapolTypeVal = EapolType.EAPOL_PACKET.eaptype;
-                break;
-            case (byte) 1: this.eapolTypeVal = EapolType.EAPOL_START.eaptype;
-                break;
-            case (byte) 2: this.eapolTypeVal = EapolType.EAPOL_LOGOFF.eaptype;
-                break;
-            case (byte) 3: this.eapolTypeVal = EapolType.EAPOL_KEY.eaptype;
-                break;
-            case (byte) 4: this.eapolTypeVal = EapolType.EAPOL_ASF.eaptype;
-                break;
-            default : this.eapolTypeVal = "INVALID TYPE";
-        }
+        // EapolType constants are declared in the order of their values
+        this.eapolType = value < 0 ? Byte.MAX_VALUE : value;
     }
 
     public String getSessionTerminateReason() {
@@ -392,6 +470,15 @@ public class StateMachine {
         return this.sessionId;
     }
 
+    /**
+     * Gets the key of the session in the session table.
+     *
+     * @return session key
+     */
+    public long sessionKey() {
+        return this.sessionKey;
+    }
+
     /**
      * Set the challenge identifier and the state issued by the RADIUS.
      *
@@ -404,6 +491,24 @@ public class StateMachine {
         this.challengeState = challengeState;
     }
 
+    /**
+     * Gets the RADIUS server the EAP conversation is on.
+     *
+     * @return The RADIUS server, null if no conversation is in progress.
+     */
+    protected RadiusServer radiusServer() {
+        return this.radiusServer;
+    }
+
+    /**
+     * Sets the RADIUS server the EAP conversation is on.
+     *
+     * @param radiusServer The RADIUS server, null when the conversation ends.
+     */
+    protected void setRadiusServer(RadiusServer radiusServer) {
+        this.radiusServer = radiusServer;
+    }
+
     /**
      * Set the challenge identifier issued by the RADIUS on the access challenge
      * request.
@@ -425,6 +530,26 @@ public class StateMachine {
         return this.challengeIdentifier;
     }
 
+    /**
+     * Records the challenge sent to the supplicant, until it answers it.
+     *
+     * @param identifier The EAP identifier of the challenge.
+     * @return true if the supplicant had not answered the previous challenge.
+     */
+    protected boolean challengeSent(byte identifier) {
+        return SENT_CHALLENGE_IDENTIFIER.getAndSet(this, identifier & 0xff) != NO_CHALLENGE;
+    }
+
+    /**
+     * Clears the challenge sent to the supplicant if a response answers it.
+     *
+     * @param identifier The EAP identifier of the response.
+     * @return true if the response answers the challenge sent.
+     */
+    protected boolean challengeAnswered(byte identifier) {
+        return SENT_CHALLENGE_IDENTIFIER.compareAndSet(this, identifier & 0xff, NO_CHALLENGE);
+    }
+
     /**
      * Set the challenge state info issued by the RADIUS.
      *
@@ -453,24 +578,6 @@ public class StateMachine {
         this.username = username;
     }
 
-    /**
-     * Gets the username.
-     *
-     * @return The requestAuthenticator.
-     */
-    protected byte[] requestAuthenticator() {
-        return this.requestAuthenticator;
-    }
-
-    /**
-     * Sets the authenticator.
-     *
-     * @param authenticator The username sent to the RADIUS upon access request.
-     */
-    protected void setRequestAuthenticator(byte[] authenticator) {
-        this.requestAuthenticator = authenticator;
-    }
-
     /**
      * Gets the username.
      *
@@ -481,23 +588,31 @@ public class StateMachine {
     }
 
     /**
-     * Return the identifier of the state machine.
+     * Gets the next identifier of the EAP requests of this session. Each
+     * session has its own sequence, wrapping around after 255.
      *
-     * @return The state machine identifier.
+     * @return The EAP identifier.
      */
-    public synchronized byte identifier() {
-        identifier = (identifier + 1) % 255;
-        return (byte) identifier;
+    public byte identifier() {
+        return (byte) EAP_IDENTIFIER.getAndIncrement(this);
     }
 
     /**
-     * Move to the next state.
+     * Move to the next state. The state is compared and set so that a
+     * transition is never lost to another one made at the same time.
      *
      * @param msg message
+     * @return the state moved from
      */
-    private void next(int msg) {
-        currentState = transition[currentState][msg];
-        log.info("Current State " + currentState);
+    private int next(int msg) {
+        int previous;
+        int next;
+        do {
+            previous = currentState;
+            next = TRANSITION[previous][msg];
+        } while (!STATE.compareAndSet(this, previous, next));
+        log.info("Current State " + next);
+        return previous;
     }
 
     /**
@@ -505,14 +620,15 @@ public class StateMachine {
      */
     public void start() {
         this.scheduleTimeout();
+        // a new conversation, a re-authentication does not continue the challenge of the previous one
+        setChallengeInfo((byte) 0, null);
 
-        states[currentState].start();
+        // move to the next state
+        int previous = next(TRANSITION_START);
+        STATES[previous].start();
 
         delegate.notify(new AuthenticationEvent(AuthenticationEvent.Type.STARTED,
-                supplicantConnectpoint, toAuthRecord()));
-
-        // move to the next state
-        next(TRANSITION_START);
+                supplicantConnectpoint, toAuthRecord(previous)));
     }
 
     /**
@@ -520,22 +636,21 @@ public class StateMachine {
      * next state if possible.
      */
     public void requestAccess() {
-        states[currentState].requestAccess();
+        // move to the next state
+        int previous = next(TRANSITION_REQUEST_ACCESS);
+        STATES[previous].requestAccess();
 
         delegate.notify(new AuthenticationEvent(AuthenticationEvent.Type.REQUESTED,
-                supplicantConnectpoint, toAuthRecord()));
-
-        // move to the next state
-        next(TRANSITION_REQUEST_ACCESS);
+                supplicantConnectpoint, toAuthRecord(previous)));
     }
 
     /**
      * RADIUS has accepted the identification. Move to the next state if possible.
      */
     public void authorizeAccess() {
-        states[currentState].radiusAccepted();
         // move to the next state
-        next(TRANSITION_AUTHORIZE_ACCESS);
+        int previous = next(TRANSITION_AUTHORIZE_ACCESS);
+        STATES[previous].radiusAccepted();
 
         delegate.notify(new AuthenticationEvent(AuthenticationEvent.Type.APPROVED,
                 supplicantConnectpoint, toAuthRecord()));
@@ -548,9 +663,9 @@ public class StateMachine {
      * RADIUS has denied the identification. Move to the next state if possible.
      */
     public void denyAccess() {
-        states[currentState].radiusDenied();
         // move to the next state
-        next(TRANSITION_DENY_ACCESS);
+        int previous = next(TRANSITION_DENY_ACCESS);
+        STATES[previous].radiusDenied();
 
         delegate.notify(new AuthenticationEvent(AuthenticationEvent.Type.DENIED,
                 supplicantConnectpoint, toAuthRecord()));
@@ -563,17 +678,20 @@ public class StateMachine {
      * Logoff request has been requested. Move to the next state if possible.
      */
     public void logoff() {
-        states[currentState].logoff();
-
         // TODO event here?
 
         // move to the next state
-        next(TRANSITION_LOGOFF);
+        int previous = next(TRANSITION_LOGOFF);
+        STATES[previous].logoff();
     }
 
     private AuthenticationRecord toAuthRecord() {
+        return toAuthRecord(currentState);
+    }
+
+    private AuthenticationRecord toAuthRecord(int state) {
         return new AuthenticationRecord(this.supplicantConnectpoint(),
-                this.username(), this.supplicantAddress(), this.stateString(),
+                this.username(), this.supplicantAddress(), STATES[state].name(),
                 this.getLastPacketReceivedTime());
     }
 
@@ -588,7 +706,7 @@ public class StateMachine {
     }
 
     public String stateString() {
-        return states[currentState].name();
+        return STATES[currentState].name();
     }
 
     @Override
@@ -731,10 +849,13 @@ public class StateMachine {
     }
 
     private void timeout() {
+        if (stopped) {
+            return;
+        }
         boolean noTrafficWithinThreshold =
                 (System.currentTimeMillis() - lastPacketReceivedTime) > ((cleanupTimerTimeOutInMins * 60 * 1000) / 2);
 
-        if (TIMEOUT_ELIGIBLE_STATES.contains(currentState) && noTrafficWithinThreshold) {
+        if (TIMEOUT_ELIGIBLE_STATES.contains(state()) && noTrafficWithinThreshold) {
             this.setSessionTerminateReason(SessionTerminationReasons.TIME_OUT.reason);
 
             delegate.notify(new AuthenticationEvent(AuthenticationEvent.Type.TIMEOUT,
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencord.aaa.impl;
+
+import org.slf4j.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Hashed timing wheel running tasks after a delay.
+ * <p>
+ * Time is cut into ticks, and a timeout is put in the bucket of the tick
+ * it expires at, modulo the number of buckets, along with the number of
+ * full turns of the wheel left before it expires. Scheduling and
+ * cancelling are O(1) and never contend on a shared heap: both only queue
+ * the timeout, and a single thread moves the queued timeouts into their
+ * buckets and expires one bucket per tick. Tasks run at most one tick
+ * late, on the given executor.
+ * </p>
+ */
+public class TimingWheel {
+
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    // bounds the time spent moving new timeouts into their buckets on a tick
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    // saves an object per timeout
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private final Logger log = getLogger(getClass());
+
+    private final long tickInNanos;
+
+    private final Bucket[] wheel;
+
+    private final int mask;
+
+    private final Executor taskExecutor;
+
+    // timeouts scheduled since the last tick
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+
+    // timeouts cancelled since the last tick
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final long startTime = System.nanoTime();
+
+    private final Thread worker;
+
+    private volatile boolean stopped;
+
+    // ticks elapsed, only used by the worker thread
+    private long tick;
+
+    /**
+     * Creates a wheel and starts its thread.
+     *
+     * @param tickInMillis  duration of a tick
+     * @param ticksPerWheel number of buckets, rounded up to a power of two
+     * @param taskExecutor  executor the expired tasks run on
+     * @param name          name of the wheel thread
+     */
+    public TimingWheel(long tickInMillis, int ticksPerWheel, Executor taskExecutor, String name) {
+        checkArgument(tickInMillis > 0, "Tick must be positive");
+        checkArgument(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30, "Invalid number of ticks per wheel");
+        this.tickInNanos = TimeUnit.MILLISECONDS.toNanos(tickInMillis);
+        int buckets = 1;
+        while (buckets < ticksPerWheel) {
+            buckets <<= 1;
+        }
+        this.wheel = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = buckets - 1;
+        this.taskExecutor = taskExecutor;
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Runs a task once a delay has elapsed.
+     *
+     * @param task  task to run
+     * @param delay delay
+     * @param unit  unit of the delay
+     * @return handle to cancel the task
+     * @throws RejectedExecutionException if the wheel is stopped
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new RejectedExecutionException("Timing wheel is stopped");
+        }
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay)));
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Gets the number of buckets of the wheel.
+     *
+     * @return number of buckets
+     */
+    public int ticksPerWheel() {
+        return wheel.length;
+    }
+
+    /**
+     * Stops the wheel. The tasks not run yet are dropped.
+     */
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (!stopped) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) {
+                break;
+            }
+            removeCancelled();
+            transferScheduled();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    /**
+     * Sleeps until the end of the current tick.
+     *
+     * @return time elapsed since the wheel started, -1 if stopped meanwhile
+     */
+    private long waitForNextTick() {
+        long deadline = tickInNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startTime;
+            long sleepInMillis = TimeUnit.NANOSECONDS.toMillis(deadline - now + 999999);
+            if (sleepInMillis <= 0) {
+                return now;
+            }
+            try {
+                Thread.sleep(sleepInMillis);
+            } catch (InterruptedException e) {
+                if (stopped) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != INIT) {
+                continue;
+            }
+            long expiryTick = timeout.deadline / tickInNanos;
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+            // a timeout already due expires on the current tick
+            wheel[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Scheduled task, to cancel it.
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        volatile int state = INIT;
+        private long remainingRounds;
+
+        // links within the bucket, only used by the worker thread
+        private Timeout next;
+        private Timeout prev;
+        private Bucket bucket;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task unless it already ran.
+         *
+         * @return true if the task will not run
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, INIT, CANCELLED)) {
+                return false;
+            }
+            cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * Returns whether the task was cancelled.
+         *
+         * @return true if cancelled
+         */
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, INIT, EXPIRED)) {
+                return;
+            }
+            try {
+                taskExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+            } catch (RuntimeException e) {
+                log.warn("Error running timeout task", e);
+            }
+        }
+    }
+
+    /**
+     * Timeouts expiring on the same tick of every turn of the wheel, as a
+     * doubly linked list owned by the worker thread.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = timeout;
+                tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = timeout.next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+
+        private void expire(long now) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
@@ -36,14 +36,19 @@ import org.onosproject.net.config.NetworkConfigRegistryAdapter;
 import org.onosproject.net.packet.InboundPacket;
 import org.onosproject.store.service.TestStorageService;
 import org.opencord.aaa.AaaConfig;
+import org.opencord.aaa.RadiusCommunicator;
+import org.opencord.aaa.RadiusRequest;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
 import static com.google.common.base.Preconditions.checkState;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -57,7 +62,7 @@ public class AaaManagerTest extends AaaTestBase {
     private AaaStatisticsManager aaaStatisticsManager;
 
     class AaaManagerWithoutRadiusServer extends AaaManager {
-        protected void sendRadiusPacket(RADIUS radiusPacket, InboundPacket inPkt) {
+        protected void sendRadiusPacket(RadiusRequest radiusPacket, InboundPacket inPkt, RequestIdentifier identifier) {
             savePacket(radiusPacket);
         }
     }
@@ -207,8 +212,9 @@ public class AaaManagerTest extends AaaTestBase {
 
         //  State machine should have been created by now
 
-        StateMachine stateMachine = aaaManager.getStateMachine(SESSION_ID);
+        StateMachine stateMachine = aaaManager.getStateMachine(SUPPLICANT_CP);
         assertThat(stateMachine, notNullValue());
+        assertThat(stateMachine.sessionId(), is(SESSION_ID));
         assertThat(stateMachine.state(), is(StateMachine.STATE_PENDING));
 
         // (3) RADIUS MD5 challenge
@@ -263,14 +269,14 @@ public class AaaManagerTest extends AaaTestBase {
         Ethernet startPacket = constructSupplicantStartPacket();
         sendPacket(startPacket);
 
-        StateMachine stateMachine = aaaManager.getStateMachine(SESSION_ID);
+        StateMachine stateMachine = aaaManager.getStateMachine(SUPPLICANT_CP);
 
         assertThat(stateMachine, notNullValue());
         assertThat(stateMachine.state(), is(StateMachine.STATE_STARTED));
 
         aaaManager.removeAuthenticationStateByMac(stateMachine.supplicantAddress());
 
-        assertThat(aaaManager.getStateMachine(SESSION_ID), nullValue());
+        assertThat(aaaManager.getStateMachine(SUPPLICANT_CP), nullValue());
     }
 
     /**
@@ -283,4 +289,19 @@ public class AaaManagerTest extends AaaTestBase {
         assertThat(aaaManager.radiusIpAddress.getHostAddress(), is(BAD_IP_ADDRESS));
         assertThat(aaaManager.radiusMacAddress, is(AaaConfig.DEFAULT_RADIUS_MAC));
     }
+
+    /**
+     * Tests that a reconfiguration switches new requests over to a new
+     * communicator, and keeps the previous one open for the requests it
+     * has in flight.
+     */
+    @Test
+    public void testReconfigure() {
+        RadiusCommunicator previous = aaaManager.impl;
+
+        aaaManager.switchRadiusCommunicator(new MockAaaConfig(), false);
+
+        assertThat(aaaManager.impl, not(sameInstance(previous)));
+        assertThat(aaaManager.retiredCommunicators(), contains(previous));
+    }
 }
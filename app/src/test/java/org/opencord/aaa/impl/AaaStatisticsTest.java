@@ -40,6 +40,8 @@ import org.onosproject.net.packet.PacketContext;
 import org.onosproject.net.packet.PacketService;
 import org.onosproject.store.service.TestStorageService;
 import org.opencord.aaa.AaaConfig;
+import org.opencord.aaa.RadiusCommunicator;
+import org.opencord.aaa.RadiusRequest;
 import org.slf4j.Logger;
 
 import java.net.InetAddress;
@@ -68,17 +70,17 @@ public class AaaStatisticsTest extends AaaTestBase {
     private AaaSupplicantMachineStatsManager aaaSupplicantStatsManager;
 
     class AaaManagerWithoutRadiusServer extends AaaManager {
-        protected void sendRadiusPacket(RADIUS radiusPacket, InboundPacket inPkt) {
-            super.sendRadiusPacket(radiusPacket, inPkt);
-            aaaManager.aaaStatisticsManager.putOutgoingIdentifierToMap(radiusPacket.getIdentifier());
+        protected void sendRadiusPacket(RadiusRequest radiusPacket, InboundPacket inPkt, RequestIdentifier identifier) {
+            // decoded before the request is sent and its buffer may be released
             savePacket(radiusPacket);
+            super.sendRadiusPacket(radiusPacket, inPkt, identifier);
         }
 
         // changed the configuration of parent method to protected
-        protected void configureRadiusCommunication() {
+        protected RadiusCommunicator createRadiusCommunicator() {
             PacketService pktService = new MockPacketService();
             ApplicationId appId = new CoreServiceAdapter().registerApplication("org.opencord.aaa");
-            aaaManager.impl = new TestSocketBasedRadiusCommunicator(appId, pktService, aaaManager);
+            return new TestSocketBasedRadiusCommunicator(appId, pktService, this);
         }
     }
 
@@ -221,7 +223,7 @@ public class AaaStatisticsTest extends AaaTestBase {
 
         // State machine should have been created by now
 
-        StateMachine stateMachine = aaaManager.getStateMachine(SESSION_ID);
+        StateMachine stateMachine = aaaManager.getStateMachine(SUPPLICANT_CP);
         assertThat(stateMachine, notNullValue());
         assertThat(stateMachine.state(), is(StateMachine.STATE_PENDING));
 
@@ -306,7 +308,7 @@ public class AaaStatisticsTest extends AaaTestBase {
 
         // State machine should have been created by now
 
-        StateMachine stateMachine = aaaManager.getStateMachine(SESSION_ID);
+        StateMachine stateMachine = aaaManager.getStateMachine(SUPPLICANT_CP);
 
         // (3) RADIUS MD5 challenge
 
@@ -444,7 +446,7 @@ public class AaaStatisticsTest extends AaaTestBase {
         // State machine should have been created by now
 
         //StateMachine stateMachine = StateMachine.lookupStateMachineBySessionId(SESSION_ID);
-        StateMachine stateMachine = aaaManager.getStateMachine(SESSION_ID);
+        StateMachine stateMachine = aaaManager.getStateMachine(SUPPLICANT_CP);
         assertThat(stateMachine, notNullValue());
         assertThat(stateMachine.state(), is(StateMachine.STATE_PENDING));
 
@@ -542,7 +544,7 @@ public class AaaStatisticsTest extends AaaTestBase {
 
         // State machine should have been created by now
 
-        StateMachine stateMachine = aaaManager.getStateMachine(SESSION_ID);
+        StateMachine stateMachine = aaaManager.getStateMachine(SUPPLICANT_CP);
         assertThat(stateMachine, notNullValue());
         assertThat(stateMachine.state(), is(StateMachine.STATE_PENDING));
         Thread.sleep((aaaManager.cleanupTimerTimeOutInMins / 2) + 1);
@@ -591,11 +593,9 @@ public class AaaStatisticsTest extends AaaTestBase {
             RADIUS incomingPkt = (RADIUS) fetchPacket(savedPackets.size() - 1);
             try {
                 if (context == null) {
-                    aaaStatisticsManager.handleRoundtripTime(incomingPkt.getIdentifier());
                     aaaManager.handleRadiusPacket(incomingPkt);
                 } else if (null != context) {
                     aaaManager.checkForPacketFromUnknownServer("100.100.100.0");
-                    aaaStatisticsManager.handleRoundtripTime(incomingPkt.getIdentifier());
                     aaaManager.handleRadiusPacket(incomingPkt);
                     incomingPkt =
                             RADIUS.deserializer().deserialize(incomingPkt.generateAuthCode(), 0, 1);
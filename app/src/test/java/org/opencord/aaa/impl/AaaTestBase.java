@@ -41,6 +41,7 @@ import org.onosproject.net.packet.OutboundPacket;
 import org.onosproject.net.packet.PacketContext;
 import org.onosproject.net.packet.PacketProcessor;
 import org.onosproject.net.packet.PacketServiceAdapter;
+import org.opencord.aaa.RadiusRequest;
 import org.opencord.sadis.BandwidthProfileInformation;
 import org.opencord.sadis.BaseInformationService;
 import org.opencord.sadis.SadisService;
@@ -74,6 +75,9 @@ public class AaaTestBase {
     MacAddress clientMac = MacAddress.valueOf("1a:1a:1a:1a:1a:1a");
     MacAddress serverMac = MacAddress.valueOf("2a:2a:2a:2a:2a:2a");
 
+    // Our supplicant is on port 1 of device "of:1"
+    static final ConnectPoint SUPPLICANT_CP = connectPoint("1", 1);
+
     // Our session id will be the device ID ("of:1") with the port ("1") concatenated
     static final String SESSION_ID = "of:11";
 
@@ -89,6 +93,19 @@ public class AaaTestBase {
         savedPackets.add(packet);
     }
 
+    /**
+     * Decodes the given RADIUS request and saves it onto the saved packets list.
+     *
+     * @param request RADIUS request to save
+     */
+    void savePacket(RadiusRequest request) {
+        try {
+            savePacket(request.toRadius());
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
     /**
      * Keeps a reference to the PacketProcessor and saves the OutboundPackets.
      */
@@ -116,6 +133,8 @@ public class AaaTestBase {
                 public Dictionary<String, Object> getProperties() {
                         Dictionary<String, Object> cfgDict = new Hashtable<String, Object>();
                         cfgDict.put("statisticsGenerationEvent", 20);
+                        // packets are handled before sendPacket() returns
+                        cfgDict.put("sessionThreads", 0);
                         return cfgDict;
                 }
 
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.Test;
+import org.onlab.packet.MacAddress;
+import org.onosproject.net.ConnectPoint;
+import org.opencord.aaa.AuthenticationRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.onosproject.net.NetTestTools.connectPoint;
+
+/**
+ * Tests for the write-behind of the authentication records.
+ */
+public class AuthenticationRecordWriterTest {
+
+    private final Map<ConnectPoint, AuthenticationRecord> records = new HashMap<>();
+    private int writes;
+    private boolean failing;
+
+    private final AuthenticationRecordStore store = new AuthenticationRecordStore() {
+        @Override
+        public void put(ConnectPoint supplicantConnectPoint, AuthenticationRecord record) {
+            if (failing) {
+                throw new IllegalStateException("store unavailable");
+            }
+            writes++;
+            records.put(supplicantConnectPoint, record);
+        }
+
+        @Override
+        public boolean remove(ConnectPoint supplicantConnectPoint) {
+            writes++;
+            return records.remove(supplicantConnectPoint) != null;
+        }
+
+        @Override
+        public Collection<AuthenticationRecord> records() {
+            return records.values();
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    // flushes requested by the writer, run when the test decides
+    private final List<Runnable> flushes = new ArrayList<>();
+
+    private final AuthenticationRecordWriter writer = new AuthenticationRecordWriter(store, flushes::add, 3);
+
+    private static AuthenticationRecord record(ConnectPoint cp, String state) {
+        return new AuthenticationRecord(cp, new byte[0], MacAddress.valueOf(1L), state, 0);
+    }
+
+    /**
+     * Tests that only the latest update of a connect point is written.
+     */
+    @Test
+    public void testCoalesce() {
+        ConnectPoint cp = connectPoint("1", 1);
+        assertThat(writer.update(cp, record(cp, "STARTED_STATE"), false), is(false));
+        assertThat(writer.update(cp, record(cp, "PENDING_STATE"), false), is(true));
+        assertThat(writer.pendingUpdates(), is(1));
+        assertThat(records.get(cp), nullValue());
+        assertThat(flushes, hasSize(0));
+
+        writer.flush();
+        assertThat(writes, is(1));
+        assertThat(records.get(cp).state(), is("PENDING_STATE"));
+        assertThat(writer.pendingUpdates(), is(0));
+
+        // a removal is an update like the others
+        writer.update(cp, null, false);
+        writer.flush();
+        assertThat(records.get(cp), nullValue());
+    }
+
+    /**
+     * Tests that a flush is requested for a terminal state or a full batch,
+     * once until it runs.
+     */
+    @Test
+    public void testFlushRequests() {
+        ConnectPoint cp = connectPoint("1", 1);
+        writer.update(cp, record(cp, "AUTHORIZED_STATE"), true);
+        assertThat(flushes, hasSize(1));
+        flushes.remove(0).run();
+        assertThat(records.get(cp).state(), is("AUTHORIZED_STATE"));
+
+        for (int port = 1; port <= 5; port++) {
+            ConnectPoint other = connectPoint("2", port);
+            writer.update(other, record(other, "STARTED_STATE"), false);
+        }
+        // the batch is full from the third update, one flush is queued
+        assertThat(flushes, hasSize(1));
+        flushes.remove(0).run();
+        assertThat(records.size(), is(6));
+
+        writer.update(cp, null, true);
+        assertThat(flushes, hasSize(1));
+    }
+
+    /**
+     * Tests that a failed write is retried on the next flush, unless a newer
+     * update of the connect point replaced it.
+     */
+    @Test
+    public void testRetry() {
+        ConnectPoint cp = connectPoint("1", 1);
+        ConnectPoint other = connectPoint("1", 2);
+        failing = true;
+        writer.update(cp, record(cp, "STARTED_STATE"), false);
+        writer.update(other, record(other, "STARTED_STATE"), false);
+        writer.flush();
+        assertThat(writer.pendingUpdates(), is(2));
+
+        writer.update(other, record(other, "PENDING_STATE"), false);
+        failing = false;
+        writer.flush();
+        assertThat(records.get(cp).state(), is("STARTED_STATE"));
+        assertThat(records.get(other).state(), is("PENDING_STATE"));
+        assertThat(writer.pendingUpdates(), is(0));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the request identifier allocation.
+ */
+public class IdentifierManagerTest {
+
+    private static final int IDS_PER_SPACE = 254;
+
+    /**
+     * Tests that a single identifier space is exhausted without blocking.
+     */
+    @Test
+    public void testSingleSpaceExhaustion() {
+        IdentifierManager idManager = new IdentifierManager();
+
+        for (int i = 0; i < IDS_PER_SPACE; i++) {
+            assertThat(idManager.getNewIdentifier("session" + i, i), notNullValue());
+        }
+        assertThat(idManager.getNewIdentifier("overflow", SessionTable.NO_KEY), nullValue());
+
+        RequestIdentifier id = RequestIdentifier.of((byte) 2);
+        assertThat(idManager.getSessionId(id), is("session0"));
+        idManager.releaseIdentifier(id);
+        assertThat(idManager.getNewIdentifier("overflow", SessionTable.NO_KEY), is(id));
+    }
+
+    /**
+     * Tests that identifiers are unique per space and that every space
+     * contributes its own identifier range.
+     */
+    @Test
+    public void testMultipleSpaces() {
+        IdentifierManager idManager = new IdentifierManager(4);
+        Set<RequestIdentifier> allocated = new HashSet<>();
+
+        for (int i = 0; i < 4 * IDS_PER_SPACE; i++) {
+            RequestIdentifier id = idManager.getNewIdentifier("session" + i, i);
+            assertThat(id, notNullValue());
+            assertThat(id.identifier() == 0 || id.identifier() == 1, is(false));
+            assertThat(allocated.add(id), is(true));
+        }
+        assertThat(idManager.getNewIdentifier("overflow", SessionTable.NO_KEY), nullValue());
+        assertThat(idManager.inUse(), is(4 * IDS_PER_SPACE));
+    }
+
+    /**
+     * Tests that shrinking the number of spaces keeps in flight identifiers
+     * releasable and stops new allocations from the retired spaces.
+     */
+    @Test
+    public void testShrinkSpaces() {
+        IdentifierManager idManager = new IdentifierManager(2);
+        RequestIdentifier first = idManager.getNewIdentifier("a", SessionTable.NO_KEY);
+        RequestIdentifier second = idManager.getNewIdentifier("b", SessionTable.NO_KEY);
+        assertThat(first.space() == second.space(), is(false));
+
+        idManager.setIdentifierSpaces(1);
+        for (int i = 0; i < 2 * IDS_PER_SPACE; i++) {
+            RequestIdentifier id = idManager.getNewIdentifier("c", SessionTable.NO_KEY);
+            if (id == null) {
+                break;
+            }
+            assertThat(id.space(), is(0));
+        }
+
+        RequestIdentifier retired = first.space() == 1 ? first : second;
+        idManager.releaseIdentifier(retired);
+        assertThat(idManager.getSessionId(retired), nullValue());
+    }
+
+    /**
+     * Tests that identifiers that are not released before their deadline
+     * are reclaimed and can be allocated again.
+     */
+    @Test
+    public void testReclaimExpired() {
+        IdentifierManager idManager = new IdentifierManager();
+        idManager.setTimeoutInMillis(1000);
+
+        for (int i = 0; i < IDS_PER_SPACE; i++) {
+            assertThat(idManager.getNewIdentifier("session" + i, i), notNullValue());
+        }
+        assertThat(idManager.getNewIdentifier("overflow", SessionTable.NO_KEY), nullValue());
+
+        RequestIdentifier answered = RequestIdentifier.of((byte) 2);
+        idManager.releaseIdentifier(answered);
+
+        long now = System.currentTimeMillis();
+        assertThat(idManager.reclaimExpiredIdentifiers(now).size(), is(0));
+
+        Map<RequestIdentifier, InFlightRequest> reclaimed = idManager.reclaimExpiredIdentifiers(now + 2000);
+        assertThat(reclaimed.size(), is(IDS_PER_SPACE - 1));
+        assertThat(reclaimed.containsKey(answered), is(false));
+        assertThat(reclaimed.get(RequestIdentifier.of((byte) 3)).sessionId(), is("session1"));
+        assertThat(reclaimed.get(RequestIdentifier.of((byte) 3)).sessionKey(), is(1L));
+        assertThat(idManager.inUse(), is(0));
+        assertThat(idManager.getNewIdentifier("overflow", SessionTable.NO_KEY), notNullValue());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.Test;
+import org.onlab.packet.Ethernet;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.packet.DefaultInboundPacket;
+import org.onosproject.net.packet.InboundPacket;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the queue of EAP responses waiting for a request identifier.
+ */
+public class IdentifierWaitQueueTest {
+
+    private static InboundPacket packet() {
+        return new DefaultInboundPacket(ConnectPoint.deviceConnectPoint("of:1/1"),
+                new Ethernet(), ByteBuffer.allocate(0));
+    }
+
+    /**
+     * Tests that sessions are served in order and hold a single entry each.
+     */
+    @Test
+    public void testPerSessionFairness() {
+        IdentifierWaitQueue queue = new IdentifierWaitQueue(10);
+        InboundPacket latest = packet();
+
+        assertThat(queue.offer("a", packet()), is(true));
+        assertThat(queue.offer("b", packet()), is(true));
+        assertThat(queue.offer("a", latest), is(true));
+        assertThat(queue.size(), is(2));
+
+        IdentifierWaitQueue.Waiting first = queue.poll();
+        assertThat(first.sessionId(), is("a"));
+        assertThat(first.packet(), sameInstance(latest));
+        assertThat(queue.poll().sessionId(), is("b"));
+        assertThat(queue.poll(), nullValue());
+    }
+
+    /**
+     * Tests that new sessions are rejected once the queue is full.
+     */
+    @Test
+    public void testCapacity() {
+        IdentifierWaitQueue queue = new IdentifierWaitQueue(2);
+
+        assertThat(queue.offer("a", packet()), is(true));
+        assertThat(queue.offer("b", packet()), is(true));
+        assertThat(queue.offer("c", packet()), is(false));
+        // a session already waiting can still update its response
+        assertThat(queue.offer("b", packet()), is(true));
+
+        queue.remove("a");
+        assertThat(queue.offer("c", packet()), is(true));
+        assertThat(queue.size(), is(2));
+    }
+
+    /**
+     * Tests that an entry put back keeps its place at the head of the queue.
+     */
+    @Test
+    public void testPushBack() {
+        IdentifierWaitQueue queue = new IdentifierWaitQueue(10);
+        queue.offer("a", packet());
+        queue.offer("b", packet());
+
+        IdentifierWaitQueue.Waiting waiting = queue.poll();
+        InboundPacket latest = packet();
+        queue.offer("a", latest);
+        queue.pushBack(waiting);
+
+        assertThat(queue.size(), is(2));
+        IdentifierWaitQueue.Waiting head = queue.poll();
+        assertThat(head.sessionId(), is("a"));
+        assertThat(head.packet(), sameInstance(latest));
+        assertThat(head.enqueueTimeInMillis(), is(waiting.enqueueTimeInMillis()));
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.RADIUS;
+import org.opencord.aaa.RadiusRequest;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for RadSec connections against an in-process TLS RADIUS server.
+ */
+public class RadSecConnectionTest {
+
+    private static final char[] PASSWORD = "testing123".toCharArray();
+
+    private static final long KEEPALIVE_INTERVAL = 200;
+
+    private ExecutorService executor;
+    private SSLContext sslContext;
+    private RadiusStub stub;
+    private RadSecConnection connection;
+
+    private final BlockingQueue<Byte> received = new LinkedBlockingQueue<>();
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private final RadSecConnection.Listener listener = new RadSecConnection.Listener() {
+        @Override
+        public void received(RadSecConnection from, byte[] data, int length) {
+            received.add(data[1]);
+        }
+
+        @Override
+        public void closed(RadSecConnection from) {
+            closed.countDown();
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = getClass().getResourceAsStream("/radsec-test.p12")) {
+            keyStore.load(in, PASSWORD);
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, PASSWORD);
+        TrustManagerFactory trustManagerFactory =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(keyStore);
+        sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+        if (stub != null) {
+            stub.close();
+        }
+        executor.shutdownNow();
+    }
+
+    private void connect(int answerAfter, boolean answerKeepalives) throws IOException {
+        stub = new RadiusStub(answerAfter, answerKeepalives);
+        executor.execute(stub);
+        connection = RadSecConnection.open(sslContext.getSocketFactory(), stub.address(), 5000);
+        connection.start(executor, listener);
+    }
+
+    private static RadiusRequest request(int identifier) {
+        return RadiusRequest.encoder(RADIUS.RADIUS_CODE_ACCESS_REQUEST, (byte) identifier).build();
+    }
+
+    private static RadiusRequest statusServer() {
+        return RadiusRequest.encoder((byte) 12, (byte) 0).build();
+    }
+
+    /**
+     * Tests that many requests are outstanding on a connection at once, and
+     * that their responses are matched whatever order they come in.
+     *
+     * @throws Exception if the responses are not received
+     */
+    @Test
+    public void testPipelining() throws Exception {
+        connect(10, true);
+        List<RadiusRequest> requests = new ArrayList<>();
+        for (int i = 2; i < 12; i++) {
+            RadiusRequest request = request(i);
+            requests.add(request);
+            assertThat(connection.send(request), is(true));
+        }
+        // a retransmission is not written again on the same connection
+        assertThat(connection.send(requests.get(0)), is(false));
+
+        // answered in reverse order once all of them arrived
+        for (int i = 11; i >= 2; i--) {
+            assertThat(received.poll(5, TimeUnit.SECONDS), is((byte) i));
+        }
+        assertThat(stub.requests(), is(10));
+    }
+
+    /**
+     * Tests that a silent connection is probed with a Status-Server and
+     * stays open while the probe is answered.
+     *
+     * @throws Exception if the probe is not answered
+     */
+    @Test
+    public void testKeepaliveAnswered() throws Exception {
+        connect(1, true);
+        // not silent for long enough yet
+        assertThat(connection.keepalive(System.currentTimeMillis(), KEEPALIVE_INTERVAL,
+                                        RadSecConnectionTest::statusServer), is(true));
+        assertThat(received.poll(KEEPALIVE_INTERVAL, TimeUnit.MILLISECONDS), is(nullValue()));
+
+        Thread.sleep(KEEPALIVE_INTERVAL);
+        assertThat(connection.keepalive(System.currentTimeMillis(), KEEPALIVE_INTERVAL,
+                                        RadSecConnectionTest::statusServer), is(true));
+        assertThat(received.poll(5, TimeUnit.SECONDS), is((byte) 0));
+        // answered, a probe goes out again after another silent interval
+        assertThat(connection.keepalive(System.currentTimeMillis() + KEEPALIVE_INTERVAL, KEEPALIVE_INTERVAL,
+                                        RadSecConnectionTest::statusServer), is(true));
+        assertThat(received.poll(5, TimeUnit.SECONDS), is((byte) 0));
+        assertThat(stub.requests(), is(0));
+    }
+
+    /**
+     * Tests that a connection whose probe is not answered is reported dead.
+     *
+     * @throws Exception if the connection cannot be opened
+     */
+    @Test
+    public void testKeepaliveNotAnswered() throws Exception {
+        connect(1, false);
+        long now = System.currentTimeMillis() + KEEPALIVE_INTERVAL;
+        assertThat(connection.keepalive(now, KEEPALIVE_INTERVAL, RadSecConnectionTest::statusServer), is(true));
+        assertThat(connection.keepalive(now + KEEPALIVE_INTERVAL / 2, KEEPALIVE_INTERVAL,
+                                        RadSecConnectionTest::statusServer), is(true));
+        assertThat(connection.keepalive(now + KEEPALIVE_INTERVAL, KEEPALIVE_INTERVAL,
+                                        RadSecConnectionTest::statusServer), is(false));
+    }
+
+    /**
+     * Tests that the listener is told when the server closes the connection.
+     *
+     * @throws Exception if the close is not noticed
+     */
+    @Test
+    public void testClosedByServer() throws Exception {
+        connect(1, true);
+        stub.close();
+        assertThat(closed.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(connection.isClosed(), is(true));
+    }
+
+    /**
+     * RADIUS server accepting one RadSec connection. It answers every
+     * request with an Access-Accept once a number of them were received,
+     * the last one received first.
+     */
+    private final class RadiusStub implements Runnable {
+        private final SSLServerSocket serverSocket;
+        private final int answerAfter;
+        private final boolean answerKeepalives;
+        private final List<byte[]> pending = new ArrayList<>();
+        private volatile int requests;
+        private volatile Socket socket;
+
+        private RadiusStub(int answerAfter, boolean answerKeepalives) throws IOException {
+            this.serverSocket = (SSLServerSocket) sslContext.getServerSocketFactory()
+                    .createServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            this.answerAfter = answerAfter;
+            this.answerKeepalives = answerKeepalives;
+        }
+
+        private InetSocketAddress address() {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        }
+
+        private int requests() {
+            return requests;
+        }
+
+        @Override
+        public void run() {
+            try {
+                socket = serverSocket.accept();
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                byte[] header = new byte[4];
+                while (true) {
+                    in.readFully(header);
+                    int length = ((header[2] & 0xff) << 8) | (header[3] & 0xff);
+                    in.skipBytes(length - header.length);
+                    if (header[0] == 12) {
+                        if (answerKeepalives) {
+                            out.write(accept(header[1]));
+                            out.flush();
+                        }
+                        continue;
+                    }
+                    requests++;
+                    pending.add(accept(header[1]));
+                    if (pending.size() >= answerAfter) {
+                        for (int i = pending.size() - 1; i >= 0; i--) {
+                            out.write(pending.get(i));
+                        }
+                        out.flush();
+                        pending.clear();
+                    }
+                }
+            } catch (IOException e) {
+                // closed
+            }
+        }
+
+        private byte[] accept(byte identifier) {
+            byte[] accept = new byte[20];
+            accept[0] = RADIUS.RADIUS_CODE_ACCESS_ACCEPT;
+            accept[1] = identifier;
+            accept[3] = 20;
+            return accept;
+        }
+
+        private void close() throws IOException {
+            Socket accepted = socket;
+            if (accepted != null) {
+                accepted.close();
+            }
+            serverSocket.close();
+        }
+    }
+}
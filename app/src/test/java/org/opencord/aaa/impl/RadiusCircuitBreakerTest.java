@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencord.aaa.RadiusOperationalStatusService.OperationalStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the RADIUS circuit breaker.
+ */
+public class RadiusCircuitBreakerTest {
+
+    private final List<RadiusCircuitBreaker.State> transitions = new ArrayList<>();
+    private RadiusCircuitBreaker breaker;
+
+    @Before
+    public void setUp() {
+        breaker = new RadiusCircuitBreaker(3, 1000, 2, transitions::add);
+    }
+
+    /**
+     * Tests that failures open the breaker and that a successful trial
+     * closes it again.
+     */
+    @Test
+    public void testFailuresAndTrial() {
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        assertThat(breaker.allowRequest(0), is(true));
+        breaker.onFailure(0);
+
+        assertThat(breaker.state(), is(RadiusCircuitBreaker.State.OPEN));
+        assertThat(breaker.allowRequest(500), is(false));
+
+        // one trial once the open time has elapsed
+        assertThat(breaker.allowRequest(1000), is(true));
+        assertThat(breaker.state(), is(RadiusCircuitBreaker.State.HALF_OPEN));
+        assertThat(breaker.allowRequest(1001), is(false));
+
+        // a failed trial opens the breaker again
+        breaker.onFailure(1500);
+        assertThat(breaker.allowRequest(2000), is(false));
+
+        assertThat(breaker.allowRequest(2500), is(true));
+        breaker.onSuccess();
+        assertThat(breaker.allowRequest(2501), is(true));
+        assertThat(transitions, contains(RadiusCircuitBreaker.State.OPEN, RadiusCircuitBreaker.State.HALF_OPEN,
+                RadiusCircuitBreaker.State.OPEN, RadiusCircuitBreaker.State.HALF_OPEN,
+                RadiusCircuitBreaker.State.CLOSED));
+    }
+
+    /**
+     * Tests that the operational status drives the breaker and that starts
+     * are paced while it is open.
+     */
+    @Test
+    public void testOperationalStatus() {
+        assertThat(breaker.allowStart(0), is(true));
+        assertThat(breaker.allowStart(0), is(true));
+        assertThat(breaker.allowStart(0), is(true));
+
+        breaker.onOperationalStatus(OperationalStatus.UNAVAILABLE, 0);
+        assertThat(breaker.state(), is(RadiusCircuitBreaker.State.OPEN));
+        assertThat(breaker.allowStart(0), is(true));
+        assertThat(breaker.allowStart(10), is(true));
+        assertThat(breaker.allowStart(20), is(false));
+        assertThat(breaker.allowStart(1000), is(true));
+
+        breaker.onOperationalStatus(OperationalStatus.IN_USE, 100);
+        assertThat(breaker.state(), is(RadiusCircuitBreaker.State.HALF_OPEN));
+        assertThat(breaker.allowRequest(100), is(true));
+    }
+}
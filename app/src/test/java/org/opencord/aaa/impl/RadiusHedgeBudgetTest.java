@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the budget of hedged RADIUS requests.
+ */
+public class RadiusHedgeBudgetTest {
+
+    /**
+     * Tests that hedges are capped at the configured share of the requests.
+     */
+    @Test
+    public void testBudget() {
+        RadiusHedgeBudget budget = new RadiusHedgeBudget(10);
+        assertThat(budget.isEnabled(), is(true));
+
+        int hedges = 0;
+        for (int i = 0; i < 1000; i++) {
+            budget.requestSent();
+            if (budget.tryHedge()) {
+                hedges++;
+            }
+        }
+        assertThat(hedges, is(100));
+
+        budget.configure(0);
+        assertThat(budget.isEnabled(), is(false));
+        budget.requestSent();
+        assertThat(budget.tryHedge(), is(false));
+    }
+}
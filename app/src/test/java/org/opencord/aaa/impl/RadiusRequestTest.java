@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.Test;
+import org.onlab.packet.EAP;
+import org.onlab.packet.RADIUS;
+import org.onlab.packet.RADIUSAttribute;
+import org.opencord.aaa.RadiusRequest;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the RADIUS request encoder.
+ */
+public class RadiusRequestTest {
+
+    private static final String SECRET = "testing123";
+
+    private static final byte[] NAS_IP = {10, 0, 0, 1};
+    private static final byte[] OTHER_NAS_IP = {10, 0, 0, 2};
+
+    private final MessageAuthenticatorKeys keys = new MessageAuthenticatorKeys();
+
+    private EAP eap(int length) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) 0x5a);
+        return new EAP(EAP.RESPONSE, (byte) 3, EAP.ATTR_TLS, data);
+    }
+
+    /**
+     * Tests that an encoded and signed request is the same as the one
+     * built and signed as a packet, EAP-Message fragments included.
+     *
+     * @throws Exception if the MAC cannot be keyed
+     */
+    @Test
+    public void testSameAsPacket() throws Exception {
+        EAP eap = eap(600);
+        RadiusRequest.Encoder encoder = RadiusRequest.encoder(RADIUS.RADIUS_CODE_ACCESS_REQUEST, (byte) 42)
+                .setAttribute(RADIUSAttribute.RADIUS_ATTR_USERNAME, "user".getBytes())
+                .setAttribute(RADIUSAttribute.RADIUS_ATTR_NAS_IP, NAS_IP)
+                .encapsulateMessage(eap)
+                .setAttribute(RADIUSAttribute.RADIUS_ATTR_STATE, new byte[] {1, 2, 3});
+        RadiusRequest request = encoder.sign(keys.mac(SECRET));
+
+        RADIUS radius = new RADIUS(RADIUS.RADIUS_CODE_ACCESS_REQUEST, (byte) 42);
+        radius.setAuthenticator(encoder.requestAuthenticator());
+        radius.setAttribute(RADIUSAttribute.RADIUS_ATTR_USERNAME, "user".getBytes());
+        radius.setAttribute(RADIUSAttribute.RADIUS_ATTR_NAS_IP, NAS_IP);
+        radius.encapsulateMessage(eap);
+        radius.setAttribute(RADIUSAttribute.RADIUS_ATTR_STATE, new byte[] {1, 2, 3});
+        radius.addMessageAuthenticator(SECRET);
+
+        assertThat(request.toBytes(), is(radius.serialize()));
+        assertThat(request.identifier(), is((byte) 42));
+        assertThat(request.requestAuthenticator(), is(encoder.requestAuthenticator()));
+        assertThat(request.toRadius().decapsulateMessage().getLength(), is(eap.getLength()));
+
+        ByteBuffer buffer = request.buffer();
+        assertThat(buffer.remaining(), is(request.length()));
+        request.release();
+    }
+
+    /**
+     * Tests that updating an attribute replaces its value in place and
+     * moves the attributes after it when the length changes.
+     *
+     * @throws Exception if the request cannot be decoded
+     */
+    @Test
+    public void testUpdateAttribute() throws Exception {
+        RadiusRequest request = RadiusRequest.encoder(RADIUS.RADIUS_CODE_ACCESS_REQUEST, (byte) 1)
+                .setAttribute(RADIUSAttribute.RADIUS_ATTR_NAS_IP, NAS_IP)
+                .setAttribute(RADIUSAttribute.RADIUS_ATTR_USERNAME, "user".getBytes())
+                .updateAttribute(RADIUSAttribute.RADIUS_ATTR_NAS_IP, OTHER_NAS_IP)
+                .updateAttribute(RADIUSAttribute.RADIUS_ATTR_USERNAME, "other-user".getBytes())
+                .updateAttribute(RADIUSAttribute.RADIUS_ATTR_NAS_ID, "olt".getBytes())
+                .build();
+
+        RADIUS radius = request.toRadius();
+        assertThat(radius.getAttributeList().size(), is(3));
+        assertThat(radius.getAttribute(RADIUSAttribute.RADIUS_ATTR_NAS_IP).getValue(), is(OTHER_NAS_IP));
+        assertThat(new String(radius.getAttribute(RADIUSAttribute.RADIUS_ATTR_USERNAME).getValue()),
+                   is("other-user"));
+        assertThat(new String(radius.getAttribute(RADIUSAttribute.RADIUS_ATTR_NAS_ID).getValue()), is("olt"));
+        request.release();
+    }
+
+    /**
+     * Tests that a released request cannot be sent anymore.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testReleased() {
+        RadiusRequest request = RadiusRequest.encoder(RADIUS.RADIUS_CODE_ACCESS_REQUEST, (byte) 1).build();
+        request.release();
+        request.release();
+        request.buffer();
+    }
+}
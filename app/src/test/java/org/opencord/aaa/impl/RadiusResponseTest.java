@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.Test;
+import org.onlab.packet.EAP;
+import org.onlab.packet.RADIUS;
+import org.onlab.packet.RADIUSAttribute;
+import org.opencord.aaa.RadiusResponse;
+
+import javax.crypto.Mac;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the RADIUS response decoder and its Message-Authenticator
+ * verification.
+ */
+public class RadiusResponseTest {
+
+    private static final String SECRET = "testing123";
+
+    private final MessageAuthenticatorKeys keys = new MessageAuthenticatorKeys();
+
+    private RADIUS challenge(byte[] authenticator) {
+        byte[] data = new byte[600];
+        Arrays.fill(data, (byte) 0x5a);
+        EAP eap = new EAP(EAP.REQUEST, (byte) 3, EAP.ATTR_TLS, data);
+
+        RADIUS radius = new RADIUS(RADIUS.RADIUS_CODE_ACCESS_CHALLENGE, (byte) 42);
+        radius.setAuthenticator(authenticator);
+        radius.setAttribute(RADIUSAttribute.RADIUS_ATTR_STATE, new byte[] {1, 2, 3});
+        radius.encapsulateMessage(eap);
+        radius.addMessageAuthenticator(SECRET);
+        return radius;
+    }
+
+    /**
+     * Tests that the header and the attributes are decoded, and that an
+     * EAP message split over several attributes is reassembled once.
+     *
+     * @throws Exception if the response cannot be decoded
+     */
+    @Test
+    public void testDecode() throws Exception {
+        byte[] packet = challenge(new byte[16]).serialize();
+        // trailing padding is not part of the response
+        byte[] received = Arrays.copyOf(packet, packet.length + 4);
+        RadiusResponse response = RadiusResponse.decode(received, 0, received.length);
+
+        assertThat(response.code(), is(RADIUS.RADIUS_CODE_ACCESS_CHALLENGE));
+        assertThat(response.identifier(), is((byte) 42));
+        assertThat(response.length(), is(packet.length));
+        assertThat(response.state(), is(new byte[] {1, 2, 3}));
+        assertThat(response.attribute(RADIUSAttribute.RADIUS_ATTR_USERNAME), is(nullValue()));
+
+        EAP eap = response.eapMessage();
+        assertThat(eap.getIdentifier(), is((byte) 3));
+        assertThat(eap.getData().length, is(600));
+        assertThat(response.eapMessage(), sameInstance(eap));
+    }
+
+    /**
+     * Tests the verification of the Message-Authenticator against the
+     * authenticator of the request.
+     *
+     * @throws Exception if the response cannot be decoded
+     */
+    @Test
+    public void testMessageAuthenticator() throws Exception {
+        byte[] requestAuthenticator = new byte[16];
+        Arrays.fill(requestAuthenticator, (byte) 7);
+        RadiusResponse response = RadiusResponse.of(challenge(requestAuthenticator));
+        byte[] received = response.attribute(RADIUSAttribute.RADIUS_ATTR_MESSAGE_AUTH);
+
+        Mac mac = keys.mac(SECRET);
+        assertThat(response.verifyMessageAuthenticator(mac, requestAuthenticator), is(true));
+        // the keyed instance is reused and gives the same result again
+        assertThat(keys.mac(SECRET), sameInstance(mac));
+        assertThat(response.verifyMessageAuthenticator(mac, requestAuthenticator), is(true));
+        assertThat(response.verifyMessageAuthenticator(keys.mac("other"), requestAuthenticator), is(false));
+        assertThat(response.verifyMessageAuthenticator(mac, new byte[16]), is(false));
+        // the received bytes are left untouched
+        assertThat(response.attribute(RADIUSAttribute.RADIUS_ATTR_MESSAGE_AUTH), is(received));
+
+        RadiusResponse unsigned = RadiusResponse.of(
+                new RADIUS(RADIUS.RADIUS_CODE_ACCESS_ACCEPT, (byte) 42));
+        assertThat(unsigned.verifyMessageAuthenticator(mac, requestAuthenticator), is(false));
+    }
+
+    /**
+     * Tests that no MAC can be keyed with an empty secret.
+     *
+     * @throws Exception if the MAC cannot be keyed
+     */
+    @Test(expected = GeneralSecurityException.class)
+    public void testEmptySecret() throws Exception {
+        keys.mac("");
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.Test;
+import org.opencord.aaa.RadiusServerHealth;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the health score of a RADIUS server.
+ */
+public class RadiusServerHealthTrackerTest {
+
+    /**
+     * Tests that timeouts and invalid responses lower the score and that
+     * valid responses bring it back.
+     */
+    @Test
+    public void testScore() {
+        RadiusServerHealthTracker tracker = new RadiusServerHealthTracker("10.0.0.1:1812");
+        tracker.recordResponse(100, true, 1000);
+        RadiusServerHealth healthy = tracker.health(10000);
+        assertThat(healthy.roundTripTimeInMillis(), closeTo(100, 0.001));
+        assertThat(healthy.score(), closeTo(10000.0 / 10100, 0.001));
+
+        tracker.recordTimeout();
+        tracker.recordTimeout();
+        tracker.recordResponse(100, false, 2000);
+        RadiusServerHealth degraded = tracker.health(10000);
+        assertThat(degraded.timeoutRatio(), greaterThan(0.1));
+        assertThat(degraded.invalidResponseRatio(), closeTo(RadiusServerHealthTracker.ALPHA, 0.001));
+        assertThat(degraded.score(), lessThan(healthy.score()));
+
+        for (int i = 0; i < 50; i++) {
+            tracker.recordResponse(100, true, 3000);
+        }
+        assertThat(tracker.health(10000).score(), greaterThan(degraded.score()));
+    }
+
+    /**
+     * Tests that a server is idle until it answers, and again once the
+     * answer is older than the window.
+     */
+    @Test
+    public void testIdle() {
+        RadiusServerHealthTracker tracker = new RadiusServerHealthTracker("10.0.0.1:1812");
+        assertThat(tracker.isIdle(1000, 500), is(true));
+        tracker.recordMalformedResponse();
+        assertThat(tracker.isIdle(1000, 500), is(true));
+        tracker.recordResponse(10, true, 1000);
+        assertThat(tracker.isIdle(1400, 500), is(false));
+        assertThat(tracker.isIdle(1600, 500), is(true));
+    }
+}
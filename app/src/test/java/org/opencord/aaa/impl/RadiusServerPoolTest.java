@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencord.aaa.RadiusServerConfig;
+
+import java.net.InetAddress;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the RADIUS server pool.
+ */
+public class RadiusServerPoolTest {
+
+    private RadiusServerPool pool;
+    private RadiusServerConfig first;
+    private RadiusServerConfig second;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new RadiusServerPool();
+        first = new RadiusServerConfig(null, InetAddress.getByName("10.0.0.1"), (short) 1812, "a", 1);
+        second = new RadiusServerConfig(null, InetAddress.getByName("10.0.0.2"), (short) 1813, "b", 2);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Tests that new conversations go to the least loaded server and that
+     * a conversation stays on its server.
+     */
+    @Test
+    public void testLeastOutstanding() {
+        pool.configure(ImmutableList.of(first, second), RadiusServerPool.LoadBalancing.LEAST_OUTSTANDING, 60);
+        RadiusServer server1 = pool.servers().get(0);
+        RadiusServer server2 = pool.servers().get(1);
+
+        server1.requestSent();
+        server2.requestSent();
+        server2.requestSent();
+        // 1/1 against 2/2, first one wins the tie
+        assertThat(pool.select(null), is(server1));
+
+        server1.requestSent();
+        assertThat(pool.select(null), is(server2));
+        assertThat(pool.select(server1), is(server1));
+        assertThat(pool.isServerAddress("10.0.0.2"), is(true));
+        assertThat(pool.isServerPort(1813), is(true));
+        assertThat(pool.isServerPort(1814), is(false));
+    }
+
+    /**
+     * Tests the smooth weighted round robin.
+     */
+    @Test
+    public void testWeightedRoundRobin() {
+        pool.configure(ImmutableList.of(first, second), RadiusServerPool.LoadBalancing.WEIGHTED_ROUND_ROBIN, 60);
+        RadiusServer server1 = pool.servers().get(0);
+
+        int selected = 0;
+        for (int i = 0; i < 30; i++) {
+            if (pool.select(null) == server1) {
+                selected++;
+            }
+        }
+        assertThat(selected, is(10));
+    }
+
+    /**
+     * Tests that a server that stops responding is taken out of rotation,
+     * moving its conversations to another server, and is put back when it
+     * responds again.
+     */
+    @Test
+    public void testFailover() {
+        pool.configure(ImmutableList.of(first, second), RadiusServerPool.LoadBalancing.LEAST_OUTSTANDING, 60);
+        RadiusServer server1 = pool.servers().get(0);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < RadiusServer.FAILURE_THRESHOLD; i++) {
+            server1.responseTimedOut(now);
+        }
+        assertThat(server1.isAvailable(now), is(false));
+        assertThat(pool.select(server1), not(server1));
+
+        server1.responseReceived();
+        assertThat(pool.select(server1), is(server1));
+
+        // reconfiguring keeps the servers that did not change
+        pool.configure(ImmutableList.of(first), null, 60);
+        assertThat(pool.servers().get(0), is(server1));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the RADIUS server address cache.
+ */
+public class RadiusServerResolverTest {
+
+    private ScheduledExecutorService executor;
+    private RadiusServerResolver resolver;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        resolver = new RadiusServerResolver(executor);
+    }
+
+    @After
+    public void tearDown() {
+        resolver.shutdown();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tests a server configured by address.
+     *
+     * @throws Exception if the address cannot be built
+     */
+    @Test
+    public void testStaticAddress() throws Exception {
+        InetAddress address = InetAddress.getByName("10.0.0.1");
+        resolver.configure(null, address, 60);
+
+        assertThat(resolver.address(), is(address));
+        assertThat(resolver.isServerAddress("10.0.0.1"), is(true));
+        assertThat(resolver.isServerAddress("10.0.0.2"), is(false));
+    }
+
+    /**
+     * Tests that a host name is resolved in the background.
+     *
+     * @throws Exception if interrupted while waiting
+     */
+    @Test
+    public void testHostName() throws Exception {
+        resolver.configure("localhost", null, 60);
+
+        for (int i = 0; i < 50 && resolver.address() == null; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(resolver.address(), notNullValue());
+        assertThat(resolver.isServerAddress(resolver.address().getHostAddress()), is(true));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.DeserializationException;
+import org.onlab.packet.RADIUS;
+import org.opencord.aaa.RadiusRequest;
+import org.opencord.aaa.RadiusResponse;
+import org.opencord.aaa.RequestContext;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the table of RADIUS requests waiting for their response.
+ */
+public class RadiusTransactionsTest {
+
+    private TimingWheel timer;
+    private RadiusTransactions transactions;
+    private final AtomicInteger transmitted = new AtomicInteger();
+    private final AtomicInteger retransmitted = new AtomicInteger();
+    private final InetSocketAddress server = new InetSocketAddress("10.0.0.1", 1812);
+    private final InetSocketAddress otherServer = new InetSocketAddress("10.0.0.2", 1812);
+
+    @Before
+    public void setUp() {
+        timer = new TimingWheel(10, 512, Runnable::run, "test-timer");
+        transactions = new RadiusTransactions(timer, (packet, context) -> transmitted.incrementAndGet());
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    private RadiusRequest request() {
+        return RadiusRequest.of(new RADIUS(RADIUS.RADIUS_CODE_ACCESS_REQUEST, (byte) 7));
+    }
+
+    private RequestContext context(int identifierSpace, long timeoutInMillis) {
+        return RequestContext.builder()
+                .identifierSpace(identifierSpace)
+                .server(server)
+                .attempts(3)
+                .timeoutInMillis(retransmits -> timeoutInMillis)
+                .retransmitListener(retransmitted::incrementAndGet)
+                .build();
+    }
+
+    /**
+     * Tests that a response completes the request with the same identifier
+     * in the same identifier space from the same server only.
+     *
+     * @throws Exception if the response is not received
+     */
+    @Test
+    public void testResponse() throws Exception {
+        CompletableFuture<RadiusResponse> response =
+                transactions.send(request(), context(1, 10000));
+        assertThat(transmitted.get(), is(1));
+
+        byte[] accept = new RADIUS(RADIUS.RADIUS_CODE_ACCESS_ACCEPT, (byte) 7).serialize();
+        assertThat(transactions.complete(0, server, accept, 0, accept.length), is(false));
+        assertThat(transactions.complete(1, otherServer, accept, 0, accept.length), is(false));
+        assertThat(transactions.complete(1, server, accept, 0, accept.length), is(true));
+        RadiusResponse received = response.get(1, TimeUnit.SECONDS);
+        assertThat(received.code(), is(RADIUS.RADIUS_CODE_ACCESS_ACCEPT));
+        assertThat(received.identifier(), is((byte) 7));
+        assertThat(transactions.size(), is(0));
+        assertThat(transactions.complete(1, server, accept, 0, accept.length), is(false));
+    }
+
+    /**
+     * Tests that responses are only decoded when a request waits for them,
+     * and that a malformed response leaves the request waiting.
+     *
+     * @throws Exception if the response is not received
+     */
+    @Test
+    public void testMalformedResponse() throws Exception {
+        CompletableFuture<RadiusResponse> response =
+                transactions.send(request(), context(0, 10000));
+
+        // attribute length running past the end of the packet
+        byte[] malformed = new RADIUS(RADIUS.RADIUS_CODE_ACCESS_ACCEPT, (byte) 7).serialize();
+        malformed = Arrays.copyOf(malformed, malformed.length + 2);
+        malformed[3] = (byte) malformed.length;
+        malformed[malformed.length - 2] = 79;
+        malformed[malformed.length - 1] = 10;
+
+        // not awaited, not decoded
+        malformed[1] = 8;
+        assertThat(transactions.complete(0, server, malformed, 0, malformed.length), is(false));
+
+        malformed[1] = 7;
+        try {
+            transactions.complete(0, server, malformed, 0, malformed.length);
+            fail("Malformed response should not be decoded");
+        } catch (DeserializationException e) {
+            assertThat(response.getNow(null), is(nullValue()));
+            assertThat(transactions.size(), is(1));
+        }
+    }
+
+    /**
+     * Tests that an unanswered request is retransmitted and then given up.
+     *
+     * @throws Exception if interrupted while waiting
+     */
+    @Test
+    public void testRetransmissionAndTimeout() throws Exception {
+        CompletableFuture<RadiusResponse> response =
+                transactions.send(request(), context(0, 10));
+        try {
+            response.get(5, TimeUnit.SECONDS);
+            fail("Request should have timed out");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        }
+        assertThat(transmitted.get(), is(3));
+        assertThat(retransmitted.get(), is(2));
+        assertThat(transactions.size(), is(0));
+    }
+
+    /**
+     * Tests that cancelling a request stops its retransmissions.
+     *
+     * @throws Exception if interrupted while waiting
+     */
+    @Test
+    public void testCancel() throws Exception {
+        CompletableFuture<RadiusResponse> response =
+                transactions.send(request(), context(0, 20));
+        response.cancel(false);
+        Thread.sleep(100);
+
+        assertThat(transmitted.get(), is(1));
+        assertThat(transactions.size(), is(0));
+    }
+
+    /**
+     * Tests that a request is released once it is answered.
+     *
+     * @throws Exception if the response is not received
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testReleasedWhenAnswered() throws Exception {
+        RadiusRequest request = request();
+        CompletableFuture<RadiusResponse> response = transactions.send(request, context(0, 10000));
+
+        byte[] accept = new RADIUS(RADIUS.RADIUS_CODE_ACCESS_ACCEPT, (byte) 7).serialize();
+        assertThat(transactions.complete(0, server, accept, 0, accept.length), is(true));
+        response.get(1, TimeUnit.SECONDS);
+        request.buffer();
+    }
+}
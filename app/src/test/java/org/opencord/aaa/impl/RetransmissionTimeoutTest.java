@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the RADIUS retransmission timeout.
+ */
+public class RetransmissionTimeoutTest {
+
+    /**
+     * Tests the backoff of the initial timeout.
+     */
+    @Test
+    public void testBackoff() {
+        RetransmissionTimeout timeout = new RetransmissionTimeout(2000, 16000);
+
+        assertThat(timeout.timeoutInMillis(0), is(2000L));
+        assertThat(timeout.timeoutInMillis(1), is(4000L));
+        assertThat(timeout.timeoutInMillis(3), is(16000L));
+        assertThat(timeout.timeoutInMillis(10), is(16000L));
+    }
+
+    /**
+     * Tests that the timeout follows the measured round trip time.
+     */
+    @Test
+    public void testAdaptsToRoundTripTime() {
+        RetransmissionTimeout timeout = new RetransmissionTimeout(2000, 16000);
+
+        for (int i = 0; i < 20; i++) {
+            timeout.addSample(50);
+        }
+        assertThat(timeout.timeoutInMillis(0), is(200L));
+
+        for (int i = 0; i < 20; i++) {
+            timeout.addSample(i % 2 == 0 ? 400 : 1200);
+        }
+        assertThat(timeout.timeoutInMillis(0), greaterThan(1200L));
+        assertThat(timeout.timeoutInMillis(0), lessThan(16000L));
+    }
+}
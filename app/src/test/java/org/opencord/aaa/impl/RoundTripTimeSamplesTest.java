@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the round trip time percentiles of a RADIUS server.
+ */
+public class RoundTripTimeSamplesTest {
+
+    /**
+     * Tests that percentiles are estimated once enough samples are in the
+     * window, and only from the most recent ones.
+     */
+    @Test
+    public void testPercentile() {
+        RoundTripTimeSamples samples = new RoundTripTimeSamples(100, 10);
+        for (int i = 1; i < 10; i++) {
+            samples.add(i);
+        }
+        assertThat(samples.percentile(95), is(-1L));
+
+        for (int i = 10; i <= 100; i++) {
+            samples.add(i);
+        }
+        assertThat(samples.percentile(95), is(95L));
+        assertThat(samples.percentile(100), is(100L));
+
+        // the window slides over the oldest samples
+        for (int i = 0; i < 100; i++) {
+            samples.add(1000);
+        }
+        assertThat(samples.percentile(1), is(1000L));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the executor running the work on each session.
+ */
+public class SessionExecutorTest {
+
+    private static final int TASKS = 1000;
+
+    private SessionExecutor executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that the tasks of a session run in the order they were submitted.
+     *
+     * @throws Exception if the tasks do not complete
+     */
+    @Test
+    public void testOrderedPerSession() throws Exception {
+        executor = new SessionExecutor(4);
+        List<String> sessions = new ArrayList<>();
+        List<List<Integer>> runs = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            sessions.add("of:000000000000000" + Integer.toHexString(i) + "/" + i);
+            runs.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+        CountDownLatch done = new CountDownLatch(sessions.size() * TASKS);
+        for (int task = 0; task < TASKS; task++) {
+            for (int i = 0; i < sessions.size(); i++) {
+                List<Integer> run = runs.get(i);
+                int value = task;
+                executor.execute(sessions.get(i), () -> {
+                    run.add(value);
+                    done.countDown();
+                });
+            }
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        for (List<Integer> run : runs) {
+            for (int task = 0; task < TASKS; task++) {
+                assertThat(run.get(task), is(task));
+            }
+        }
+    }
+
+    /**
+     * Tests that a session waiting on its thread does not hold up sessions
+     * on the other threads.
+     *
+     * @throws Exception if the tasks do not complete
+     */
+    @Test
+    public void testParallelSessions() throws Exception {
+        executor = new SessionExecutor(2);
+        // two sessions hashed onto different threads
+        String blocked = "of:0000000000000001/1";
+        String other = blocked;
+        for (int i = 2; sameShard(blocked, other); i++) {
+            other = "of:0000000000000001/" + i;
+        }
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherDone = new CountDownLatch(1);
+        executor.execute(blocked, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(other, otherDone::countDown);
+
+        assertThat(otherDone.await(5, TimeUnit.SECONDS), is(true));
+        release.countDown();
+    }
+
+    private boolean sameShard(String first, String second) throws InterruptedException {
+        String[] threads = new String[2];
+        CountDownLatch done = new CountDownLatch(2);
+        executor.execute(first, () -> {
+            threads[0] = Thread.currentThread().getName();
+            done.countDown();
+        });
+        executor.execute(second, () -> {
+            threads[1] = Thread.currentThread().getName();
+            done.countDown();
+        });
+        done.await(5, TimeUnit.SECONDS);
+        return threads[0].equals(threads[1]);
+    }
+
+    /**
+     * Tests that tasks submitted while the shard of their session is full
+     * are dropped and counted.
+     *
+     * @throws Exception if the tasks do not complete
+     */
+    @Test
+    public void testFullShard() throws Exception {
+        AtomicInteger dropped = new AtomicInteger();
+        executor = new SessionExecutor(1, 2, dropped::incrementAndGet);
+        String session = "of:0000000000000001/1";
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(session, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+
+        CountDownLatch done = new CountDownLatch(2);
+        assertThat(executor.execute(session, done::countDown), is(true));
+        assertThat(executor.execute(session, done::countDown), is(true));
+        assertThat(executor.execute(session, done::countDown), is(false));
+        assertThat(dropped.get(), is(1));
+
+        release.countDown();
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(executor.execute(session, () -> { }), is(true));
+    }
+
+    /**
+     * Tests that without threads the tasks run on the calling thread.
+     */
+    @Test
+    public void testInline() {
+        executor = new SessionExecutor(0);
+        Thread[] thread = new Thread[1];
+        executor.execute("of:0000000000000001/1", () -> thread[0] = Thread.currentThread());
+        assertThat(thread[0], is(Thread.currentThread()));
+    }
+}
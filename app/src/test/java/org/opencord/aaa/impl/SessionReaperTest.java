@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the choice of the sessions to evict.
+ */
+public class SessionReaperTest {
+
+    private static final long NOW = 1000000;
+    private static final long IDLE_TIMEOUT = 60000;
+
+    private TimingWheel timer;
+
+    @Before
+    public void setUp() {
+        StateMachine.setDelegate(e -> { });
+        timer = new TimingWheel(10, 512, Runnable::run, "test-timer");
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    private StateMachine session(String sessionId, long lastActivityTime) {
+        StateMachine session = new StateMachine(sessionId, timer);
+        session.setLastActivityTime(lastActivityTime);
+        return session;
+    }
+
+    private StateMachine unauthorized(String sessionId, long lastActivityTime) {
+        StateMachine session = session(sessionId, lastActivityTime);
+        session.start();
+        session.requestAccess();
+        session.denyAccess();
+        return session;
+    }
+
+    private StateMachine authorized(String sessionId, long lastActivityTime) {
+        StateMachine session = session(sessionId, lastActivityTime);
+        session.start();
+        session.requestAccess();
+        session.authorizeAccess();
+        return session;
+    }
+
+    private StateMachine pending(String sessionId, long lastActivityTime) {
+        StateMachine session = session(sessionId, lastActivityTime);
+        session.start();
+        session.requestAccess();
+        return session;
+    }
+
+    /**
+     * Tests that only the idle and unauthorized sessions inactive for longer
+     * than the idle timeout expire.
+     */
+    @Test
+    public void testExpired() {
+        SessionReaper reaper = new SessionReaper(IDLE_TIMEOUT, 0);
+        StateMachine idle = session("idle", NOW - IDLE_TIMEOUT);
+        StateMachine recent = session("recent", NOW - IDLE_TIMEOUT + 1);
+        StateMachine unauthorized = unauthorized("unauthorized", NOW - 2 * IDLE_TIMEOUT);
+        StateMachine authorized = authorized("authorized", NOW - 2 * IDLE_TIMEOUT);
+        StateMachine pending = pending("pending", NOW - 2 * IDLE_TIMEOUT);
+
+        List<StateMachine> sessions = ImmutableList.of(idle, recent, unauthorized, authorized, pending);
+        assertThat(reaper.expired(sessions, NOW), contains(idle, unauthorized));
+
+        reaper.configure(0, 0);
+        assertThat(reaper.expired(sessions, NOW), is(empty()));
+    }
+
+    /**
+     * Tests that over the cap the least recently active sessions are
+     * evicted first, down to a tenth below the cap, and that authorized
+     * sessions are kept.
+     */
+    @Test
+    public void testOverCap() {
+        SessionReaper reaper = new SessionReaper(0, 10);
+        List<StateMachine> sessions = new ArrayList<>();
+        StateMachine oldest = authorized("authorized", 0);
+        sessions.add(oldest);
+        for (int i = 1; i < 10; i++) {
+            sessions.add(i % 2 == 0 ? pending("session" + i, NOW - i) : session("session" + i, NOW - i));
+        }
+        assertThat(reaper.isFull(sessions.size() - 1), is(false));
+        assertThat(reaper.isFull(sessions.size()), is(true));
+
+        // 10 sessions, evicted down to 9
+        assertThat(reaper.overCap(sessions), contains(sessions.get(9)));
+
+        sessions.add(session("newest", NOW));
+        assertThat(reaper.overCap(sessions), contains(sessions.get(9), sessions.get(8)));
+
+        reaper.configure(0, 0);
+        assertThat(reaper.isFull(sessions.size()), is(false));
+        assertThat(reaper.overCap(sessions), is(empty()));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.Test;
+import org.onosproject.net.ConnectPoint;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.onosproject.net.NetTestTools.connectPoint;
+
+/**
+ * Tests for the table of supplicant sessions.
+ */
+public class SessionTableTest {
+
+    private static final int DEVICES = 20;
+    private static final int PORTS = 500;
+
+    private final SessionTable<String> table = new SessionTable<>();
+
+    private static String name(ConnectPoint cp) {
+        return cp.deviceId().toString() + cp.port().toString();
+    }
+
+    /**
+     * Tests that sessions are found by connect point, and that the same port
+     * on different devices holds different sessions.
+     */
+    @Test
+    public void testGetAndCreate() {
+        ConnectPoint cp = connectPoint("1", 1);
+        assertThat(table.get(cp), nullValue());
+        assertThat(table.existingKeyOf(cp), is(SessionTable.NO_KEY));
+
+        assertThat(table.computeIfAbsent(cp, key -> name(cp)), is("of:11"));
+        assertThat(table.computeIfAbsent(cp, key -> "other"), is("of:11"));
+        long key = table.keyOf(cp);
+        assertThat(key, not(SessionTable.NO_KEY));
+        assertThat(table.get(key), is("of:11"));
+
+        ConnectPoint otherDevice = connectPoint("2", 1);
+        assertThat(table.get(otherDevice), nullValue());
+        table.computeIfAbsent(otherDevice, k -> name(otherDevice));
+        assertThat(table.get(otherDevice), is("of:21"));
+        assertThat(table.get(cp), is("of:11"));
+        assertThat(table.size(), is(2));
+
+        // only removed if it is still the same session
+        assertThat(table.remove(key, "other"), is(false));
+        assertThat(table.remove(key, table.get(key)), is(true));
+        assertThat(table.get(cp), nullValue());
+        assertThat(table.size(), is(1));
+    }
+
+    /**
+     * Tests that many sessions are kept and removed without losing the
+     * others, whatever the order they are removed in.
+     */
+    @Test
+    public void testManySessions() {
+        for (int device = 1; device <= DEVICES; device++) {
+            for (int port = 1; port <= PORTS; port++) {
+                ConnectPoint cp = connectPoint(Integer.toString(device), port);
+                table.computeIfAbsent(cp, key -> name(cp));
+            }
+        }
+        assertThat(table.size(), is(DEVICES * PORTS));
+        assertThat(new HashSet<>(table.values()).size(), is(DEVICES * PORTS));
+
+        // removes every other port, leaving holes in the probe sequences
+        for (int device = 1; device <= DEVICES; device++) {
+            for (int port = 2; port <= PORTS; port += 2) {
+                ConnectPoint cp = connectPoint(Integer.toString(device), port);
+                assertThat(table.remove(cp), is(name(cp)));
+            }
+        }
+        assertThat(table.size(), is(DEVICES * PORTS / 2));
+        Set<String> left = new HashSet<>(table.values());
+        for (int device = 1; device <= DEVICES; device++) {
+            for (int port = 1; port <= PORTS; port++) {
+                ConnectPoint cp = connectPoint(Integer.toString(device), port);
+                String expected = port % 2 == 1 ? name(cp) : null;
+                assertThat(table.get(cp), is(expected));
+                assertThat(left.contains(name(cp)), is(expected != null));
+            }
+        }
+
+        table.clear();
+        assertThat(table.size(), is(0));
+        assertThat(table.get(connectPoint("1", 1)), nullValue());
+    }
+}
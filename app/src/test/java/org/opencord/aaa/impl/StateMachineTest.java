@@ -20,24 +20,31 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class StateMachineTest {
     StateMachine stateMachine = null;
+    TimingWheel timer;
 
     @Before
     public void setUp() {
         System.out.println("Set Up.");
         StateMachine.setDelegate(e -> { });
-        stateMachine = new StateMachine("session0", Executors.newSingleThreadScheduledExecutor());
+        timer = new TimingWheel(10, 512, Runnable::run, "test-timer");
+        stateMachine = new StateMachine("session0", timer);
     }
 
     @After
     public void tearDown() {
         System.out.println("Tear Down.");
         stateMachine = null;
+        timer.stop();
     }
 
     @Test
@@ -211,4 +218,71 @@ public class StateMachineTest {
         assertEquals(stateMachine.state(), StateMachine.STATE_IDLE);
     }
 
+    @Test
+    /**
+     * Test that each session has its own sequence of EAP identifiers, wrapping around after 255
+     */
+    public void testIdentifierPerSession() {
+        StateMachine other = new StateMachine("session1", timer);
+        assertEquals(stateMachine.identifier(), 0);
+        assertEquals(stateMachine.identifier(), 1);
+        assertEquals(other.identifier(), 0);
+
+        for (int i = 2; i < 256; i++) {
+            assertEquals(stateMachine.identifier(), (byte) i);
+        }
+        assertEquals(stateMachine.identifier(), 0);
+        assertEquals(other.identifier(), 1);
+    }
+
+    @Test
+    /**
+     * Test that EAP identifiers taken by several threads at once are all distinct
+     */
+    public void testConcurrentIdentifiers() throws Exception {
+        Set<Byte> identifiers = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 256 / threads.length; j++) {
+                    identifiers.add(stateMachine.identifier());
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(identifiers.size(), 256);
+    }
+
+    @Test
+    /**
+     * Test that a new EAPOL-Start forgets the RADIUS challenge of the previous authentication
+     */
+    public void testReauthenticationClearsChallenge() {
+        stateMachine.start();
+        stateMachine.requestAccess();
+        stateMachine.setChallengeInfo((byte) 5, new byte[] {1, 2, 3});
+        stateMachine.authorizeAccess();
+
+        stateMachine.start();
+        assertEquals(stateMachine.state(), StateMachine.STATE_STARTED);
+        assertNull(stateMachine.challengeState());
+        assertEquals(stateMachine.challengeIdentifier(), 0);
+    }
+
+    @Test
+    /**
+     * Test that the challenge sent to the supplicant is pending until a response answers it
+     */
+    public void testChallengeAnswered() {
+        assertFalse(stateMachine.challengeSent((byte) 200));
+        assertFalse(stateMachine.challengeAnswered((byte) 7));
+        // a new challenge replaces the unanswered one
+        assertTrue(stateMachine.challengeSent((byte) 7));
+        assertFalse(stateMachine.challengeAnswered((byte) 200));
+        assertTrue(stateMachine.challengeAnswered((byte) 7));
+        assertFalse(stateMachine.challengeAnswered((byte) 7));
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencord.aaa.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the timing wheel running session cleanups and retransmissions.
+ */
+public class TimingWheelTest {
+
+    private TimingWheel timer;
+
+    @Before
+    public void setUp() {
+        timer = new TimingWheel(10, 8, Runnable::run, "test-timer");
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    /**
+     * Tests that a task runs once its delay has elapsed, and not before.
+     *
+     * @throws Exception if the task does not run
+     */
+    @Test
+    public void testSchedule() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        timer.schedule(ran::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertThat(ran.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(50L));
+    }
+
+    /**
+     * Tests that a task longer than a turn of the wheel runs after the
+     * rounds it was scheduled for, not on the first pass of its bucket.
+     *
+     * @throws Exception if the task does not run
+     */
+    @Test
+    public void testSeveralRounds() throws Exception {
+        assertThat(timer.ticksPerWheel(), is(8));
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        // three turns and a half of the wheel
+        timer.schedule(ran::countDown, 280, TimeUnit.MILLISECONDS);
+
+        assertThat(ran.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(280L));
+    }
+
+    /**
+     * Tests that a cancelled task does not run, while the others in the
+     * same bucket do.
+     *
+     * @throws Exception if interrupted while waiting
+     */
+    @Test
+    public void testCancel() throws Exception {
+        AtomicInteger cancelledRuns = new AtomicInteger();
+        CountDownLatch ran = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = timer.schedule(cancelledRuns::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        timer.schedule(ran::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertThat(timeout.cancel(), is(true));
+        assertThat(timeout.isCancelled(), is(true));
+        assertThat(ran.await(5, TimeUnit.SECONDS), is(true));
+        Thread.sleep(50);
+        assertThat(cancelledRuns.get(), is(0));
+        // already cancelled
+        assertThat(timeout.cancel(), is(false));
+    }
+
+    /**
+     * Tests that a stopped wheel rejects new tasks.
+     */
+    @Test(expected = RejectedExecutionException.class)
+    public void testStopped() {
+        timer.stop();
+        timer.schedule(() -> { }, 10, TimeUnit.MILLISECONDS);
+    }
+}